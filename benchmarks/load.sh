@@ -0,0 +1,7 @@
+#!/usr/bin/env bash
+# Runs the load driver with the fake CLI first on the PATH. Build first with "mvn package".
+# FAKE_CLAUDE_* variables configure the fake; see fake-cli/claude.
+set -euo pipefail
+dir="$(cd "$(dirname "$0")" && pwd)"
+export PATH="$dir/fake-cli:$PATH"
+exec java ${JAVA_OPTS:-} -cp "$dir/target/benchmarks.jar" com.claudecli.adapter.load.LoadDriver "$@"
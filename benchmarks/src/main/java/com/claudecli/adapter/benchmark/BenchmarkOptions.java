@@ -0,0 +1,53 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.model.ClaudeCliOptions;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Option sets shared by the benchmarks, from an empty request to one that sets every flag.
+ */
+public final class BenchmarkOptions {
+    
+    private BenchmarkOptions() {
+    }
+    
+    public static ClaudeCliOptions named(String name) {
+        switch (name) {
+            case "minimal":
+                return ClaudeCliOptions.builder().build();
+            case "full":
+                return full().build();
+            case "tmux":
+                return full()
+                    .executionMode(ClaudeCliOptions.ExecutionMode.TMUX)
+                    .tmuxOptions(ClaudeCliOptions.TmuxOptions.builder()
+                        .sessionName("bench")
+                        .windowName("claude")
+                        .detached(true)
+                        .build())
+                    .build();
+            default:
+                throw new IllegalArgumentException("Unknown option set: " + name);
+        }
+    }
+    
+    private static ClaudeCliOptions.ClaudeCliOptionsBuilder full() {
+        return ClaudeCliOptions.builder()
+            .model("claude-3-opus-20240229")
+            .outputFormat("json")
+            .apiUrl("https://api.example.com")
+            .verbose(true)
+            .continueMode(true)
+            .contextFile("/tmp/claude-bench/context.md")
+            .historyFile("/tmp/claude-bench/history.json")
+            .maxTokens(4096)
+            .temperature(0.2)
+            .additionalFlags(List.of("--allowedTools", "Bash,Read"))
+            .environmentVariables(Map.of("CLAUDE_BENCH", "1"))
+            .workingDirectory("/tmp")
+            .timeout(Duration.ofSeconds(30));
+    }
+}
\ No newline at end of file
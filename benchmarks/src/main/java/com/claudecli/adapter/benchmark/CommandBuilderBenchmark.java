@@ -0,0 +1,43 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.core.ClaudeCliCommandBuilder;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandBuilderBenchmark {
+    
+    @Param({"minimal", "full", "tmux"})
+    public String options;
+    
+    private final ClaudeCliCommandBuilder builder = new ClaudeCliCommandBuilder();
+    private ClaudeCliOptions cliOptions;
+    
+    @Setup
+    public void setup() {
+        cliOptions = BenchmarkOptions.named(options);
+    }
+    
+    @Benchmark
+    public List<String> buildCommand() {
+        return builder.buildCommand("Summarise the build failure in three bullet points", cliOptions);
+    }
+}
\ No newline at end of file
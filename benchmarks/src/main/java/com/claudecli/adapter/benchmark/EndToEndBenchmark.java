@@ -0,0 +1,92 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.core.ClaudeCliCommandBuilder;
+import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a full {@code execute} call against the fake CLI in {@code fake-cli/claude}: command
+ * building, process spawn, output capture and, for stream-json, event decoding. Run from the
+ * benchmarks directory or point {@code -Dclaude.fake} at the script.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    
+    @Param({"text", "stream-json"})
+    public String outputFormat;
+    
+    @Param({"1", "64"})
+    public int chunks;
+    
+    @Param({"256", "65536"})
+    public int chunkBytes;
+    
+    @Param({"0"})
+    public int intervalMillis;
+    
+    private ProcessExecutor processExecutor;
+    private List<String> command;
+    private ClaudeCliOptions options;
+    
+    @Setup
+    public void setup() {
+        Path fake = Paths.get(System.getProperty("claude.fake", "fake-cli/claude")).toAbsolutePath();
+        if (!Files.isExecutable(fake)) {
+            throw new IllegalStateException("Fake CLI not found or not executable: " + fake);
+        }
+        
+        options = ClaudeCliOptions.builder()
+            .outputFormat(outputFormat)
+            .environmentVariables(Map.of(
+                "FAKE_CLAUDE_CHUNKS", Integer.toString(chunks),
+                "FAKE_CLAUDE_CHUNK_BYTES", Integer.toString(chunkBytes),
+                "FAKE_CLAUDE_CHUNK_INTERVAL_MS", Integer.toString(intervalMillis)))
+            .build();
+        
+        // The builder always invokes "claude" from the PATH; swap in the fake
+        command = new ArrayList<>(new ClaudeCliCommandBuilder().buildCommand("benchmark prompt", options));
+        command.set(0, fake.toString());
+        
+        processExecutor = new ProcessExecutor(new ClaudeCliProperties());
+    }
+    
+    @TearDown
+    public void tearDown() {
+        processExecutor.shutdown();
+    }
+    
+    @Benchmark
+    public ProcessExecutor.ProcessResult execute() {
+        ProcessExecutor.ProcessResult result = processExecutor.execute(command, options);
+        if (result.getExitCode() != 0) {
+            throw new IllegalStateException("Fake CLI failed: " + result.getError());
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layering a session overlay on its defaults, and putting the global defaults under options
+ * that already carry them, which is what every session turn does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergeOptionsBenchmark {
+    
+    private ClaudeCliOptions globalDefaults;
+    private ClaudeCliOptions sessionDefaults;
+    private ClaudeCliOptions sessionOverlay;
+    private ClaudeCliOptions turnOptions;
+    
+    @Setup
+    public void setup() {
+        globalDefaults = ClaudeCliOptions.builder()
+            .model("claude-3-opus-20240229")
+            .maxTokens(4096)
+            .build();
+        sessionDefaults = BenchmarkOptions.named("full");
+        sessionOverlay = ClaudeCliOptions.builder()
+            .historyFile("/tmp/claude-bench/session/history.json")
+            .contextFile("/tmp/claude-bench/session/context.md")
+            .build();
+        turnOptions = globalDefaults.overlay(sessionDefaults).overlay(sessionOverlay);
+    }
+    
+    @Benchmark
+    public ClaudeCliOptions mergeOptions() {
+        return sessionDefaults.overlay(sessionOverlay);
+    }
+    
+    @Benchmark
+    public ClaudeCliOptions layeredTurn() {
+        return globalDefaults.overlay(turnOptions);
+    }
+}
\ No newline at end of file
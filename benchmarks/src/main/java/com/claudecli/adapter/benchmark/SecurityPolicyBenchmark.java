@@ -0,0 +1,90 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.security.CommandSecurityPolicy;
+import com.claudecli.adapter.security.DefaultCommandSecurityPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecurityPolicyBenchmark {
+    
+    // Extra allow and deny entries each, on top of the defaults
+    @Param({"0", "500"})
+    public int extraRules;
+    
+    @Param({"10000", "0"})
+    public int decisionCacheSize;
+    
+    private DefaultCommandSecurityPolicy policy;
+    
+    @Setup
+    public void setup() {
+        policy = new DefaultCommandSecurityPolicy();
+        // Audit logging would dominate the measurement
+        policy.setLogAllCommands(false);
+        policy.setDecisionCacheSize(decisionCacheSize);
+        
+        List<String> whitelisted = new ArrayList<>(policy.getWhitelistedCommands());
+        List<String> blacklisted = new ArrayList<>(policy.getBlacklistedCommands());
+        List<Pattern> whitelistedPatterns = new ArrayList<>();
+        List<Pattern> blacklistedPatterns = new ArrayList<>();
+        for (int i = 0; i < extraRules; i++) {
+            whitelisted.add("tool-" + i + " run");
+            blacklisted.add("danger-" + i);
+            whitelistedPatterns.add(Pattern.compile("^make target-" + i + "( .*)?"));
+            blacklistedPatterns.add(Pattern.compile(".*\\bforbidden-" + i + "\\b.*"));
+        }
+        whitelistedPatterns.add(Pattern.compile("^git (status|log|diff|show).*"));
+        blacklistedPatterns.add(Pattern.compile(".*\\brm\\s+-rf\\s+/.*"));
+        policy.reloadCommandRules(whitelisted, blacklisted, whitelistedPatterns, blacklistedPatterns);
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Commands {
+        
+        @Param({"ls -la", "git status --short", "rm -rf / --no-preserve-root", "python3 build.py --release"})
+        public String command;
+    }
+    
+    @State(Scope.Benchmark)
+    public static class Paths {
+        
+        @Param({"/tmp/claude-bench/output.txt", "/etc/passwd", "/home/user/project/src/Main.java",
+            "/tmp/claude-bench/../../etc/passwd"})
+        public String path;
+    }
+    
+    @Benchmark
+    public boolean isCommandAllowed(Commands commands) {
+        return policy.isCommandAllowed(commands.command);
+    }
+    
+    @Benchmark
+    public boolean isFileWriteAllowed(Paths paths) {
+        return policy.isFileOperationAllowed(paths.path, CommandSecurityPolicy.FileOperation.WRITE);
+    }
+    
+    @Benchmark
+    public boolean isFileReadAllowed(Paths paths) {
+        return policy.isFileOperationAllowed(paths.path, CommandSecurityPolicy.FileOperation.READ);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.claudecli.adapter.benchmark;
+
+import com.claudecli.adapter.stream.StreamJsonEvent;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading CLI output line by line, as the streaming publisher does, and decoding stream-json
+ * events from it. Scores are per line, so the throughput mode reads as lines or events per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamReadingBenchmark {
+    
+    private static final int LINES = 1000;
+    
+    private byte[] textOutput;
+    private byte[] streamJsonOutput;
+    private StreamJsonParser parser;
+    
+    @Setup
+    public void setup() {
+        parser = new StreamJsonParser(new ObjectMapper());
+        
+        StringBuilder text = new StringBuilder();
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            text.append("line ").append(i).append(": the quick brown fox jumps over the lazy dog\n");
+            if (i % 4 == 3) {
+                json.append("{\"type\":\"assistant\",\"message\":{\"content\":[{\"type\":\"tool_use\",\"id\":\"toolu_")
+                    .append(i).append("\",\"name\":\"Bash\",\"input\":{\"command\":\"ls -la src\"}}]}}\n");
+            } else {
+                json.append("{\"type\":\"assistant\",\"message\":{\"content\":[{\"type\":\"text\",\"text\":\"chunk ")
+                    .append(i).append(" of the answer, with some more words to make it realistic\"}]}}\n");
+            }
+        }
+        textOutput = text.toString().getBytes(StandardCharsets.UTF_8);
+        streamJsonOutput = json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void readLines(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ByteArrayInputStream(textOutput), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(line);
+            }
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void parseStreamJson(Blackhole blackhole) throws IOException {
+        parser.parse(new ByteArrayInputStream(streamJsonOutput), (StreamJsonEvent event) -> blackhole.consume(event));
+    }
+}
\ No newline at end of file
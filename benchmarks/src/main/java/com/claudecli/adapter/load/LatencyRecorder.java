@@ -0,0 +1,40 @@
+package com.claudecli.adapter.load;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples from many threads and reports percentiles over all of them.
+ */
+class LatencyRecorder {
+    
+    private long[] samples = new long[4096];
+    private int count;
+    
+    synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+    
+    synchronized int count() {
+        return count;
+    }
+    
+    /**
+     * Sorted copy of the samples recorded so far.
+     */
+    synchronized long[] snapshot() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+    
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,393 @@
+package com.claudecli.adapter.load;
+
+import com.claudecli.adapter.config.ClaudeCliAutoConfiguration;
+import com.claudecli.adapter.core.ClaudeCliWrapper;
+import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.core.ProcessScheduler;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives {@link ClaudeCliWrapper} at a fixed request rate (open loop) or a fixed number of
+ * concurrent callers (closed loop), optionally ramping up in steps to find where throughput
+ * stops keeping up. Run it through {@code load.sh} so that {@code claude} resolves to the fake CLI.
+ *
+ * <pre>
+ * ./load.sh --qps=20 --ramp-to=200 --ramp-step=20 --duration=20s
+ * ./load.sh --concurrency=8 --ramp-to=128 --ramp-step=8 --claude.cli.executor.max-concurrent-processes=64
+ * </pre>
+ *
+ * Arguments starting with {@code --claude.} or {@code --logging.} are passed to Spring, so any
+ * adapter property can be set; the fake CLI is configured through its FAKE_CLAUDE_* variables.
+ */
+public class LoadDriver {
+    
+    @Configuration(proxyBeanMethods = false)
+    @Import(ClaudeCliAutoConfiguration.class)
+    static class Application {
+    }
+    
+    private final ClaudeCliWrapper wrapper;
+    private final ProcessExecutor processExecutor;
+    private final Settings settings;
+    private final ResourceSampler sampler = new ResourceSampler();
+    private final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2, daemon("load-driver-timer"));
+    private final ExecutorService callbacks = Executors.newSingleThreadExecutor(daemon("load-driver"));
+    private final AtomicLong requestNumber = new AtomicLong();
+    
+    LoadDriver(ClaudeCliWrapper wrapper, ProcessExecutor processExecutor, Settings settings) {
+        this.wrapper = wrapper;
+        this.processExecutor = processExecutor;
+        this.settings = settings;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        List<String> springArgs = new ArrayList<>();
+        springArgs.add("--logging.level.root=WARN");
+        Settings settings = Settings.parse(args, springArgs);
+        
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+            .web(WebApplicationType.NONE)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .run(springArgs.toArray(new String[0]));
+        try {
+            new LoadDriver(context.getBean(ClaudeCliWrapper.class), context.getBean(ProcessExecutor.class), settings)
+                .run();
+        } finally {
+            context.close();
+        }
+    }
+    
+    void run() throws InterruptedException {
+        System.out.printf("Load driver: %s, levels %s, %ds per step, output format %s%n",
+            settings.openLoop() ? "open loop (requests/s)" : "closed loop (concurrent callers)",
+            settings.levels(), settings.duration.toSeconds(), settings.outputFormat);
+        
+        if (!settings.warmup.isZero()) {
+            System.out.printf("Warming up for %ds%n", settings.warmup.toSeconds());
+            runStep(settings.levels().get(0), settings.warmup, false);
+        }
+        
+        List<StepResult> results = new ArrayList<>();
+        for (int level : settings.levels()) {
+            results.add(runStep(level, settings.duration, true));
+        }
+        report(results);
+        
+        timer.shutdownNow();
+        callbacks.shutdownNow();
+    }
+    
+    private StepResult runStep(int level, Duration duration, boolean verbose) throws InterruptedException {
+        Step step = new Step(level);
+        sampler.reset();
+        ScheduledFuture<?> progress = timer.scheduleAtFixedRate(() -> {
+            ResourceSampler.Sample sample = sampler.sample();
+            if (verbose) {
+                System.out.printf("  [%d] %3ds done=%d inFlight=%d errors=%d %s%n", level,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - step.startedAt),
+                    step.latencies.count(), step.inFlight.get(), step.errors.sum(), sample.describe());
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        
+        long endAt = step.startedAt + duration.toNanos();
+        if (settings.openLoop()) {
+            long periodNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / level);
+            AtomicLong tick = new AtomicLong();
+            ScheduledFuture<?> ticker = timer.scheduleAtFixedRate(() -> {
+                // Latency counts from when the request was due, so a stalled driver cannot hide queueing
+                long dueAt = step.startedAt + tick.getAndIncrement() * periodNanos;
+                if (step.inFlight.get() >= settings.maxInFlight) {
+                    step.dropped.increment();
+                    return;
+                }
+                fire(step, dueAt, null);
+            }, 0, periodNanos, TimeUnit.NANOSECONDS);
+            sleepUntil(endAt);
+            ticker.cancel(false);
+        } else {
+            for (int i = 0; i < level; i++) {
+                fire(step, System.nanoTime(), endAt);
+            }
+            sleepUntil(endAt);
+        }
+        
+        long drainUntil = System.nanoTime() + settings.drainTimeout.toNanos();
+        while (step.inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+            Thread.sleep(20);
+        }
+        progress.cancel(false);
+        sampler.sample();
+        return step.finish(sampler.peak());
+    }
+    
+    /**
+     * Issues one request. In closed loop ({@code endAt} set) the caller issues its next request
+     * as soon as this one completes.
+     */
+    private void fire(Step step, long dueAt, Long endAt) {
+        step.inFlight.incrementAndGet();
+        String prompt = settings.prompt + " #" + requestNumber.incrementAndGet();
+        wrapper.executeAsync(prompt, settings.options())
+            .whenCompleteAsync((response, error) -> {
+                long now = System.nanoTime();
+                step.latencies.record(now - dueAt);
+                String status = error != null ? "EXCEPTION" : String.valueOf(response.getStatus());
+                step.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                if (!"SUCCESS".equals(status)) {
+                    step.errors.increment();
+                }
+                step.lastCompletionAt.accumulateAndGet(now, Math::max);
+                step.inFlight.decrementAndGet();
+                if (endAt != null && now < endAt) {
+                    fire(step, now, endAt);
+                }
+            }, callbacks);
+    }
+    
+    private void report(List<StepResult> results) {
+        System.out.println();
+        System.out.printf("%8s %10s %10s %9s %9s %9s %9s %9s %8s %8s %9s %5s %9s%n",
+            settings.openLoop() ? "qps" : "callers", "completed", "req/s", "p50 ms", "p90 ms", "p99 ms",
+            "p99.9 ms", "max ms", "errors", "threads", "rss MB", "cli", "cli MB");
+        for (StepResult r : results) {
+            System.out.printf("%8d %10d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f%% %8d %9s %5d %9s%n",
+                r.level, r.completed, r.throughput, millis(r.p50), millis(r.p90), millis(r.p99), millis(r.p999),
+                millis(r.max), r.errorRate() * 100, r.peak.threads, megabytes(r.peak.rssKb), r.peak.children,
+                megabytes(r.peak.childRssKb));
+        }
+        
+        System.out.println();
+        for (StepResult r : results) {
+            System.out.printf("%8d statuses %s%s%n", r.level, r.statuses,
+                r.dropped > 0 ? " dropped by driver " + r.dropped : "");
+        }
+        ProcessScheduler.Stats scheduler = processExecutor.getSchedulerStats();
+        System.out.printf("Scheduler: admitted=%d rejected=%d avgQueueWait=%dms maxQueueWait=%dms%n",
+            scheduler.getAdmittedCount(), scheduler.getRejectedCount(),
+            scheduler.getAverageQueueWaitMillis(), scheduler.getMaxQueueWaitMillis());
+        
+        StepResult saturated = null;
+        StepResult previous = null;
+        for (StepResult r : results) {
+            boolean behind = settings.openLoop()
+                ? r.throughput < r.level * 0.95
+                : previous != null && r.throughput < previous.throughput * 1.05;
+            if (behind || r.errorRate() > 0.01) {
+                saturated = r;
+                break;
+            }
+            previous = r;
+        }
+        if (saturated == null) {
+            System.out.printf("No saturation up to %d %s%n", results.get(results.size() - 1).level,
+                settings.openLoop() ? "requests/s" : "callers");
+        } else {
+            System.out.printf("Saturated at %d %s: %.1f req/s, p99 %.1fms, %.2f%% errors%s%n", saturated.level,
+                settings.openLoop() ? "requests/s" : "callers", saturated.throughput, millis(saturated.p99),
+                saturated.errorRate() * 100,
+                previous != null ? String.format(" (last healthy level %d at %.1f req/s)", previous.level,
+                    previous.throughput) : "");
+        }
+    }
+    
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+    
+    private static String megabytes(long kb) {
+        return kb < 0 ? "n/a" : String.format("%.1f", kb / 1024.0);
+    }
+    
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    private static class Step {
+        
+        final int level;
+        final long startedAt = System.nanoTime();
+        final LatencyRecorder latencies = new LatencyRecorder();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        final AtomicLong lastCompletionAt = new AtomicLong(startedAt);
+        
+        Step(int level) {
+            this.level = level;
+        }
+        
+        StepResult finish(ResourceSampler.Sample peak) {
+            long[] sorted = latencies.snapshot();
+            double seconds = Math.max(1, lastCompletionAt.get() - startedAt) / 1e9;
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return new StepResult(level, sorted.length, sorted.length / seconds, errors.sum(), dropped.sum(),
+                LatencyRecorder.percentile(sorted, 50), LatencyRecorder.percentile(sorted, 90),
+                LatencyRecorder.percentile(sorted, 99), LatencyRecorder.percentile(sorted, 99.9),
+                sorted.length > 0 ? sorted[sorted.length - 1] : 0, counts, peak);
+        }
+    }
+    
+    private static class StepResult {
+        
+        final int level;
+        final int completed;
+        final double throughput;
+        final long errors;
+        final long dropped;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long p999;
+        final long max;
+        final Map<String, Long> statuses;
+        final ResourceSampler.Sample peak;
+        
+        StepResult(int level, int completed, double throughput, long errors, long dropped, long p50, long p90,
+                   long p99, long p999, long max, Map<String, Long> statuses, ResourceSampler.Sample peak) {
+            this.level = level;
+            this.completed = completed;
+            this.throughput = throughput;
+            this.errors = errors;
+            this.dropped = dropped;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.statuses = statuses;
+            this.peak = peak;
+        }
+        
+        double errorRate() {
+            long total = completed + dropped;
+            return total == 0 ? 0 : (double) (errors + dropped) / total;
+        }
+    }
+    
+    static class Settings {
+        
+        int qps;
+        int concurrency = 16;
+        int rampTo;
+        int rampStep;
+        int maxInFlight = 10_000;
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(5);
+        Duration drainTimeout = Duration.ofSeconds(60);
+        Duration timeout;
+        String prompt = "Load test prompt";
+        String outputFormat = "text";
+        
+        private ClaudeCliOptions options;
+        
+        static Settings parse(String[] args, List<String> springArgs) {
+            Settings settings = new Settings();
+            for (String arg : args) {
+                if (arg.startsWith("--claude.") || arg.startsWith("--logging.")) {
+                    springArgs.add(arg);
+                    continue;
+                }
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (name) {
+                    case "qps" -> settings.qps = Integer.parseInt(value);
+                    case "concurrency" -> settings.concurrency = Integer.parseInt(value);
+                    case "ramp-to" -> settings.rampTo = Integer.parseInt(value);
+                    case "ramp-step" -> settings.rampStep = Integer.parseInt(value);
+                    case "max-in-flight" -> settings.maxInFlight = Integer.parseInt(value);
+                    case "duration" -> settings.duration = duration(value);
+                    case "warmup" -> settings.warmup = duration(value);
+                    case "drain-timeout" -> settings.drainTimeout = duration(value);
+                    case "timeout" -> settings.timeout = duration(value);
+                    case "prompt" -> settings.prompt = value;
+                    case "output-format" -> settings.outputFormat = value;
+                    default -> throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            settings.options = ClaudeCliOptions.builder()
+                .outputFormat(settings.outputFormat)
+                .timeout(settings.timeout)
+                .bypassCache(true)
+                .build();
+            return settings;
+        }
+        
+        boolean openLoop() {
+            return qps > 0;
+        }
+        
+        List<Integer> levels() {
+            int start = openLoop() ? qps : concurrency;
+            List<Integer> levels = new ArrayList<>();
+            levels.add(start);
+            if (rampTo > start) {
+                int step = rampStep > 0 ? rampStep : start;
+                for (int level = start + step; level <= rampTo; level += step) {
+                    levels.add(level);
+                }
+            }
+            return levels;
+        }
+        
+        ClaudeCliOptions options() {
+            return options;
+        }
+        
+        /**
+         * Parses durations such as {@code 500ms}, {@code 30s} or {@code 2m}.
+         */
+        static Duration duration(String value) {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            if (value.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            if (value.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(value));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.claudecli.adapter.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Samples the driver's thread count and resident memory, and the number and memory of the CLI
+ * processes it has spawned. Memory figures come from {@code /proc} and read as -1 elsewhere.
+ */
+class ResourceSampler {
+    
+    private int peakThreads;
+    private long peakRssKb = -1;
+    private long peakChildren;
+    private long peakChildRssKb = -1;
+    
+    synchronized Sample sample() {
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        long rssKb = rssKb(ProcessHandle.current().pid());
+        List<ProcessHandle> children = ProcessHandle.current().descendants().toList();
+        long childRssKb = -1;
+        for (ProcessHandle child : children) {
+            long rss = rssKb(child.pid());
+            if (rss >= 0) {
+                childRssKb = Math.max(childRssKb, 0) + rss;
+            }
+        }
+        
+        peakThreads = Math.max(peakThreads, threads);
+        peakRssKb = Math.max(peakRssKb, rssKb);
+        peakChildren = Math.max(peakChildren, children.size());
+        peakChildRssKb = Math.max(peakChildRssKb, childRssKb);
+        return new Sample(threads, rssKb, children.size(), childRssKb);
+    }
+    
+    synchronized Sample peak() {
+        return new Sample(peakThreads, peakRssKb, peakChildren, peakChildRssKb);
+    }
+    
+    synchronized void reset() {
+        peakThreads = 0;
+        peakRssKb = -1;
+        peakChildren = 0;
+        peakChildRssKb = -1;
+    }
+    
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process has already exited
+        }
+        return -1;
+    }
+    
+    static class Sample {
+        
+        final int threads;
+        final long rssKb;
+        final long children;
+        final long childRssKb;
+        
+        Sample(int threads, long rssKb, long children, long childRssKb) {
+            this.threads = threads;
+            this.rssKb = rssKb;
+            this.children = children;
+            this.childRssKb = childRssKb;
+        }
+        
+        String describe() {
+            return String.format("threads=%d rss=%s cli=%d cliRss=%s",
+                threads, megabytes(rssKb), children, megabytes(childRssKb));
+        }
+        
+        private static String megabytes(long kb) {
+            return kb < 0 ? "n/a" : String.format("%.1fMB", kb / 1024.0);
+        }
+    }
+}
\ No newline at end of file
@@ -1,15 +1,21 @@
 package com.claudecli.demo.controller;
 
 import com.claudecli.adapter.core.ClaudeCliWrapper;
+import com.claudecli.adapter.core.SessionLimitExceededException;
+import com.claudecli.adapter.core.SessionOwnershipException;
 import com.claudecli.adapter.model.ClaudeCliOptions;
 import com.claudecli.adapter.model.ClaudeResponse;
+import com.claudecli.adapter.reactive.ClaudeCliFlux;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
-import java.time.Duration;
+import java.security.Principal;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -44,20 +50,23 @@ public class ClaudeController {
     public Flux<String> stream(@RequestParam String prompt) {
         log.info("Streaming response for: {}", prompt);
         
-        return Flux.create(sink -> {
-            claudeCli.executeStream(prompt, line -> {
-                sink.next(line);
-            });
-            sink.complete();
-        }).delayElements(Duration.ofMillis(100));
+        return ClaudeCliFlux.stream(claudeCli, prompt);
     }
     
+    /**
+     * The per-user session quota is keyed on the authenticated user, never on anything the client
+     * sends. Without authentication the demo falls back to the client address, which is only good
+     * enough for a demonstration.
+     */
     @PostMapping("/session/{sessionId}/send")
     public ClaudeResponse sendToSession(
             @PathVariable String sessionId,
+            Principal principal,
+            HttpServletRequest httpRequest,
             @RequestBody Map<String, String> request) {
         
-        ClaudeCliWrapper.ClaudeSession session = claudeCli.createSession(sessionId);
+        String userId = principal != null ? principal.getName() : httpRequest.getRemoteAddr();
+        ClaudeCliWrapper.ClaudeSession session = claudeCli.createSession(sessionId, userId, ClaudeCliOptions.builder().build());
         return session.send(request.get("prompt"));
     }
     
@@ -67,6 +76,18 @@ public class ClaudeController {
         log.info("Closed session: {}", sessionId);
     }
     
+    @ExceptionHandler(SessionLimitExceededException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Map<String, String> sessionLimitExceeded(SessionLimitExceededException e) {
+        return Map.of("error", e.getMessage());
+    }
+    
+    @ExceptionHandler(SessionOwnershipException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> sessionConflict(SessionOwnershipException e) {
+        return Map.of("error", e.getMessage());
+    }
+    
     @Data
     public static class AskRequest {
         private String prompt;
@@ -0,0 +1,170 @@
+package com.claudecli.adapter.cache;
+
+import com.claudecli.adapter.model.ClaudeResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent requests with the same {@link RequestFingerprint} share
+ * one CLI process. The fingerprint covers the API key, so only callers with the same credentials
+ * are joined. Every caller gets its own future, so cancelling it only detaches that caller;
+ * the shared execution is cancelled once the last caller has gone. Every caller also gets its
+ * own response and its own handle on the captured output, which it can close independently.
+ */
+@Slf4j
+public class RequestCoalescer {
+    
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    
+    private final AtomicLong launchedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong abandonedCount = new AtomicLong();
+    
+    public CompletableFuture<ClaudeResponse> execute(String fingerprint,
+                                                     Supplier<CompletableFuture<ClaudeResponse>> launcher) {
+        while (true) {
+            InFlight existing = inFlight.get(fingerprint);
+            if (existing != null) {
+                CompletableFuture<ClaudeResponse> subscription = existing.join();
+                if (subscription != null) {
+                    coalescedCount.incrementAndGet();
+                    return subscription;
+                }
+                // Everybody left this one and it is being torn down; start over
+                inFlight.remove(fingerprint, existing);
+                continue;
+            }
+            
+            InFlight created = new InFlight();
+            if (inFlight.putIfAbsent(fingerprint, created) != null) {
+                continue;
+            }
+            
+            launchedCount.incrementAndGet();
+            CompletableFuture<ClaudeResponse> subscription = created.subscribe();
+            created.shared.whenComplete((response, error) -> inFlight.remove(fingerprint, created));
+            created.launch(launcher);
+            return subscription;
+        }
+    }
+    
+    public Stats getStats() {
+        return Stats.builder()
+            .launchedCount(launchedCount.get())
+            .coalescedCount(coalescedCount.get())
+            .abandonedCount(abandonedCount.get())
+            .inFlight(inFlight.size())
+            .build();
+    }
+    
+    private class InFlight {
+        
+        private final CompletableFuture<ClaudeResponse> shared = new CompletableFuture<>();
+        private final AtomicInteger subscribers = new AtomicInteger(1);
+        private volatile CompletableFuture<ClaudeResponse> execution;
+        
+        /**
+         * Subscribes a follower, or returns null once the execution has finished or been abandoned.
+         * Runs under the same lock as completion so no follower subscribes after the shared output
+         * has been handed out and released.
+         */
+        synchronized CompletableFuture<ClaudeResponse> join() {
+            while (true) {
+                int current = subscribers.get();
+                if (current <= 0 || shared.isDone()) {
+                    return null;
+                }
+                if (subscribers.compareAndSet(current, current + 1)) {
+                    return subscribe();
+                }
+            }
+        }
+        
+        void launch(Supplier<CompletableFuture<ClaudeResponse>> launcher) {
+            try {
+                execution = launcher.get();
+            } catch (RuntimeException e) {
+                shared.completeExceptionally(e);
+                return;
+            }
+            execution.whenComplete((response, error) -> {
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                    return;
+                }
+                synchronized (this) {
+                    shared.complete(response);
+                }
+                // Every subscriber now holds its own handle; drop the execution's
+                if (response != null && response.getCapturedOutput() != null) {
+                    response.getCapturedOutput().close();
+                }
+            });
+            if (shared.isCancelled()) {
+                execution.cancel(true);
+            }
+        }
+        
+        CompletableFuture<ClaudeResponse> subscribe() {
+            CompletableFuture<ClaudeResponse> view = new CompletableFuture<>();
+            shared.whenComplete((response, error) -> {
+                if (error != null) {
+                    view.completeExceptionally(error);
+                    return;
+                }
+                ClaudeResponse own = copyOf(response);
+                if (!view.complete(own) && own != null && own.getCapturedOutput() != null) {
+                    own.getCapturedOutput().close();
+                }
+            });
+            view.whenComplete((response, error) -> {
+                if (error instanceof CancellationException && !shared.isDone()) {
+                    release();
+                }
+            });
+            return view;
+        }
+        
+        private void release() {
+            if (subscribers.decrementAndGet() == 0) {
+                abandonedCount.incrementAndGet();
+                log.debug("All callers cancelled a coalesced request, cancelling the shared execution");
+                shared.cancel(true);
+                CompletableFuture<ClaudeResponse> running = execution;
+                if (running != null) {
+                    running.cancel(true);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A copy per caller so callers cannot observe each other's mutations or close each other's output.
+     */
+    private static ClaudeResponse copyOf(ClaudeResponse response) {
+        if (response == null) {
+            return null;
+        }
+        ClaudeResponse.ClaudeResponseBuilder copy = response.toBuilder();
+        if (response.getCapturedOutput() != null) {
+            copy.capturedOutput(response.getCapturedOutput().share());
+        }
+        return copy.build();
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final long launchedCount;
+        /** Requests that joined an in-flight execution, i.e. processes saved. */
+        private final long coalescedCount;
+        private final long abandonedCount;
+        private final int inFlight;
+    }
+}
\ No newline at end of file
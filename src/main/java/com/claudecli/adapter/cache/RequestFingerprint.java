@@ -0,0 +1,128 @@
+package com.claudecli.adapter.cache;
+
+import com.claudecli.adapter.model.ClaudeCliOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical SHA-256 fingerprint of a prompt and the options that influence the CLI's answer.
+ * The API key and URL are hashed in as well, so callers with different credentials never share
+ * an answer; only the digest is kept, never the key itself.
+ */
+public final class RequestFingerprint {
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    /** Flags that let the CLI run tools without asking, turning the request into an agentic run. */
+    private static final List<String> TOOL_GRANTING_FLAGS = List.of(
+        "--dangerously-skip-permissions", "--permission-mode", "--allowedTools", "--allowed-tools", "--mcp-config");
+    
+    private RequestFingerprint() {
+    }
+    
+    /**
+     * Whether the answer depends only on what the fingerprint covers. Anything tied to a
+     * conversation, an output file, piped input or a tmux session depends on state outside of it.
+     * So does an agentic run that may use tools without asking, which also has side effects and
+     * must never be run twice or answered from another run.
+     */
+    public static boolean isSelfContained(ClaudeCliOptions options) {
+        if (options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.TMUX) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(options.getDangerouslySkipPermissions()) || grantsTools(options.getAdditionalFlags())) {
+            return false;
+        }
+        return !Boolean.TRUE.equals(options.getContinueMode())
+            && options.getHistoryFile() == null
+            && options.getContextFile() == null
+            && options.getOutputFile() == null
+            && options.getStandardInput() == null;
+    }
+    
+    private static boolean grantsTools(List<String> flags) {
+        if (flags == null) {
+            return false;
+        }
+        for (String flag : flags) {
+            for (String granting : TOOL_GRANTING_FLAGS) {
+                if (flag.equals(granting) || flag.startsWith(granting + "=")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    public static String of(String prompt, ClaudeCliOptions options) {
+        MessageDigest digest = sha256();
+        update(digest, prompt);
+        update(digest, options.getModel());
+        update(digest, options.getOutputFormat());
+        update(digest, options.getApiKey());
+        update(digest, options.getApiUrl());
+        update(digest, options.getMaxTokens());
+        update(digest, options.getTemperature());
+        update(digest, options.getDangerouslySkipPermissions());
+        update(digest, options.getVerbose());
+        update(digest, options.getWorkingDirectory());
+        update(digest, options.getExecutionMode());
+        
+        if (options.getAdditionalFlags() != null) {
+            update(digest, options.getAdditionalFlags().size());
+            options.getAdditionalFlags().forEach(flag -> update(digest, flag));
+        } else {
+            update(digest, null);
+        }
+        
+        if (options.getEnvironmentVariables() != null) {
+            Map<String, String> sorted = new TreeMap<>(options.getEnvironmentVariables());
+            update(digest, sorted.size());
+            sorted.forEach((key, value) -> {
+                update(digest, key);
+                update(digest, value);
+            });
+        } else {
+            update(digest, null);
+        }
+        
+        return toHex(digest.digest());
+    }
+    
+    private static void update(MessageDigest digest, Object value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        // Length-prefix every field so adjacent values can never run into each other
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
\ No newline at end of file
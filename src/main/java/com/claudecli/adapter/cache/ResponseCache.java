@@ -0,0 +1,506 @@
+package com.claudecli.adapter.cache;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.model.ClaudeResponse;
+import com.claudecli.adapter.util.PrivateDirectories;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Opt-in cache of successful responses keyed by {@link RequestFingerprint}. The memory tier is
+ * an LRU bounded in bytes; entries evicted from it are optionally spilled to a disk tier that is
+ * bounded the same way.
+ */
+@Slf4j
+public class ResponseCache {
+    
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    
+    private final ClaudeCliProperties.CacheConfig config;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final Path diskDirectory;
+    
+    private final Object memoryLock = new Object();
+    private final LinkedHashMap<String, MemoryEntry> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+    
+    private final Object diskLock = new Object();
+    private final LinkedHashMap<String, Long> diskIndex = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+    
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    
+    public ResponseCache(ClaudeCliProperties properties, ObjectMapper objectMapper) {
+        this.config = properties.getCache();
+        this.objectMapper = objectMapper;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(config.getTtlSeconds());
+        this.diskDirectory = Boolean.TRUE.equals(config.getDiskEnabled())
+            ? openDiskDirectory(Paths.get(config.getDiskDirectory()))
+            : null;
+        
+        if (diskDirectory != null) {
+            loadDiskIndex();
+        }
+    }
+    
+    public boolean isCacheable(ClaudeCliOptions options) {
+        return !Boolean.TRUE.equals(options.getBypassCache()) && RequestFingerprint.isSelfContained(options);
+    }
+    
+    public ClaudeResponse get(String fingerprint) {
+        long now = System.currentTimeMillis();
+        synchronized (memoryLock) {
+            MemoryEntry entry = memory.get(fingerprint);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.incrementAndGet();
+                    return copyOf(entry.response);
+                }
+                removeFromMemory(fingerprint);
+            }
+        }
+        
+        if (diskDirectory != null) {
+            ClaudeResponse fromDisk = readFromDisk(fingerprint, now);
+            if (fromDisk != null) {
+                hits.incrementAndGet();
+                diskHits.incrementAndGet();
+                put(fingerprint, fromDisk);
+                return copyOf(fromDisk);
+            }
+        }
+        
+        misses.incrementAndGet();
+        return null;
+    }
+    
+    public void put(String fingerprint, ClaudeResponse response) {
+        if (response == null || response.getStatus() != ClaudeResponse.ResponseStatus.SUCCESS
+            || (response.getCapturedOutput() != null && response.getCapturedOutput().isSpilled())) {
+            return;
+        }
+        
+        long size = estimateSize(response);
+        if (size > config.getMaxBytes()) {
+            return;
+        }
+        
+        MemoryEntry entry = new MemoryEntry(copyOf(response), size, System.currentTimeMillis() + ttlMillis);
+        Map<String, MemoryEntry> evicted = new LinkedHashMap<>();
+        synchronized (memoryLock) {
+            removeFromMemory(fingerprint);
+            memory.put(fingerprint, entry);
+            memoryBytes += size;
+            
+            Iterator<Map.Entry<String, MemoryEntry>> eldest = memory.entrySet().iterator();
+            while (memoryBytes > config.getMaxBytes() && eldest.hasNext()) {
+                Map.Entry<String, MemoryEntry> victim = eldest.next();
+                eldest.remove();
+                memoryBytes -= victim.getValue().size;
+                evicted.put(victim.getKey(), victim.getValue());
+            }
+        }
+        
+        evictions.addAndGet(evicted.size());
+        if (diskDirectory != null) {
+            evicted.forEach(this::spillToDisk);
+        }
+    }
+    
+    public void invalidateAll() {
+        synchronized (memoryLock) {
+            memory.clear();
+            memoryBytes = 0;
+        }
+        if (diskDirectory != null) {
+            synchronized (diskLock) {
+                diskIndex.keySet().forEach(key -> deleteQuietly(diskFile(key)));
+                diskIndex.clear();
+                diskBytes = 0;
+            }
+        }
+    }
+    
+    public Stats getStats() {
+        int memoryEntries;
+        long memoryUsed;
+        synchronized (memoryLock) {
+            memoryEntries = memory.size();
+            memoryUsed = memoryBytes;
+        }
+        int diskEntries;
+        long diskUsed;
+        synchronized (diskLock) {
+            diskEntries = diskIndex.size();
+            diskUsed = diskBytes;
+        }
+        return Stats.builder()
+            .hits(hits.get())
+            .diskHits(diskHits.get())
+            .misses(misses.get())
+            .evictions(evictions.get())
+            .memoryEntries(memoryEntries)
+            .memoryBytes(memoryUsed)
+            .diskEntries(diskEntries)
+            .diskBytes(diskUsed)
+            .build();
+    }
+    
+    private void removeFromMemory(String fingerprint) {
+        MemoryEntry removed = memory.remove(fingerprint);
+        if (removed != null) {
+            memoryBytes -= removed.size;
+        }
+    }
+    
+    private void spillToDisk(String fingerprint, MemoryEntry entry) {
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        
+        Path target = diskFile(fingerprint);
+        try {
+            DiskEntry diskEntry = DiskEntry.of(entry.response);
+            diskEntry.setExpiresAt(entry.expiresAt);
+            
+            Path temp = Files.createTempFile(diskDirectory, fingerprint, ".tmp");
+            objectMapper.writeValue(temp.toFile(), diskEntry);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(target);
+            
+            synchronized (diskLock) {
+                Long previous = diskIndex.put(fingerprint, size);
+                diskBytes += size - (previous != null ? previous : 0);
+                
+                Iterator<Map.Entry<String, Long>> eldest = diskIndex.entrySet().iterator();
+                while (diskBytes > config.getDiskMaxBytes() && eldest.hasNext()) {
+                    Map.Entry<String, Long> victim = eldest.next();
+                    eldest.remove();
+                    diskBytes -= victim.getValue();
+                    deleteQuietly(diskFile(victim.getKey()));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to spill cached response {} to disk: {}", fingerprint, e.getMessage());
+        }
+    }
+    
+    private ClaudeResponse readFromDisk(String fingerprint, long now) {
+        synchronized (diskLock) {
+            if (diskIndex.get(fingerprint) == null) {
+                return null;
+            }
+        }
+        
+        Path file = diskFile(fingerprint);
+        try {
+            DiskEntry entry = objectMapper.readValue(file.toFile(), DiskEntry.class);
+            if (entry.getExpiresAt() <= now) {
+                removeFromDisk(fingerprint);
+                return null;
+            }
+            // Promoted back into memory, so it no longer counts against the disk tier
+            removeFromDisk(fingerprint);
+            return entry.toResponse();
+        } catch (IOException e) {
+            log.debug("Dropping unreadable disk cache entry {}", file, e);
+            removeFromDisk(fingerprint);
+            return null;
+        }
+    }
+    
+    private void removeFromDisk(String fingerprint) {
+        synchronized (diskLock) {
+            Long size = diskIndex.remove(fingerprint);
+            if (size != null) {
+                diskBytes -= size;
+            }
+        }
+        deleteQuietly(diskFile(fingerprint));
+    }
+    
+    private static Path openDiskDirectory(Path directory) {
+        try {
+            return PrivateDirectories.ensure(directory);
+        } catch (IOException e) {
+            log.warn("Disk cache disabled, {} cannot be made private: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void loadDiskIndex() {
+        try {
+            try (Stream<Path> files = Files.list(diskDirectory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .filter(PrivateDirectories::isOwnedByCurrentUser)
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .forEach(file -> {
+                        String name = file.getFileName().toString();
+                        long size = file.toFile().length();
+                        diskIndex.put(name.substring(0, name.length() - ".json".length()), size);
+                        diskBytes += size;
+                    });
+            }
+        } catch (IOException e) {
+            log.warn("Could not initialise disk cache in {}: {}", diskDirectory, e.getMessage());
+        }
+    }
+    
+    private long lastModified(Path file) {
+        return file.toFile().lastModified();
+    }
+    
+    private Path diskFile(String fingerprint) {
+        return diskDirectory.resolve(fingerprint + ".json");
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete disk cache file {}", file, e);
+        }
+    }
+    
+    private static long estimateSize(ClaudeResponse response) {
+        return ENTRY_OVERHEAD_BYTES
+            + 2L * length(response.getPrompt())
+            + 2L * length(response.getResponse())
+            + 2L * length(response.getRawOutput())
+            + 2L * length(response.getErrorOutput())
+            + structuredSize(response.getToolCalls(), call -> length(call.getAction()) + length(call.getResult()))
+            + structuredSize(response.getFileChanges(), change -> length(change.getFilePath()) + length(change.getContent()))
+            + structuredSize(response.getCommandExecutions(),
+                execution -> length(execution.getCommand()) + length(execution.getOutput()) + length(execution.getError()));
+    }
+    
+    private static <T> long structuredSize(List<T> items, Function<T, Integer> chars) {
+        if (items == null) {
+            return 0;
+        }
+        long size = 0;
+        for (T item : items) {
+            size += 64 + 2L * chars.apply(item);
+        }
+        return size;
+    }
+    
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+    
+    /**
+     * A copy that shares nothing mutable with the cached entry, so neither side can change the other.
+     */
+    private static ClaudeResponse copyOf(ClaudeResponse response) {
+        return response.toBuilder()
+            .timestamp(LocalDateTime.now())
+            .toolCalls(map(response.getToolCalls(), call -> call.toBuilder().build()))
+            .fileChanges(map(response.getFileChanges(), change -> change.toBuilder().build()))
+            .commandExecutions(map(response.getCommandExecutions(), execution -> execution.toBuilder().build()))
+            .build();
+    }
+    
+    private static <T, R> List<R> map(List<T> items, Function<T, R> mapper) {
+        if (items == null) {
+            return null;
+        }
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return mapped;
+    }
+    
+    private static String format(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.toString() : null;
+    }
+    
+    private static LocalDateTime parse(String timestamp) {
+        return timestamp != null ? LocalDateTime.parse(timestamp) : null;
+    }
+    
+    private static class MemoryEntry {
+        private final ClaudeResponse response;
+        private final long size;
+        private final long expiresAt;
+        
+        MemoryEntry(ClaudeResponse response, long size, long expiresAt) {
+            this.response = response;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * Everything a memory hit would return, in a form the plain {@link ObjectMapper} can write
+     * and read back: timestamps are kept as ISO-8601 strings.
+     */
+    @lombok.Data
+    static class DiskEntry {
+        private String sessionId;
+        private String prompt;
+        private String response;
+        private String rawOutput;
+        private String errorOutput;
+        private Integer exitCode;
+        private Integer attempts;
+        private List<DiskToolCall> toolCalls;
+        private List<DiskFileChange> fileChanges;
+        private List<DiskCommandExecution> commandExecutions;
+        private long expiresAt;
+        
+        static DiskEntry of(ClaudeResponse response) {
+            DiskEntry entry = new DiskEntry();
+            entry.setSessionId(response.getSessionId());
+            entry.setPrompt(response.getPrompt());
+            entry.setResponse(response.getResponse());
+            entry.setRawOutput(response.getRawOutput());
+            entry.setErrorOutput(response.getErrorOutput());
+            entry.setExitCode(response.getExitCode());
+            entry.setAttempts(response.getAttempts());
+            entry.setToolCalls(map(response.getToolCalls(), DiskToolCall::of));
+            entry.setFileChanges(map(response.getFileChanges(), DiskFileChange::of));
+            entry.setCommandExecutions(map(response.getCommandExecutions(), DiskCommandExecution::of));
+            return entry;
+        }
+        
+        ClaudeResponse toResponse() {
+            return ClaudeResponse.builder()
+                .sessionId(sessionId)
+                .prompt(prompt)
+                .response(response)
+                .rawOutput(rawOutput)
+                .errorOutput(errorOutput)
+                .exitCode(exitCode)
+                .attempts(attempts)
+                .toolCalls(map(toolCalls, DiskToolCall::toToolCall))
+                .fileChanges(map(fileChanges, DiskFileChange::toFileChange))
+                .commandExecutions(map(commandExecutions, DiskCommandExecution::toCommandExecution))
+                .status(ClaudeResponse.ResponseStatus.SUCCESS)
+                .timestamp(LocalDateTime.now())
+                .build();
+        }
+    }
+    
+    @lombok.Data
+    static class DiskToolCall {
+        private String toolName;
+        private String action;
+        private String result;
+        private String timestamp;
+        
+        static DiskToolCall of(ClaudeResponse.ToolCall call) {
+            DiskToolCall disk = new DiskToolCall();
+            disk.setToolName(call.getToolName());
+            disk.setAction(call.getAction());
+            disk.setResult(call.getResult());
+            disk.setTimestamp(format(call.getTimestamp()));
+            return disk;
+        }
+        
+        ClaudeResponse.ToolCall toToolCall() {
+            return ClaudeResponse.ToolCall.builder()
+                .toolName(toolName)
+                .action(action)
+                .result(result)
+                .timestamp(parse(timestamp))
+                .build();
+        }
+    }
+    
+    @lombok.Data
+    static class DiskFileChange {
+        private String filePath;
+        private ClaudeResponse.FileChange.ChangeType changeType;
+        private String content;
+        private String timestamp;
+        
+        static DiskFileChange of(ClaudeResponse.FileChange change) {
+            DiskFileChange disk = new DiskFileChange();
+            disk.setFilePath(change.getFilePath());
+            disk.setChangeType(change.getChangeType());
+            disk.setContent(change.getContent());
+            disk.setTimestamp(format(change.getTimestamp()));
+            return disk;
+        }
+        
+        ClaudeResponse.FileChange toFileChange() {
+            return ClaudeResponse.FileChange.builder()
+                .filePath(filePath)
+                .changeType(changeType)
+                .content(content)
+                .timestamp(parse(timestamp))
+                .build();
+        }
+    }
+    
+    @lombok.Data
+    static class DiskCommandExecution {
+        private String command;
+        private String output;
+        private String error;
+        private Integer exitCode;
+        private String timestamp;
+        private Boolean approved;
+        
+        static DiskCommandExecution of(ClaudeResponse.CommandExecution execution) {
+            DiskCommandExecution disk = new DiskCommandExecution();
+            disk.setCommand(execution.getCommand());
+            disk.setOutput(execution.getOutput());
+            disk.setError(execution.getError());
+            disk.setExitCode(execution.getExitCode());
+            disk.setTimestamp(format(execution.getTimestamp()));
+            disk.setApproved(execution.getApproved());
+            return disk;
+        }
+        
+        ClaudeResponse.CommandExecution toCommandExecution() {
+            return ClaudeResponse.CommandExecution.builder()
+                .command(command)
+                .output(output)
+                .error(error)
+                .exitCode(exitCode)
+                .timestamp(parse(timestamp))
+                .approved(approved)
+                .build();
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final long hits;
+        private final long diskHits;
+        private final long misses;
+        private final long evictions;
+        private final int memoryEntries;
+        private final long memoryBytes;
+        private final int diskEntries;
+        private final long diskBytes;
+    }
+}
\ No newline at end of file
@@ -1,25 +1,46 @@
 package com.claudecli.adapter.config;
 
+import com.claudecli.adapter.cache.RequestCoalescer;
+import com.claudecli.adapter.cache.ResponseCache;
 import com.claudecli.adapter.core.ClaudeCliCommandBuilder;
 import com.claudecli.adapter.core.ClaudeCliWrapper;
+import com.claudecli.adapter.core.CliWorkerPool;
+import com.claudecli.adapter.core.ExecutorServiceFactory;
+import com.claudecli.adapter.core.HedgingExecutor;
+import com.claudecli.adapter.core.PinnedSessionWorkers;
 import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.core.ResilientExecutor;
 import com.claudecli.adapter.security.CommandSecurityPolicy;
 import com.claudecli.adapter.security.DefaultCommandSecurityPolicy;
+import com.claudecli.adapter.security.ToolApprovalHandler;
+import com.claudecli.adapter.security.ToolUseEnforcer;
 import com.claudecli.adapter.service.ClaudeCliService;
+import com.claudecli.adapter.service.SessionRegistry;
 import com.claudecli.adapter.service.TmuxSessionManager;
+import com.claudecli.adapter.session.InMemorySessionStore;
+import com.claudecli.adapter.session.SegmentedLogSessionStore;
+import com.claudecli.adapter.session.SessionStore;
+import com.claudecli.adapter.stream.StreamJsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+import java.util.concurrent.ExecutorService;
 
 @AutoConfiguration
 @ConditionalOnClass(ClaudeCliWrapper.class)
 @EnableConfigurationProperties(ClaudeCliProperties.class)
-@ComponentScan(basePackages = "com.claudecli.adapter")
+@ComponentScan(basePackages = "com.claudecli.adapter",
+    excludeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM, classes = AutoConfigurationExcludeFilter.class))
 public class ClaudeCliAutoConfiguration {
     
     @Bean
@@ -28,16 +49,30 @@ public class ClaudeCliAutoConfiguration {
         return new ObjectMapper();
     }
     
+    @Bean(name = "claudeCliExecutorService", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "claudeCliExecutorService")
+    public ExecutorService claudeCliExecutorService(ClaudeCliProperties properties) {
+        return ExecutorServiceFactory.create(properties.getExecutor().getType());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public StreamJsonParser streamJsonParser(ObjectMapper objectMapper) {
+        return new StreamJsonParser(objectMapper);
+    }
+    
     @Bean
     @ConditionalOnMissingBean
-    public ProcessExecutor processExecutor() {
-        return new ProcessExecutor();
+    public ProcessExecutor processExecutor(ClaudeCliProperties properties,
+                                           @Qualifier("claudeCliExecutorService") ExecutorService executorService,
+                                           StreamJsonParser streamJsonParser) {
+        return new ProcessExecutor(properties, executorService, streamJsonParser);
     }
     
     @Bean
     @ConditionalOnMissingBean
-    public ClaudeCliCommandBuilder claudeCliCommandBuilder() {
-        return new ClaudeCliCommandBuilder();
+    public ClaudeCliCommandBuilder claudeCliCommandBuilder(ClaudeCliProperties properties) {
+        return new ClaudeCliCommandBuilder(properties);
     }
     
     @Bean
@@ -54,8 +89,121 @@ public class ClaudeCliAutoConfiguration {
         havingValue = "true",
         matchIfMissing = true
     )
-    public TmuxSessionManager tmuxSessionManager(ProcessExecutor processExecutor) {
-        return new TmuxSessionManager(processExecutor);
+    public TmuxSessionManager tmuxSessionManager(ProcessExecutor processExecutor, ClaudeCliProperties properties) {
+        return new TmuxSessionManager(processExecutor, properties);
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.pool",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public CliWorkerPool cliWorkerPool(
+            ClaudeCliProperties properties,
+            ClaudeCliCommandBuilder commandBuilder,
+            ObjectMapper objectMapper,
+            StreamJsonParser streamJsonParser,
+            @Qualifier("claudeCliExecutorService") ExecutorService executorService,
+            ProcessExecutor processExecutor) {
+        return new CliWorkerPool(properties, commandBuilder, objectMapper, streamJsonParser, executorService,
+            processExecutor.getScheduler());
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.pinned-sessions",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public PinnedSessionWorkers pinnedSessionWorkers(
+            ClaudeCliProperties properties,
+            ClaudeCliCommandBuilder commandBuilder,
+            ObjectMapper objectMapper,
+            StreamJsonParser streamJsonParser,
+            @Qualifier("claudeCliExecutorService") ExecutorService executorService,
+            ProcessExecutor processExecutor) {
+        return new PinnedSessionWorkers(properties, commandBuilder, objectMapper, streamJsonParser, executorService,
+            processExecutor.getScheduler());
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.cache",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public ResponseCache responseCache(ClaudeCliProperties properties, ObjectMapper objectMapper) {
+        return new ResponseCache(properties, objectMapper);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.coalescing",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public RequestCoalescer requestCoalescer() {
+        return new RequestCoalescer();
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.hedging",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public HedgingExecutor hedgingExecutor(ClaudeCliProperties properties) {
+        return new HedgingExecutor(properties);
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.resilience",
+        name = "enabled",
+        havingValue = "true"
+    )
+    public ResilientExecutor resilientExecutor(ClaudeCliProperties properties) {
+        return new ResilientExecutor(properties);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(
+        prefix = "claude.cli.security",
+        name = "enforce-tool-use",
+        havingValue = "true"
+    )
+    public ToolUseEnforcer toolUseEnforcer(
+            CommandSecurityPolicy securityPolicy,
+            StreamJsonParser streamJsonParser,
+            ObjectProvider<ToolApprovalHandler> approvalHandler,
+            ClaudeCliProperties properties) {
+        return new ToolUseEnforcer(securityPolicy, streamJsonParser, approvalHandler.getIfAvailable(),
+            properties.getSecurity().getApprovalTimeoutMillis());
+    }
+    
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public SessionRegistry sessionRegistry(
+            ClaudeCliProperties properties,
+            @Qualifier("claudeCliExecutorService") ExecutorService executorService) {
+        return new SessionRegistry(properties.getSession(), executorService);
+    }
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SessionStore sessionStore(ClaudeCliProperties properties) {
+        ClaudeCliProperties.SessionConfig session = properties.getSession();
+        return session.getStore() == SessionStore.Type.MEMORY
+            ? new InMemorySessionStore()
+            : new SegmentedLogSessionStore(session);
     }
     
     @Bean
@@ -64,7 +212,19 @@ public class ClaudeCliAutoConfiguration {
             ProcessExecutor processExecutor,
             ClaudeCliCommandBuilder commandBuilder,
             CommandSecurityPolicy securityPolicy,
-            ObjectMapper objectMapper) {
-        return new ClaudeCliService(processExecutor, commandBuilder, securityPolicy, objectMapper);
+            ObjectMapper objectMapper,
+            ObjectProvider<CliWorkerPool> workerPool,
+            ObjectProvider<ResponseCache> responseCache,
+            ObjectProvider<RequestCoalescer> requestCoalescer,
+            ObjectProvider<HedgingExecutor> hedgingExecutor,
+            ObjectProvider<ResilientExecutor> resilientExecutor,
+            ObjectProvider<PinnedSessionWorkers> pinnedSessionWorkers,
+            ObjectProvider<ToolUseEnforcer> toolUseEnforcer,
+            ClaudeCliProperties properties,
+            SessionRegistry sessionRegistry,
+            SessionStore sessionStore) {
+        return new ClaudeCliService(processExecutor, commandBuilder, securityPolicy, objectMapper,
+            workerPool, responseCache, requestCoalescer, hedgingExecutor, resilientExecutor, pinnedSessionWorkers,
+            toolUseEnforcer, properties, sessionRegistry, sessionStore);
     }
 }
\ No newline at end of file
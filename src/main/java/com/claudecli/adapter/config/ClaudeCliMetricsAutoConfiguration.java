@@ -0,0 +1,56 @@
+package com.claudecli.adapter.config;
+
+import com.claudecli.adapter.cache.ResponseCache;
+import com.claudecli.adapter.core.CliWorkerPool;
+import com.claudecli.adapter.core.HedgingExecutor;
+import com.claudecli.adapter.core.PinnedSessionWorkers;
+import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.core.ResilientExecutor;
+import com.claudecli.adapter.metrics.ClaudeCliMeterBinder;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.metrics.MicrometerClaudeCliMetrics;
+import com.claudecli.adapter.service.ClaudeCliService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Publishes process lifecycle metrics when Micrometer is on the classpath and the application
+ * has a {@link MeterRegistry}, normally through Spring Boot Actuator.
+ */
+@AutoConfiguration(
+    after = ClaudeCliAutoConfiguration.class,
+    afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration"
+    }
+)
+@ConditionalOnClass(MeterRegistry.class)
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnProperty(prefix = "claude.cli.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ClaudeCliMetricsAutoConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ClaudeCliMetrics claudeCliMetrics(MeterRegistry meterRegistry, ClaudeCliProperties properties) {
+        return new MicrometerClaudeCliMetrics(meterRegistry, properties);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ClaudeCliMeterBinder claudeCliMeterBinder(ProcessExecutor processExecutor,
+                                                     ObjectProvider<ClaudeCliService> service,
+                                                     ObjectProvider<CliWorkerPool> workerPool,
+                                                     ObjectProvider<ResponseCache> responseCache,
+                                                     ObjectProvider<HedgingExecutor> hedgingExecutor,
+                                                     ObjectProvider<ResilientExecutor> resilientExecutor,
+                                                     ObjectProvider<PinnedSessionWorkers> pinnedSessionWorkers) {
+        return new ClaudeCliMeterBinder(processExecutor, service, workerPool, responseCache,
+            hedgingExecutor, resilientExecutor, pinnedSessionWorkers);
+    }
+}
\ No newline at end of file
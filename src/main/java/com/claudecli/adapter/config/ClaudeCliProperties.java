@@ -1,8 +1,17 @@
 package com.claudecli.adapter.config;
 
+import com.claudecli.adapter.core.ExecutorServiceFactory;
+import com.claudecli.adapter.core.HedgingExecutor;
+import com.claudecli.adapter.core.ProcessScheduler;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.model.ClaudeResponse;
+import com.claudecli.adapter.session.SessionStore;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -10,8 +19,9 @@ import java.util.Map;
 public class ClaudeCliProperties {
     
     private String cliPath = "claude";
-    private String defaultModel = "claude-3-opus-20240229";
-    private String defaultOutputFormat = "text";
+    // Unset defaults leave the choice to the CLI itself
+    private String defaultModel;
+    private String defaultOutputFormat;
     private String apiKey;
     private String apiUrl;
     
@@ -21,22 +31,59 @@ public class ClaudeCliProperties {
     private String workingDirectory = System.getProperty("user.dir");
     private String sessionDirectory = "/tmp/claude-sessions";
     
-    private Integer defaultMaxTokens = 4096;
-    private Double defaultTemperature = 0.7;
+    private Integer defaultMaxTokens;
+    private Double defaultTemperature;
     
     private Map<String, String> defaultEnvironmentVariables;
     
     private SessionConfig session = new SessionConfig();
     private SecurityConfig security = new SecurityConfig();
     private TmuxConfig tmux = new TmuxConfig();
+    private ExecutorConfig executor = new ExecutorConfig();
+    private PoolConfig pool = new PoolConfig();
+    private PinnedSessionConfig pinnedSessions = new PinnedSessionConfig();
+    private CacheConfig cache = new CacheConfig();
+    private CoalescingConfig coalescing = new CoalescingConfig();
+    private HedgingConfig hedging = new HedgingConfig();
+    private ResilienceConfig resilience = new ResilienceConfig();
+    private MetricsConfig metrics = new MetricsConfig();
+    
+    /**
+     * The bottom layer every request's options are overlaid on. The working directory and
+     * environment are applied where processes are started instead, so that requests which
+     * leave them unset can still share pooled workers.
+     */
+    public ClaudeCliOptions toDefaultOptions() {
+        return ClaudeCliOptions.builder()
+            .model(defaultModel)
+            .outputFormat(defaultOutputFormat)
+            .apiKey(apiKey)
+            .apiUrl(apiUrl)
+            // False adds no flag, and leaving it unset lets requests skip the overlay copy
+            .dangerouslySkipPermissions(Boolean.TRUE.equals(dangerouslySkipPermissions) ? true : null)
+            .verbose(Boolean.TRUE.equals(verbose) ? true : null)
+            .maxTokens(defaultMaxTokens)
+            .temperature(defaultTemperature)
+            .build();
+    }
     
     @Data
     public static class SessionConfig {
         private Boolean persistHistory = true;
         private Boolean persistContext = true;
-        private String historyDirectory = "/tmp/claude-history";
+        private String historyDirectory = Paths.get(System.getProperty("user.home"), ".claude-cli-adapter", "history").toString();
         private String contextDirectory = "/tmp/claude-context";
         private Integer maxSessionsPerUser = 10;
+        private Integer maxSessions = 10000;
+        private Long idleTimeoutSeconds = 1800L;
+        private Long ttlSeconds = 86400L;
+        private Long expiryTickMillis = 1000L;
+        private SessionStore.Type store = SessionStore.Type.LOG;
+        private Long segmentBytes = 64L * 1024 * 1024;
+        private Long syncIntervalMillis = 1000L;
+        private Long compactionIntervalSeconds = 300L;
+        private Double compactionThreshold = 0.5;
+        private Long historyTtlSeconds = 7L * 86400;
     }
     
     @Data
@@ -44,6 +91,11 @@ public class ClaudeCliProperties {
         private Boolean enabled = true;
         private Boolean requireApprovalForAllCommands = false;
         private Boolean logAllCommands = true;
+        private Integer decisionCacheSize = 10000;
+        private Boolean resolveSymlinks = false;
+        private Integer symlinkCacheSize = 10000;
+        private Boolean enforceToolUse = false;
+        private Long approvalTimeoutMillis = 300000L;
         private String approvalWebhookUrl;
     }
     
@@ -52,5 +104,89 @@ public class ClaudeCliProperties {
         private Boolean enabled = true;
         private String defaultSessionPrefix = "claude-";
         private Boolean autoCleanupOnShutdown = true;
+        private Boolean controlMode = true;
+        private Long commandTimeoutMillis = 10000L;
+        private Long outputPollIntervalMillis = 500L;
+    }
+    
+    @Data
+    public static class ExecutorConfig {
+        private ExecutorServiceFactory.ExecutorType type = ExecutorServiceFactory.ExecutorType.PLATFORM;
+        private Integer maxConcurrentProcesses = 16;
+        private Integer queueCapacity = 256;
+        private ProcessScheduler.OverflowPolicy overflowPolicy = ProcessScheduler.OverflowPolicy.QUEUE;
+        private Long queueTimeoutMillis = 60000L;
+        private Long outputMemoryThresholdBytes = 1048576L;
+        private Long defaultTimeoutSeconds = 300L;
+    }
+    
+    @Data
+    public static class PoolConfig {
+        private Boolean enabled = false;
+        private Boolean prewarm = true;
+        private Integer minSize = 2;
+        private Integer maxSize = 8;
+        private Long idleTimeoutSeconds = 300L;
+        private Long healthCheckIntervalSeconds = 30L;
+        private Long requestTimeoutSeconds = 300L;
+        private Long acquireTimeoutMillis = 30000L;
+    }
+    
+    @Data
+    public static class PinnedSessionConfig {
+        private Boolean enabled = false;
+        private Integer maxProcesses = 64;
+        private Long idleTimeoutSeconds = 120L;
+        private Long requestTimeoutSeconds = 300L;
+        private Long acquireTimeoutMillis = 30000L;
+    }
+    
+    @Data
+    public static class CacheConfig {
+        private Boolean enabled = false;
+        private Long maxBytes = 64L * 1024 * 1024;
+        private Long ttlSeconds = 3600L;
+        private Boolean diskEnabled = false;
+        private String diskDirectory = Paths.get(System.getProperty("user.home"), ".claude-cli-adapter", "cache").toString();
+        private Long diskMaxBytes = 1024L * 1024 * 1024;
+    }
+    
+    @Data
+    public static class CoalescingConfig {
+        private Boolean enabled = false;
+    }
+    
+    @Data
+    public static class HedgingConfig {
+        private Boolean enabled = false;
+        private HedgingExecutor.Trigger trigger = HedgingExecutor.Trigger.COMPLETION;
+        private Long delayMillis;
+        private Double percentile = 95.0;
+        private Long minDelayMillis = 50L;
+        private Integer windowSize = 1024;
+        private Integer minSamples = 20;
+        private Double budgetPercent = 5.0;
+    }
+    
+    @Data
+    public static class ResilienceConfig {
+        private Boolean enabled = false;
+        private Integer maxAttempts = 3;
+        private Long initialBackoffMillis = 500L;
+        private Long maxBackoffMillis = 10000L;
+        private Double multiplier = 2.0;
+        private List<ClaudeResponse.FailureType> retryOn = new ArrayList<>(List.of(
+            ClaudeResponse.FailureType.SPAWN_FAILURE,
+            ClaudeResponse.FailureType.RATE_LIMIT,
+            ClaudeResponse.FailureType.API_ERROR));
+        private Integer failureThreshold = 5;
+        private Long openMillis = 30000L;
+    }
+    
+    @Data
+    public static class MetricsConfig {
+        private Boolean enabled = true;
+        /** Models tagged by name besides the default model; any other is tagged "other". */
+        private List<String> models = new ArrayList<>();
     }
 }
\ No newline at end of file
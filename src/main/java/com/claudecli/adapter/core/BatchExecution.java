@@ -0,0 +1,217 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.model.BatchOptions;
+import com.claudecli.adapter.model.BatchResult;
+import com.claudecli.adapter.model.ClaudeResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fans a list of prompts out with at most {@code parallelism} in flight. A new prompt is
+ * launched as each one completes, so no thread waits for a slot and a batch of any size holds
+ * only {@code parallelism} executions at a time. When results are delivered in order, launching
+ * also stays within {@code reorderWindow} of the oldest undelivered prompt.
+ */
+@Slf4j
+public class BatchExecution {
+    
+    private final List<String> prompts;
+    private final Function<String, CompletableFuture<ClaudeResponse>> launcher;
+    private final int parallelism;
+    private final boolean failFast;
+    private final boolean preserveOrder;
+    private final int reorderWindow;
+    private final Consumer<BatchResult> listener;
+    private final ClaudeResponse[] responses;
+    
+    private final CompletableFuture<List<ClaudeResponse>> completion = new CompletableFuture<>();
+    private final Map<Integer, CompletableFuture<ClaudeResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger completedCount = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private int nextIndex;
+    private volatile boolean stopped;
+    
+    private final Map<Integer, BatchResult> outOfOrder = new HashMap<>();
+    private volatile int nextToDeliver;
+    
+    public BatchExecution(List<String> prompts, BatchOptions options,
+                          Function<String, CompletableFuture<ClaudeResponse>> launcher) {
+        this.prompts = List.copyOf(prompts);
+        this.launcher = launcher;
+        this.parallelism = Math.max(1, options.getParallelism() != null ? options.getParallelism() : 1);
+        this.failFast = options.getErrorPolicy() == BatchOptions.ErrorPolicy.FAIL_FAST;
+        this.preserveOrder = Boolean.TRUE.equals(options.getPreserveOrder());
+        this.reorderWindow = Math.max(1, options.getReorderWindow() != null ? options.getReorderWindow() : 64);
+        this.listener = options.getResultListener();
+        this.responses = Boolean.FALSE.equals(options.getRetainResults()) ? null : new ClaudeResponse[this.prompts.size()];
+    }
+    
+    public BatchExecution start() {
+        if (prompts.isEmpty()) {
+            completion.complete(Collections.emptyList());
+            return this;
+        }
+        drain();
+        return this;
+    }
+    
+    /**
+     * Completes with every response in input order once all prompts have finished (an empty
+     * list when results are not retained), or exceptionally with a {@link BatchFailedException}
+     * under {@code FAIL_FAST}.
+     */
+    public CompletableFuture<List<ClaudeResponse>> getCompletion() {
+        return completion;
+    }
+    
+    /**
+     * Stops launching prompts and kills the ones in flight.
+     */
+    public void cancel() {
+        stopped = true;
+        completion.cancel(false);
+        inFlight.values().forEach(execution -> execution.cancel(true));
+    }
+    
+    public int size() {
+        return prompts.size();
+    }
+    
+    public int getCompletedCount() {
+        return completedCount.get();
+    }
+    
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+    
+    public int getInFlightCount() {
+        return active.get();
+    }
+    
+    /**
+     * Launches prompts while there is spare parallelism. Executions that complete synchronously
+     * (cache hits) re-enter here, so the loop is trampolined instead of recursing per prompt.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            while (!stopped && nextIndex < prompts.size() && active.get() < parallelism && withinReorderWindow()) {
+                active.incrementAndGet();
+                launch(nextIndex++);
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Head-of-line blocking: a slow prompt holds back the results behind it, so stop launching
+     * once the buffer of held-back results could exceed the window.
+     */
+    private boolean withinReorderWindow() {
+        return !preserveOrder || listener == null || nextIndex < nextToDeliver + reorderWindow;
+    }
+    
+    private void launch(int index) {
+        String prompt = prompts.get(index);
+        CompletableFuture<ClaudeResponse> execution;
+        try {
+            execution = launcher.apply(prompt);
+        } catch (Exception e) {
+            execution = CompletableFuture.failedFuture(e);
+        }
+        inFlight.put(index, execution);
+        execution.whenComplete((response, error) -> onComplete(index, response, error));
+    }
+    
+    private void onComplete(int index, ClaudeResponse response, Throwable error) {
+        inFlight.remove(index);
+        String prompt = prompts.get(index);
+        if (response == null) {
+            response = failedResponse(prompt, error);
+        }
+        if (responses != null) {
+            responses[index] = response;
+        }
+        
+        boolean failed = response.getStatus() != ClaudeResponse.ResponseStatus.SUCCESS;
+        if (failed) {
+            failedCount.incrementAndGet();
+        }
+        deliver(BatchResult.builder().index(index).prompt(prompt).response(response).build());
+        
+        if (failed && failFast && !stopped) {
+            stopped = true;
+            completion.completeExceptionally(new BatchFailedException(index, response));
+            inFlight.values().forEach(execution -> execution.cancel(true));
+        }
+        
+        active.decrementAndGet();
+        if (completedCount.incrementAndGet() == prompts.size()) {
+            completion.complete(responses != null ? Collections.unmodifiableList(Arrays.asList(responses)) : List.of());
+        }
+        drain();
+    }
+    
+    private void deliver(BatchResult result) {
+        if (listener == null) {
+            return;
+        }
+        if (!preserveOrder) {
+            notifyListener(result);
+            return;
+        }
+        
+        // Listener calls stay under the lock so results are never delivered out of order
+        synchronized (outOfOrder) {
+            outOfOrder.put(result.getIndex(), result);
+            BatchResult next;
+            while ((next = outOfOrder.remove(nextToDeliver)) != null) {
+                nextToDeliver++;
+                notifyListener(next);
+            }
+        }
+    }
+    
+    private void notifyListener(BatchResult result) {
+        try {
+            listener.accept(result);
+        } catch (Exception e) {
+            log.warn("Batch result listener failed for prompt {}", result.getIndex(), e);
+        }
+    }
+    
+    private static ClaudeResponse failedResponse(String prompt, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return ClaudeResponse.builder()
+            .prompt(prompt)
+            .status(cause instanceof CancellationException
+                ? ClaudeResponse.ResponseStatus.CANCELLED
+                : ClaudeResponse.ResponseStatus.ERROR)
+            .errorOutput(cause != null ? String.valueOf(cause.getMessage()) : null)
+            .exitCode(-1)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.model.ClaudeResponse;
+
+/**
+ * Completes a {@link BatchExecution} run with {@code FAIL_FAST} once one prompt does not succeed.
+ */
+public class BatchFailedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private final int index;
+    private final ClaudeResponse response;
+    
+    public BatchFailedException(int index, ClaudeResponse response) {
+        super("Batch prompt " + index + " finished with status " + response.getStatus()
+            + (response.getErrorOutput() != null && !response.getErrorOutput().isEmpty()
+                ? ": " + response.getErrorOutput() : ""));
+        this.index = index;
+        this.response = response;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public ClaudeResponse getResponse() {
+        return response;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.claudecli.adapter.core;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures in a row the
+ * circuit opens and calls fail fast; once {@code openMillis} has passed a single trial call is
+ * let through, and its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+    
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+    
+    private final int failureThreshold;
+    private final long openMillis;
+    
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = openMillis;
+    }
+    
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+    
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+    
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+    
+    /**
+     * The call ended without saying anything about the backend (cancelled, or rejected locally).
+     */
+    public synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    public synchronized long getRemainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openMillis - (System.currentTimeMillis() - openedAt)) : 0;
+    }
+}
\ No newline at end of file
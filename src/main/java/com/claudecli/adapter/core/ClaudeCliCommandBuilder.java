@@ -1,24 +1,99 @@
 package com.claudecli.adapter.core;
 
+import com.claudecli.adapter.config.ClaudeCliProperties;
 import com.claudecli.adapter.model.ClaudeCliOptions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Turns options into the argv of a CLI run. The part that depends only on the options' flags
+ * is built once per distinct set of flags and shared, so a request only adds its prompt and
+ * any tmux wrapping on top.
+ */
 @Component
 public class ClaudeCliCommandBuilder {
     
     private static final String CLAUDE_CLI = "claude";
+    private static final int MAX_CACHED_COMMANDS = 256;
+    
+    private final String cliPath;
+    private final Map<Flags, List<String>> cliCommands = new ConcurrentHashMap<>();
+    // Options are immutable, so a session reusing one instance skips even the key lookup
+    private volatile Resolved lastResolved;
+    
+    public ClaudeCliCommandBuilder() {
+        this(CLAUDE_CLI);
+    }
+    
+    @Autowired
+    public ClaudeCliCommandBuilder(ClaudeCliProperties properties) {
+        this(properties.getCliPath());
+    }
+    
+    private ClaudeCliCommandBuilder(String cliPath) {
+        this.cliPath = cliPath != null && !cliPath.isBlank() ? cliPath : CLAUDE_CLI;
+    }
     
     public List<String> buildCommand(String prompt, ClaudeCliOptions options) {
-        List<String> command = new ArrayList<>();
+        List<String> cliCommand = cliCommand(options);
+        boolean tmux = options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.TMUX;
+        List<String> command = new ArrayList<>(cliCommand.size() + (tmux ? 12 : 2));
         
-        if (options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.TMUX) {
+        if (tmux) {
             buildTmuxPrefix(command, options.getTmuxOptions());
         }
         
-        command.add(CLAUDE_CLI);
+        command.addAll(cliCommand);
+        
+        if (prompt != null && !prompt.isEmpty()) {
+            command.add("--");
+            command.add(prompt);
+        }
+        
+        if (tmux && options.getTmuxOptions().getLogFile() != null) {
+            buildTmuxPipe(command, options.getTmuxOptions());
+        }
+        
+        return command;
+    }
+    
+    /**
+     * The CLI and its flags for these options, without a prompt or tmux wrapping. The list is
+     * immutable and shared between options with the same flags.
+     */
+    public List<String> cliCommand(ClaudeCliOptions options) {
+        Resolved last = lastResolved;
+        if (last != null && last.options == options) {
+            return last.command;
+        }
+        
+        Flags flags = new Flags(options);
+        List<String> command = cliCommands.get(flags);
+        if (command == null) {
+            if (cliCommands.size() >= MAX_CACHED_COMMANDS) {
+                cliCommands.clear();
+            }
+            command = List.copyOf(buildCliCommand(options));
+            // The options' flag list is an immutable copy, so the key cannot change under the cache
+            List<String> raced = cliCommands.putIfAbsent(flags, command);
+            if (raced != null) {
+                command = raced;
+            }
+        }
+        lastResolved = new Resolved(options, command);
+        return command;
+    }
+    
+    private List<String> buildCliCommand(ClaudeCliOptions options) {
+        List<String> command = new ArrayList<>();
+        
+        command.add(cliPath);
         
         if (options.getModel() != null) {
             command.add("--model");
@@ -62,11 +137,6 @@ public class ClaudeCliCommandBuilder {
             command.add(options.getHistoryFile());
         }
         
-        if (options.getOutputFile() != null) {
-            command.add("--output");
-            command.add(options.getOutputFile());
-        }
-        
         if (options.getMaxTokens() != null) {
             command.add("--max-tokens");
             command.add(options.getMaxTokens().toString());
@@ -81,14 +151,16 @@ public class ClaudeCliCommandBuilder {
             command.addAll(options.getAdditionalFlags());
         }
         
-        if (prompt != null && !prompt.isEmpty()) {
-            command.add("--");
-            command.add(prompt);
-        }
-        
         return command;
     }
     
+    /**
+     * The shell command for {@code tmux pipe-pane} that writes pane output to {@code logFile}.
+     */
+    public static String pipePaneCommand(String logFile) {
+        return "cat > '" + logFile.replace("'", "'\\''") + "'";
+    }
+    
     private void buildTmuxPrefix(List<String> command, ClaudeCliOptions.TmuxOptions tmuxOptions) {
         command.add("tmux");
         
@@ -111,4 +183,114 @@ public class ClaudeCliCommandBuilder {
         
         command.add("--");
     }
+    
+    private void buildTmuxPipe(List<String> command, ClaudeCliOptions.TmuxOptions tmuxOptions) {
+        // Chained onto new-session so the pipe is in place before the pane prints anything
+        command.add(";");
+        command.add("pipe-pane");
+        if (tmuxOptions.getSessionName() != null) {
+            command.add("-t");
+            command.add(tmuxOptions.getSessionName());
+        }
+        command.add(pipePaneCommand(tmuxOptions.getLogFile()));
+    }
+    
+    private static final class Resolved {
+        
+        final ClaudeCliOptions options;
+        final List<String> command;
+        
+        Resolved(ClaudeCliOptions options, List<String> command) {
+            this.options = options;
+            this.command = command;
+        }
+    }
+    
+    /**
+     * The options that end up as CLI flags, compared by value.
+     */
+    private static final class Flags {
+        
+        private final String model;
+        private final String outputFormat;
+        private final String apiKey;
+        private final String apiUrl;
+        private final boolean dangerouslySkipPermissions;
+        private final boolean continueMode;
+        private final boolean verbose;
+        private final String contextFile;
+        private final String historyFile;
+        private final Integer maxTokens;
+        private final Double temperature;
+        private final List<String> additionalFlags;
+        private final int hash;
+        
+        Flags(ClaudeCliOptions options) {
+            this(options.getModel(), options.getOutputFormat(), options.getApiKey(), options.getApiUrl(),
+                Boolean.TRUE.equals(options.getDangerouslySkipPermissions()),
+                Boolean.TRUE.equals(options.getContinueMode()),
+                Boolean.TRUE.equals(options.getVerbose()),
+                options.getContextFile(), options.getHistoryFile(), options.getMaxTokens(),
+                options.getTemperature(), options.getAdditionalFlags());
+        }
+        
+        private Flags(String model, String outputFormat, String apiKey, String apiUrl,
+                      boolean dangerouslySkipPermissions, boolean continueMode, boolean verbose,
+                      String contextFile, String historyFile, Integer maxTokens, Double temperature,
+                      List<String> additionalFlags) {
+            this.model = model;
+            this.outputFormat = outputFormat;
+            this.apiKey = apiKey;
+            this.apiUrl = apiUrl;
+            this.dangerouslySkipPermissions = dangerouslySkipPermissions;
+            this.continueMode = continueMode;
+            this.verbose = verbose;
+            this.contextFile = contextFile;
+            this.historyFile = historyFile;
+            this.maxTokens = maxTokens;
+            this.temperature = temperature;
+            this.additionalFlags = additionalFlags;
+            int h = Objects.hashCode(model);
+            h = 31 * h + Objects.hashCode(outputFormat);
+            h = 31 * h + Objects.hashCode(apiKey);
+            h = 31 * h + Objects.hashCode(apiUrl);
+            h = 31 * h + (dangerouslySkipPermissions ? 1 : 0);
+            h = 31 * h + (continueMode ? 1 : 0);
+            h = 31 * h + (verbose ? 1 : 0);
+            h = 31 * h + Objects.hashCode(contextFile);
+            h = 31 * h + Objects.hashCode(historyFile);
+            h = 31 * h + Objects.hashCode(maxTokens);
+            h = 31 * h + Objects.hashCode(temperature);
+            h = 31 * h + Objects.hashCode(additionalFlags);
+            this.hash = h;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Flags other)) {
+                return false;
+            }
+            return hash == other.hash
+                && dangerouslySkipPermissions == other.dangerouslySkipPermissions
+                && continueMode == other.continueMode
+                && verbose == other.verbose
+                && Objects.equals(model, other.model)
+                && Objects.equals(outputFormat, other.outputFormat)
+                && Objects.equals(apiKey, other.apiKey)
+                && Objects.equals(apiUrl, other.apiUrl)
+                && Objects.equals(contextFile, other.contextFile)
+                && Objects.equals(historyFile, other.historyFile)
+                && Objects.equals(maxTokens, other.maxTokens)
+                && Objects.equals(temperature, other.temperature)
+                && Objects.equals(additionalFlags, other.additionalFlags);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.claudecli.adapter.core;
 
+import com.claudecli.adapter.model.BatchOptions;
 import com.claudecli.adapter.model.ClaudeCliOptions;
 import com.claudecli.adapter.model.ClaudeResponse;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 
 public interface ClaudeCliWrapper {
@@ -14,16 +17,46 @@ public interface ClaudeCliWrapper {
     
     CompletableFuture<ClaudeResponse> executeAsync(String prompt);
     
+    /**
+     * Cancelling the returned future kills the CLI process and every process it spawned.
+     */
     CompletableFuture<ClaudeResponse> executeAsync(String prompt, ClaudeCliOptions options);
     
+    /**
+     * Runs every prompt with the same options, at most {@code parallelism} at a time.
+     */
+    BatchExecution executeBatch(List<String> prompts, ClaudeCliOptions options, BatchOptions batchOptions);
+    
     void executeStream(String prompt, Consumer<String> streamConsumer);
     
     void executeStream(String prompt, ClaudeCliOptions options, Consumer<String> streamConsumer);
     
+    Flow.Publisher<String> executePublisher(String prompt);
+    
+    Flow.Publisher<String> executePublisher(String prompt, ClaudeCliOptions options);
+    
+    /**
+     * Returns the live session with this id, creating it if there is none. An existing session
+     * keeps its own default options; change them with {@link ClaudeSession#updateDefaultOptions}.
+     */
     ClaudeSession createSession(String sessionId);
     
     ClaudeSession createSession(String sessionId, ClaudeCliOptions defaultOptions);
     
+    /**
+     * Like {@link #createSession(String, ClaudeCliOptions)}, counting the session against
+     * {@code userId}'s limit.
+     *
+     * @throws SessionLimitExceededException if the total or per-user limit is reached
+     * @throws SessionOwnershipException if the id belongs to another user
+     */
+    ClaudeSession createSession(String sessionId, String userId, ClaudeCliOptions defaultOptions);
+    
+    /**
+     * Returns the live session with this id, or null if it was closed or has expired.
+     */
+    ClaudeSession getSession(String sessionId);
+    
     void destroySession(String sessionId);
     
     boolean isSessionActive(String sessionId);
@@ -38,6 +71,8 @@ public interface ClaudeCliWrapper {
         
         void sendStream(String prompt, Consumer<String> streamConsumer);
         
+        Flow.Publisher<String> sendPublisher(String prompt);
+        
         void close();
         
         boolean isActive();
@@ -0,0 +1,45 @@
+package com.claudecli.adapter.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link CompletableFuture} for a running CLI invocation. Cancelling it, or any stage derived
+ * from it with {@code thenApply}, {@code thenCompose} and the like, kills the CLI process and
+ * every process it spawned.
+ */
+public class ClaudeExecution<T> extends CompletableFuture<T> {
+    
+    private final Runnable canceller;
+    private final LongSupplier outputBytes;
+    
+    public ClaudeExecution(Runnable canceller) {
+        this(canceller, () -> -1);
+    }
+    
+    public ClaudeExecution(Runnable canceller, LongSupplier outputBytes) {
+        this.canceller = canceller;
+        this.outputBytes = outputBytes;
+    }
+    
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new ClaudeExecution<>(canceller, outputBytes);
+    }
+    
+    /**
+     * Bytes the CLI has written to stdout so far, or -1 when the execution cannot observe it.
+     */
+    public long getOutputBytes() {
+        return outputBytes.getAsLong();
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            canceller.run();
+        }
+        return cancelled;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.claudecli.adapter.stream.StreamJsonTranscript;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A long-lived CLI process that takes one prompt at a time as a stream-json user message on
+ * stdin and answers with stream-json events, terminated by a {@code result} event.
+ */
+@Slf4j
+class CliWorker {
+    
+    private final Process process;
+    private final BufferedWriter stdin;
+    private final BufferedReader stdout;
+    private final Path stderrFile;
+    private final long createdAt = System.currentTimeMillis();
+    
+    private volatile long lastUsedAt = createdAt;
+    private volatile int requestCount;
+    private volatile boolean broken;
+    
+    private CliWorker(Process process, Path stderrFile) {
+        this.process = process;
+        this.stderrFile = stderrFile;
+        this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+    
+    static CliWorker start(List<String> command, File workingDirectory) throws IOException {
+        return start(command, workingDirectory, null);
+    }
+    
+    static CliWorker start(List<String> command, File workingDirectory, Map<String, String> environment)
+            throws IOException {
+        Path stderrFile = Files.createTempFile("claude-worker-", ".err");
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            if (workingDirectory != null) {
+                pb.directory(workingDirectory);
+            }
+            if (environment != null) {
+                pb.environment().putAll(environment);
+            }
+            pb.redirectError(stderrFile.toFile());
+            return new CliWorker(pb.start(), stderrFile);
+        } catch (IOException e) {
+            Files.deleteIfExists(stderrFile);
+            throw e;
+        }
+    }
+    
+    ProcessExecutor.ProcessResult send(String prompt, ObjectMapper objectMapper, StreamJsonParser parser,
+                                       ScheduledExecutorService timer, long timeoutMillis) {
+        return send(prompt, objectMapper, parser, timer, timeoutMillis, null, null);
+    }
+    
+    /**
+     * Sends one turn and reads up to its result event, handing each stdout line to
+     * {@code lineConsumer} as well when one is given. An {@code inspector} that aborts the
+     * turn kills the worker; the result event is held until the inspector has settled, and
+     * aborts after that are ignored.
+     */
+    ProcessExecutor.ProcessResult send(String prompt, ObjectMapper objectMapper, StreamJsonParser parser,
+                                       ScheduledExecutorService timer, long timeoutMillis,
+                                       Consumer<String> lineConsumer, OutputInspector inspector) {
+        requestCount++;
+        lastUsedAt = System.currentTimeMillis();
+        
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = timer.schedule(() -> {
+            timedOut.set(true);
+            kill();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        AtomicBoolean turnOver = new AtomicBoolean();
+        AtomicReference<String> abortReason = new AtomicReference<>();
+        Consumer<String> abort = reason -> {
+            if (!turnOver.get() && abortReason.compareAndSet(null, reason)) {
+                log.warn("Killing Claude CLI worker {}: {}", process.pid(), reason);
+                kill();
+            }
+        };
+        
+        try {
+            stdin.write(objectMapper.writeValueAsString(userMessage(prompt, objectMapper)));
+            stdin.newLine();
+            stdin.flush();
+            
+            StreamJsonTranscript transcript = new StreamJsonTranscript();
+            String line;
+            while ((line = stdout.readLine()) != null) {
+                if (inspector != null) {
+                    try {
+                        inspector.inspect(line, abort);
+                    } catch (RuntimeException e) {
+                        log.warn("Output inspector failed", e);
+                        abort.accept("Output inspector failed: " + e.getMessage());
+                    }
+                }
+                if (abortReason.get() != null) {
+                    break;
+                }
+                if (lineConsumer != null) {
+                    lineConsumer.accept(line);
+                }
+                parser.parseLine(line, transcript);
+                if (transcript.isComplete()) {
+                    if (inspector != null) {
+                        settle(inspector);
+                    }
+                    turnOver.set(true);
+                    if (abortReason.get() != null) {
+                        broken = true;
+                        return ProcessExecutor.ProcessResult.builder()
+                            .exitCode(-1)
+                            .error(abortReason.get())
+                            .policyViolation(abortReason.get())
+                            .transcript(transcript)
+                            .build();
+                    }
+                    boolean isError = transcript.isError();
+                    String result = transcript.getResultText();
+                    return ProcessExecutor.ProcessResult.builder()
+                        .exitCode(isError ? 1 : 0)
+                        .output(isError ? "" : result)
+                        .error(isError ? result : "")
+                        .transcript(transcript)
+                        .build();
+                }
+            }
+            
+            broken = true;
+            if (abortReason.get() != null) {
+                return ProcessExecutor.ProcessResult.builder()
+                    .exitCode(-1)
+                    .error(abortReason.get())
+                    .policyViolation(abortReason.get())
+                    .transcript(transcript)
+                    .build();
+            }
+            if (timedOut.get()) {
+                return ProcessExecutor.ProcessResult.builder()
+                    .exitCode(-1)
+                    .error("Worker timed out after " + timeoutMillis + "ms")
+                    .timedOut(true)
+                    .build();
+            }
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("Worker exited unexpectedly: " + readStderr())
+                .build();
+        } catch (IOException e) {
+            broken = true;
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error(abortReason.get() != null ? abortReason.get() : "Worker communication failed: " + e.getMessage())
+                .policyViolation(abortReason.get())
+                .timedOut(timedOut.get())
+                .build();
+        } finally {
+            turnOver.set(true);
+            watchdog.cancel(false);
+            lastUsedAt = System.currentTimeMillis();
+        }
+    }
+    
+    private static void settle(OutputInspector inspector) {
+        try {
+            inspector.settled().toCompletableFuture().join();
+        } catch (RuntimeException e) {
+            log.warn("Output inspector failed to settle", e);
+        }
+    }
+    
+    private ObjectNode userMessage(String prompt, ObjectMapper objectMapper) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("type", "user");
+        ObjectNode body = message.putObject("message");
+        body.put("role", "user");
+        body.putArray("content").addObject()
+            .put("type", "text")
+            .put("text", prompt);
+        return message;
+    }
+    
+    boolean isHealthy() {
+        return !broken && process.isAlive();
+    }
+    
+    int getRequestCount() {
+        return requestCount;
+    }
+    
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+    
+    long getPid() {
+        return process.pid();
+    }
+    
+    /**
+     * Kills the worker and any tool processes it has running, e.g. when its request is cancelled.
+     */
+    void kill() {
+        ProcessTree.destroy(process);
+    }
+    
+    void close() {
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            log.debug("Failed to close worker stdin", e);
+        }
+        process.destroy();
+        process.onExit()
+            .orTimeout(5, TimeUnit.SECONDS)
+            .whenComplete((p, e) -> {
+                if (e != null) {
+                    kill();
+                }
+                try {
+                    Files.deleteIfExists(stderrFile);
+                } catch (IOException ex) {
+                    log.debug("Could not delete worker stderr file {}", stderrFile, ex);
+                }
+            });
+    }
+    
+    private String readStderr() {
+        try {
+            byte[] bytes = Files.readAllBytes(stderrFile);
+            int from = Math.max(0, bytes.length - 4096);
+            return new String(bytes, from, bytes.length - from, StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,419 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a set of pre-spawned CLI processes running in stream-json input mode so short prompts
+ * skip process startup. A worker's conversation would carry one caller's prompts into the next
+ * caller's answers, so each worker serves a single request and is then replaced in the
+ * background. Idle workers above {@code minSize} are reaped after {@code idleTimeoutSeconds}.
+ * Every live worker holds a {@link ProcessScheduler} permit, idle or not.
+ */
+@Slf4j
+public class CliWorkerPool {
+    
+    static final List<String> WORKER_FLAGS = List.of(
+        "--print", "--input-format", "stream-json", "--output-format", "stream-json", "--verbose");
+    private final ClaudeCliProperties.PoolConfig config;
+    private final ObjectMapper objectMapper;
+    private final StreamJsonParser streamJsonParser;
+    private final ExecutorService executorService;
+    private final ProcessScheduler scheduler;
+    private final ClaudeCliCommandBuilder commandBuilder;
+    private final ClaudeCliOptions workerOptions;
+    private final List<String> baseCommand;
+    private final List<String> textCommand;
+    private final List<String> workerCommand;
+    private final File workingDirectory;
+    private final Map<String, String> environment;
+    
+    private final BlockingDeque<CliWorker> idleWorkers = new LinkedBlockingDeque<>();
+    private final Map<CliWorker, ProcessScheduler.Permit> permits = new ConcurrentHashMap<>();
+    private final AtomicInteger totalWorkers = new AtomicInteger();
+    private final AtomicLong spawnedCount = new AtomicLong();
+    private final AtomicLong recycledCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "claude-cli-worker-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile boolean shutdown;
+    private ClaudeCliMetrics metrics = ClaudeCliMetrics.NOOP;
+    
+    public CliWorkerPool(ClaudeCliProperties properties, ClaudeCliCommandBuilder commandBuilder,
+                         ObjectMapper objectMapper, StreamJsonParser streamJsonParser,
+                         ExecutorService executorService, ProcessScheduler scheduler) {
+        this.config = properties.getPool();
+        this.commandBuilder = commandBuilder;
+        this.objectMapper = objectMapper;
+        this.streamJsonParser = streamJsonParser;
+        this.executorService = executorService;
+        this.scheduler = scheduler;
+        // Workers run with the global defaults; output format and verbosity are their own business
+        this.workerOptions = properties.toDefaultOptions().toBuilder()
+            .outputFormat(null)
+            .verbose(null)
+            .build();
+        this.baseCommand = commandBuilder.cliCommand(workerOptions);
+        this.textCommand = commandBuilder.cliCommand(workerOptions.toBuilder().outputFormat("text").build());
+        this.workingDirectory = properties.getWorkingDirectory() != null
+            ? new File(properties.getWorkingDirectory())
+            : null;
+        this.environment = properties.getDefaultEnvironmentVariables();
+        
+        List<String> command = new ArrayList<>(baseCommand);
+        command.addAll(WORKER_FLAGS);
+        this.workerCommand = List.copyOf(command);
+    }
+    
+    @Autowired(required = false)
+    public void setMetrics(ClaudeCliMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (Boolean.TRUE.equals(config.getPrewarm())) {
+            executorService.execute(this::replenish);
+        }
+        maintenance.scheduleWithFixedDelay(this::healthCheck,
+            config.getHealthCheckIntervalSeconds(), config.getHealthCheckIntervalSeconds(), TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Workers all run the same command line, so only requests that would produce exactly that
+     * command (no per-request model, flags, files or environment) can be served by the pool.
+     */
+    public boolean accepts(ClaudeCliOptions options) {
+        if (shutdown) {
+            return false;
+        }
+        if (options.getExecutionMode() != null && options.getExecutionMode() != ClaudeCliOptions.ExecutionMode.DIRECT) {
+            return false;
+        }
+        if (options.getOutputFormat() != null && !"text".equals(options.getOutputFormat())) {
+            return false;
+        }
+        if (options.getWorkingDirectory() != null || options.getEnvironmentVariables() != null
+            || options.getStandardInput() != null) {
+            return false;
+        }
+        // Workers are read line by line, so there is no output growth to watch
+        if (options.getFirstByteTimeout() != null || options.getIdleOutputTimeout() != null) {
+            return false;
+        }
+        List<String> command = commandBuilder.cliCommand(options);
+        return baseCommand.equals(command) || textCommand.equals(command);
+    }
+    
+    public ProcessExecutor.ProcessResult execute(String prompt) {
+        return execute(prompt, ClaudeCliOptions.builder().build(), new RequestSlot(), null);
+    }
+    
+    public ProcessExecutor.ProcessResult execute(String prompt, ClaudeCliOptions options) {
+        return execute(prompt, options, new RequestSlot(), null);
+    }
+    
+    public ProcessExecutor.ProcessResult execute(String prompt, ClaudeCliOptions options, OutputInspector inspector) {
+        return execute(prompt, options, new RequestSlot(), inspector);
+    }
+    
+    private ProcessExecutor.ProcessResult execute(String prompt, ClaudeCliOptions options,
+                                                  RequestSlot slot, OutputInspector inspector) {
+        long timeoutMillis = ProcessWatchdog.timeoutMillis(options,
+            TimeUnit.SECONDS.toMillis(config.getRequestTimeoutSeconds()));
+        if (timeoutMillis <= 0) {
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("Deadline passed before the request could start")
+                .timedOut(true)
+                .build();
+        }
+        
+        CliWorker worker;
+        try {
+            worker = acquire();
+        } catch (Exception e) {
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("No worker available: " + e.getMessage())
+                .rejected(e instanceof RejectedExecutionException)
+                .spawnFailed(!(e instanceof RejectedExecutionException))
+                .build();
+        }
+        
+        if (!slot.assign(worker)) {
+            // Cancelled while waiting for a worker
+            release(worker);
+            return ProcessExecutor.ProcessResult.builder().exitCode(-1).error("Request cancelled").cancelled(true).build();
+        }
+        
+        requestCount.incrementAndGet();
+        ProcessExecutor.ProcessResult result = worker.send(prompt, objectMapper, streamJsonParser, maintenance,
+            timeoutMillis, slot::recordLine, inspector);
+        release(worker);
+        return result;
+    }
+    
+    public CompletableFuture<ProcessExecutor.ProcessResult> executeAsync(String prompt) {
+        return executeAsync(prompt, ClaudeCliOptions.builder().build());
+    }
+    
+    public ClaudeExecution<ProcessExecutor.ProcessResult> executeAsync(String prompt, ClaudeCliOptions options) {
+        return executeAsync(prompt, options, null);
+    }
+    
+    /**
+     * Cancelling the returned future kills the worker serving the request (it is replaced by a
+     * fresh one), since a stream-json session cannot abort a single turn. The same happens when
+     * {@code inspector} aborts the turn.
+     */
+    public ClaudeExecution<ProcessExecutor.ProcessResult> executeAsync(String prompt, ClaudeCliOptions options,
+                                                                       OutputInspector inspector) {
+        RequestSlot slot = new RequestSlot();
+        ClaudeExecution<ProcessExecutor.ProcessResult> execution = new ClaudeExecution<>(slot::cancel, slot::getOutputBytes);
+        executorService.execute(() -> {
+            try {
+                execution.complete(execute(prompt, options, slot, inspector));
+            } catch (Exception e) {
+                execution.completeExceptionally(e);
+            }
+        });
+        return execution;
+    }
+    
+    private CliWorker acquire() throws Exception {
+        CliWorker worker = pollHealthy();
+        if (worker != null) {
+            return worker;
+        }
+        
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getAcquireTimeoutMillis());
+        if (reserveSlot()) {
+            return spawn(deadline);
+        }
+        
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            worker = remaining > 0 ? idleWorkers.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+            if (worker == null) {
+                throw new RejectedExecutionException(
+                    "all " + config.getMaxSize() + " workers busy for " + config.getAcquireTimeoutMillis() + "ms");
+            }
+            if (worker.isHealthy()) {
+                return worker;
+            }
+            retire(worker);
+            if (reserveSlot()) {
+                return spawn(deadline);
+            }
+        }
+    }
+    
+    /**
+     * Spawns a worker for a waiting request, queueing for a process slot until {@code deadline}.
+     */
+    private CliWorker spawn(long deadline) throws Exception {
+        CompletableFuture<ProcessScheduler.Permit> admission = scheduler.acquire();
+        ProcessScheduler.Permit permit;
+        try {
+            permit = admission.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            totalWorkers.decrementAndGet();
+            admission.thenAccept(ProcessScheduler.Permit::release);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RejectedExecutionException(
+                "no process slot free within " + config.getAcquireTimeoutMillis() + "ms");
+        } catch (ExecutionException e) {
+            totalWorkers.decrementAndGet();
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return spawn(permit);
+    }
+    
+    private CliWorker pollHealthy() {
+        CliWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            if (worker.isHealthy()) {
+                return worker;
+            }
+            retire(worker);
+        }
+        return null;
+    }
+    
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalWorkers.get();
+            if (current >= config.getMaxSize()) {
+                return false;
+            }
+            if (totalWorkers.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    private CliWorker spawn(ProcessScheduler.Permit permit) throws Exception {
+        long startedAt = System.nanoTime();
+        try {
+            CliWorker worker = CliWorker.start(workerCommand, workingDirectory, environment);
+            permits.put(worker, permit);
+            spawnedCount.incrementAndGet();
+            metrics.recordSpawn(workerOptions, System.nanoTime() - startedAt, true);
+            log.debug("Spawned Claude CLI worker pid {}", worker.getPid());
+            return worker;
+        } catch (Exception e) {
+            metrics.recordSpawn(workerOptions, System.nanoTime() - startedAt, false);
+            totalWorkers.decrementAndGet();
+            permit.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Workers are never reused; the replacement is spawned off the request path.
+     */
+    private void release(CliWorker worker) {
+        retire(worker);
+        if (!shutdown) {
+            executorService.execute(this::replenish);
+        }
+    }
+    
+    private void retire(CliWorker worker) {
+        recycledCount.incrementAndGet();
+        totalWorkers.decrementAndGet();
+        log.debug("Retiring Claude CLI worker pid {} after {} requests", worker.getPid(), worker.getRequestCount());
+        worker.close();
+        ProcessScheduler.Permit permit = permits.remove(worker);
+        if (permit != null) {
+            permit.release();
+        }
+    }
+    
+    private void replenish() {
+        while (!shutdown && idleWorkers.size() < config.getMinSize() && reserveSlot()) {
+            ProcessScheduler.Permit permit = scheduler.tryAcquire();
+            if (permit == null) {
+                // Every process slot is taken; the health check tries again later
+                totalWorkers.decrementAndGet();
+                return;
+            }
+            try {
+                idleWorkers.offerLast(spawn(permit));
+            } catch (Exception e) {
+                log.warn("Failed to pre-spawn Claude CLI worker: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    private void healthCheck() {
+        try {
+            long idleCutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getIdleTimeoutSeconds());
+            Iterator<CliWorker> iterator = idleWorkers.descendingIterator();
+            while (iterator.hasNext()) {
+                CliWorker worker = iterator.next();
+                boolean idleTooLong = worker.getLastUsedAt() < idleCutoff && idleWorkers.size() > config.getMinSize();
+                if ((!worker.isHealthy() || idleTooLong) && idleWorkers.removeFirstOccurrence(worker)) {
+                    retire(worker);
+                }
+            }
+            replenish();
+        } catch (Exception e) {
+            log.warn("Claude CLI worker pool health check failed", e);
+        }
+    }
+    
+    public Stats getStats() {
+        int total = totalWorkers.get();
+        int idle = idleWorkers.size();
+        return Stats.builder()
+            .totalWorkers(total)
+            .idleWorkers(idle)
+            .busyWorkers(Math.max(0, total - idle))
+            .spawnedCount(spawnedCount.get())
+            .recycledCount(recycledCount.get())
+            .requestCount(requestCount.get())
+            .build();
+    }
+    
+    public void shutdown() {
+        shutdown = true;
+        maintenance.shutdownNow();
+        CliWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            retire(worker);
+        }
+    }
+    
+    private static class RequestSlot {
+        
+        private CliWorker worker;
+        private boolean cancelled;
+        private volatile long outputBytes;
+        
+        /**
+         * Approximate stdout progress of the turn, so a first-byte hedge can tell a slow start
+         * from a worker that is already answering.
+         */
+        long getOutputBytes() {
+            return outputBytes;
+        }
+        
+        void recordLine(String line) {
+            outputBytes += line.length() + 1;
+        }
+        
+        synchronized boolean assign(CliWorker assigned) {
+            if (cancelled) {
+                return false;
+            }
+            worker = assigned;
+            return true;
+        }
+        
+        void cancel() {
+            CliWorker assigned;
+            synchronized (this) {
+                cancelled = true;
+                assigned = worker;
+            }
+            if (assigned != null) {
+                assigned.kill();
+            }
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final int totalWorkers;
+        private final int idleWorkers;
+        private final int busyWorkers;
+        private final long spawnedCount;
+        private final long recycledCount;
+        private final long requestCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.claudecli.adapter.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public final class ExecutorServiceFactory {
+    
+    public enum ExecutorType {
+        VIRTUAL,
+        PLATFORM,
+        CUSTOM
+    }
+    
+    private ExecutorServiceFactory() {
+    }
+    
+    public static ExecutorService create(ExecutorType type) {
+        if (type == ExecutorType.CUSTOM) {
+            throw new IllegalStateException(
+                "claude.cli.executor.type=custom requires an ExecutorService bean named 'claudeCliExecutorService'");
+        }
+        
+        if (type == ExecutorType.VIRTUAL) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                log.info("Using virtual threads for Claude CLI process I/O");
+                return virtual;
+            }
+            log.warn("Virtual threads require JDK 21+, falling back to platform threads (running on {})",
+                System.getProperty("java.version"));
+        }
+        
+        return Executors.newCachedThreadPool();
+    }
+    
+    public static boolean isVirtualThreadSupported() {
+        return findVirtualThreadFactoryMethod() != null;
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        Method method = findVirtualThreadFactoryMethod();
+        if (method == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create virtual thread executor", e);
+            return null;
+        }
+    }
+    
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.model.ClaudeResponse;
+import com.claudecli.adapter.stream.StreamJsonEvent;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Maps a finished execution to a {@link ClaudeResponse.FailureType} from its flags, stderr and,
+ * for stream-json runs, the structured fields of an error result event. Answer text is never
+ * looked at, so an answer that merely mentions a status code or the network is not a failure.
+ * Returns null for a success.
+ */
+public final class FailureClassifier {
+    
+    /** A status code only counts where the CLI reports one, e.g. "API Error: 529". */
+    private static final String STATUS = "(?:api error|status(?: code)?|http(?:/[\\d.]+)?)[: ]+";
+    
+    private static final Pattern RATE_LIMIT = Pattern.compile(
+        "rate[ _-]?limit|too many requests|" + STATUS + "429\\b|quota exceeded|usage limit");
+    private static final Pattern AUTHENTICATION = Pattern.compile(
+        "authentication|unauthori[sz]ed|invalid (x-)?api[ _-]?key|" + STATUS + "40[13]\\b|permission_error|/login|oauth token");
+    private static final Pattern MODEL = Pattern.compile(
+        "(invalid|unknown|unsupported) model|model[^\\n]{0,40}(not found|does not exist|not available)|not_found_error");
+    private static final Pattern API = Pattern.compile(
+        "overloaded|" + STATUS + "5\\d\\d\\b|api[ _]error|internal server error|service unavailable"
+            + "|connection (refused|reset)|econnreset|etimedout|network error");
+    
+    private FailureClassifier() {
+    }
+    
+    public static ClaudeResponse.FailureType classify(ProcessExecutor.ProcessResult result) {
+        if (result.getPolicyViolation() != null) {
+            return ClaudeResponse.FailureType.POLICY_VIOLATION;
+        }
+        if (result.isCancelled()) {
+            return ClaudeResponse.FailureType.CANCELLED;
+        }
+        if (result.isRejected()) {
+            return ClaudeResponse.FailureType.REJECTED;
+        }
+        if (result.isSpawnFailed()) {
+            return ClaudeResponse.FailureType.SPAWN_FAILURE;
+        }
+        if (result.isTimedOut()) {
+            return ClaudeResponse.FailureType.TIMEOUT;
+        }
+        
+        boolean streamError = result.getTranscript() != null && result.getTranscript().isError();
+        if (result.getExitCode() == 0 && !streamError) {
+            return null;
+        }
+        
+        StringBuilder text = new StringBuilder();
+        if (result.getError() != null) {
+            text.append(result.getError()).append('\n');
+        }
+        if (streamError) {
+            // Only the result event's own fields; getResultText() may fall back to assistant text
+            StreamJsonEvent.Result event = result.getTranscript().getResult();
+            if (event.getSubtype() != null) {
+                text.append(event.getSubtype()).append('\n');
+            }
+            if (event.getResult() != null) {
+                text.append(event.getResult());
+            }
+        }
+        return classifyMessage(text.toString());
+    }
+    
+    static ClaudeResponse.FailureType classifyMessage(String message) {
+        String text = message.toLowerCase(Locale.ROOT);
+        if (RATE_LIMIT.matcher(text).find()) {
+            return ClaudeResponse.FailureType.RATE_LIMIT;
+        }
+        if (AUTHENTICATION.matcher(text).find()) {
+            return ClaudeResponse.FailureType.AUTHENTICATION;
+        }
+        if (MODEL.matcher(text).find()) {
+            return ClaudeResponse.FailureType.MODEL_ERROR;
+        }
+        if (API.matcher(text).find()) {
+            return ClaudeResponse.FailureType.API_ERROR;
+        }
+        return ClaudeResponse.FailureType.UNKNOWN;
+    }
+}
\ No newline at end of file
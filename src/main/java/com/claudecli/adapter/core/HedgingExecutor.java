@@ -0,0 +1,222 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests: when an execution has not finished (or not written any output) within the
+ * hedge delay, a duplicate is launched, the first usable result wins and the other process
+ * tree is killed. The delay is either fixed or the observed latency percentile, and a token
+ * bucket caps hedges at {@code budgetPercent} of traffic so a slow backend is not doubled.
+ */
+@Slf4j
+public class HedgingExecutor {
+    
+    public enum Trigger {
+        /** Hedge when the execution has not completed within the delay. */
+        COMPLETION,
+        /** Hedge when the execution has not written any output within the delay. */
+        FIRST_BYTE
+    }
+    
+    private static final double MAX_BUDGET_TOKENS = 10.0;
+    
+    private final ClaudeCliProperties.HedgingConfig config;
+    private final LatencyTracker latencies;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "claude-cli-hedging");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private double budgetTokens = MAX_BUDGET_TOKENS;
+    
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong primaryWins = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+    
+    public HedgingExecutor(ClaudeCliProperties properties) {
+        this.config = properties.getHedging();
+        this.latencies = new LatencyTracker(config.getWindowSize(), config.getPercentile());
+    }
+    
+    /**
+     * Runs {@code launcher} and possibly a second copy of it. Cancelling the returned execution
+     * kills whichever copies are still running.
+     */
+    public ClaudeExecution<ProcessExecutor.ProcessResult> execute(
+            Supplier<ClaudeExecution<ProcessExecutor.ProcessResult>> launcher) {
+        requestCount.incrementAndGet();
+        depositBudget();
+        
+        long startedAt = System.nanoTime();
+        Race race = new Race(startedAt);
+        race.primary = launcher.get();
+        race.primary.whenComplete((result, error) -> race.finish(race.primary, result, error, false));
+        
+        long delay = currentDelayMillis();
+        if (delay >= 0 && !race.result.isDone()) {
+            ScheduledFuture<?> hedgeTimer = timer.schedule(() -> race.maybeHedge(launcher), delay, TimeUnit.MILLISECONDS);
+            race.result.whenComplete((result, error) -> hedgeTimer.cancel(false));
+        }
+        return race.result;
+    }
+    
+    /**
+     * The delay before hedging: the fixed delay if configured, otherwise the tracked
+     * percentile once enough samples exist, otherwise -1 (no hedging yet).
+     */
+    public long currentDelayMillis() {
+        if (config.getDelayMillis() != null) {
+            return config.getDelayMillis();
+        }
+        if (latencies.getSampleCount() < config.getMinSamples()) {
+            return -1;
+        }
+        return Math.max(config.getMinDelayMillis(), latencies.getPercentile());
+    }
+    
+    private synchronized void depositBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + config.getBudgetPercent() / 100.0);
+    }
+    
+    private synchronized boolean withdrawBudget() {
+        if (budgetTokens < 1.0) {
+            return false;
+        }
+        budgetTokens -= 1.0;
+        return true;
+    }
+    
+    public Stats getStats() {
+        return Stats.builder()
+            .requestCount(requestCount.get())
+            .hedgedCount(hedgedCount.get())
+            .hedgeWins(hedgeWins.get())
+            .primaryWins(primaryWins.get())
+            .budgetExhaustedCount(budgetExhaustedCount.get())
+            .currentDelayMillis(currentDelayMillis())
+            .build();
+    }
+    
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+    
+    private class Race {
+        
+        private final long startedAt;
+        private final ClaudeExecution<ProcessExecutor.ProcessResult> result;
+        private volatile ClaudeExecution<ProcessExecutor.ProcessResult> primary;
+        private volatile ClaudeExecution<ProcessExecutor.ProcessResult> hedge;
+        private int outstanding = 1;
+        private ProcessExecutor.ProcessResult fallback;
+        
+        Race(long startedAt) {
+            this.startedAt = startedAt;
+            this.result = new ClaudeExecution<>(this::cancelAll, () -> {
+                ClaudeExecution<ProcessExecutor.ProcessResult> current = primary;
+                return current != null ? current.getOutputBytes() : -1;
+            });
+        }
+        
+        void maybeHedge(Supplier<ClaudeExecution<ProcessExecutor.ProcessResult>> launcher) {
+            if (result.isDone()) {
+                return;
+            }
+            // An execution that cannot report its output (-1) is never hedged on first byte
+            if (config.getTrigger() == Trigger.FIRST_BYTE && primary.getOutputBytes() != 0) {
+                return;
+            }
+            if (!withdrawBudget()) {
+                budgetExhaustedCount.incrementAndGet();
+                return;
+            }
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                outstanding++;
+            }
+            hedgedCount.incrementAndGet();
+            log.debug("Hedging Claude CLI request after {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            ClaudeExecution<ProcessExecutor.ProcessResult> launched = launcher.get();
+            hedge = launched;
+            launched.whenComplete((processResult, error) -> finish(launched, processResult, error, true));
+            if (result.isDone()) {
+                launched.cancel(true);
+            }
+        }
+        
+        /**
+         * The first result that is neither rejected nor cancelled wins; if every copy ends up
+         * unusable the last one is reported.
+         */
+        void finish(ClaudeExecution<ProcessExecutor.ProcessResult> source, ProcessExecutor.ProcessResult processResult,
+                    Throwable error, boolean isHedge) {
+            boolean usable = error == null && !processResult.isRejected() && !processResult.isCancelled();
+            ProcessExecutor.ProcessResult winner = null;
+            synchronized (this) {
+                outstanding--;
+                if (result.isDone()) {
+                    return;
+                }
+                if (usable) {
+                    winner = processResult;
+                } else if (error == null) {
+                    fallback = processResult;
+                }
+                if (winner == null && outstanding > 0) {
+                    return;
+                }
+            }
+            
+            if (winner != null) {
+                (isHedge ? hedgeWins : primaryWins).incrementAndGet();
+                if (!winner.isTimedOut() && winner.getExitCode() == 0) {
+                    latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                }
+                result.complete(winner);
+                ClaudeExecution<ProcessExecutor.ProcessResult> loser = isHedge ? primary : hedge;
+                if (loser != null && loser != source) {
+                    loser.cancel(true);
+                }
+            } else if (fallback != null) {
+                result.complete(fallback);
+            } else {
+                result.completeExceptionally(error);
+            }
+        }
+        
+        private void cancelAll() {
+            ClaudeExecution<ProcessExecutor.ProcessResult> current = primary;
+            if (current != null) {
+                current.cancel(true);
+            }
+            current = hedge;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final long requestCount;
+        private final long hedgedCount;
+        private final long hedgeWins;
+        private final long primaryWins;
+        private final long budgetExhaustedCount;
+        private final long currentDelayMillis;
+    }
+}
\ No newline at end of file
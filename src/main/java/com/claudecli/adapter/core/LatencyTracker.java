@@ -0,0 +1,54 @@
+package com.claudecli.adapter.core;
+
+import java.util.Arrays;
+
+/**
+ * Percentiles over a sliding window of the most recent latencies. The window is a fixed ring
+ * buffer and the percentile is recomputed only every {@code REFRESH_INTERVAL} samples, so
+ * recording is constant time and reading is a volatile load.
+ */
+public class LatencyTracker {
+    
+    private static final int REFRESH_INTERVAL = 32;
+    
+    private final long[] window;
+    private final double percentile;
+    private int next;
+    private int count;
+    private int sinceRefresh;
+    private volatile long cachedPercentile = -1;
+    
+    public LatencyTracker(int windowSize, double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100], got " + percentile);
+        }
+        this.window = new long[Math.max(1, windowSize)];
+        this.percentile = percentile;
+    }
+    
+    public synchronized void record(long latencyMillis) {
+        window[next] = latencyMillis;
+        next = (next + 1) % window.length;
+        if (count < window.length) {
+            count++;
+        }
+        if (++sinceRefresh >= REFRESH_INTERVAL || cachedPercentile < 0) {
+            sinceRefresh = 0;
+            long[] sorted = Arrays.copyOf(window, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            cachedPercentile = sorted[Math.max(0, Math.min(count - 1, rank))];
+        }
+    }
+    
+    /**
+     * The configured percentile of the window, or -1 before any sample has been recorded.
+     */
+    public long getPercentile() {
+        return cachedPercentile;
+    }
+    
+    public synchronized int getSampleCount() {
+        return count;
+    }
+}
\ No newline at end of file
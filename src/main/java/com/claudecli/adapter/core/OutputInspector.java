@@ -0,0 +1,28 @@
+package com.claudecli.adapter.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * Looks at one run's stdout line by line while the CLI is still running, and can stop it.
+ */
+@FunctionalInterface
+public interface OutputInspector {
+    
+    /**
+     * Called with each line as soon as it is read, in order and from one thread at a time.
+     * {@code abort} kills the process tree and fails the run with the given reason; it may be
+     * kept and called later from any thread, and does nothing once the run has finished.
+     */
+    void inspect(String line, Consumer<String> abort);
+    
+    /**
+     * Completes once every verdict on the lines seen so far is in, e.g. a tool approval still
+     * pending when the CLI exits. The run's result is held until then, so an abort that arrives
+     * in the meantime still fails it. Must complete in bounded time.
+     */
+    default CompletionStage<Void> settled() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
\ No newline at end of file
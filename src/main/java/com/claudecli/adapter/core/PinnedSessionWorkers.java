@@ -0,0 +1,612 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.claudecli.adapter.stream.StreamJsonTranscript;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Pins each active session to its own long-lived CLI process in stream-json input mode, so a
+ * turn costs a stdin write rather than a process start and a reload of the conversation.
+ * <p>
+ * A process left idle for {@code idleTimeoutSeconds} is killed and its session parked; the
+ * next turn starts a new process with {@code --resume} and the CLI session id reported by the
+ * last result event. At most {@code maxProcesses} run at once, each holding a
+ * {@link ProcessScheduler} permit like any other CLI process, and the least recently used idle
+ * session is parked to make room for another. A session's turns run one after the other; a turn
+ * waiting for its predecessor or for a process slot is queued rather than holding a thread.
+ */
+@Slf4j
+public class PinnedSessionWorkers {
+    
+    private final ClaudeCliProperties.PinnedSessionConfig config;
+    private final ClaudeCliCommandBuilder commandBuilder;
+    private final ObjectMapper objectMapper;
+    private final StreamJsonParser streamJsonParser;
+    private final ExecutorService executorService;
+    private final String defaultWorkingDirectory;
+    private final Map<String, String> defaultEnvironment;
+    private final ProcessScheduler scheduler;
+    private final ProcessScheduler processes;
+    
+    private final Map<String, Pinned> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong spawnedCount = new AtomicLong();
+    private final AtomicLong resumedCount = new AtomicLong();
+    private final AtomicLong parkedCount = new AtomicLong();
+    private final AtomicLong turnCount = new AtomicLong();
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "claude-cli-pinned-sessions");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile boolean shutdown;
+    private ClaudeCliMetrics metrics = ClaudeCliMetrics.NOOP;
+    
+    public PinnedSessionWorkers(ClaudeCliProperties properties, ClaudeCliCommandBuilder commandBuilder,
+                                ObjectMapper objectMapper, StreamJsonParser streamJsonParser,
+                                ExecutorService executorService, ProcessScheduler scheduler) {
+        this.config = properties.getPinnedSessions();
+        this.commandBuilder = commandBuilder;
+        this.objectMapper = objectMapper;
+        this.streamJsonParser = streamJsonParser;
+        this.executorService = executorService;
+        this.defaultWorkingDirectory = properties.getWorkingDirectory();
+        this.defaultEnvironment = properties.getDefaultEnvironmentVariables();
+        this.scheduler = scheduler;
+        // The pinned share of the global limit; waits are bounded by acquireTimeoutMillis below
+        this.processes = new ProcessScheduler(config.getMaxProcesses(), Integer.MAX_VALUE,
+            ProcessScheduler.OverflowPolicy.QUEUE, 0, executorService);
+    }
+    
+    @Autowired(required = false)
+    public void setMetrics(ClaudeCliMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    @PostConstruct
+    public void start() {
+        long intervalMillis = Math.max(1000, TimeUnit.SECONDS.toMillis(config.getIdleTimeoutSeconds()) / 4);
+        maintenance.scheduleWithFixedDelay(this::parkIdle, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Pinned processes are read line by line, so there is no output growth to watch, and they
+     * cannot write to an output file or run inside tmux.
+     */
+    public boolean accepts(ClaudeCliOptions options) {
+        if (shutdown) {
+            return false;
+        }
+        if (options.getExecutionMode() != null && options.getExecutionMode() != ClaudeCliOptions.ExecutionMode.DIRECT) {
+            return false;
+        }
+        return options.getOutputFile() == null
+            && options.getFirstByteTimeout() == null
+            && options.getIdleOutputTimeout() == null;
+    }
+    
+    public ClaudeExecution<ProcessExecutor.ProcessResult> send(String sessionId, String prompt,
+                                                               ClaudeCliOptions options,
+                                                               Supplier<InputStream> history,
+                                                               Consumer<String> lineConsumer) {
+        return send(sessionId, prompt, options, history, lineConsumer, null);
+    }
+    
+    /**
+     * Runs one turn on the session's process, starting or resuming it first if needed. When a
+     * process has to start with no CLI session to resume, {@code history} is sent ahead of the
+     * prompt so the conversation carries over. Each stdout line is also handed to
+     * {@code lineConsumer} when one is given. Cancelling kills the process, as does
+     * {@code inspector} aborting the turn; the next turn resumes.
+     */
+    public ClaudeExecution<ProcessExecutor.ProcessResult> send(String sessionId, String prompt,
+                                                               ClaudeCliOptions options,
+                                                               Supplier<InputStream> history,
+                                                               Consumer<String> lineConsumer,
+                                                               OutputInspector inspector) {
+        Pinned pinned = sessions.computeIfAbsent(sessionId, Pinned::new);
+        TurnSlot slot = new TurnSlot();
+        ClaudeExecution<ProcessExecutor.ProcessResult> execution = new ClaudeExecution<>(slot::cancel);
+        pinned.submit(new Turn(prompt, options, history, lineConsumer, inspector, slot, execution));
+        return execution;
+    }
+    
+    /**
+     * Kills the session's process, if any, and forgets the session.
+     */
+    public void release(String sessionId) {
+        Pinned pinned = sessions.remove(sessionId);
+        if (pinned != null) {
+            pinned.release();
+        }
+    }
+    
+    public Stats getStats() {
+        int running = 0;
+        for (Pinned pinned : sessions.values()) {
+            if (pinned.worker != null) {
+                running++;
+            }
+        }
+        return Stats.builder()
+            .sessions(sessions.size())
+            .runningProcesses(running)
+            .maxProcesses(config.getMaxProcesses())
+            .spawnedCount(spawnedCount.get())
+            .resumedCount(resumedCount.get())
+            .parkedCount(parkedCount.get())
+            .turnCount(turnCount.get())
+            .build();
+    }
+    
+    public void shutdown() {
+        shutdown = true;
+        maintenance.shutdownNow();
+        for (String sessionId : new ArrayList<>(sessions.keySet())) {
+            release(sessionId);
+        }
+    }
+    
+    private void parkIdle() {
+        try {
+            long idleCutoff = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(config.getIdleTimeoutSeconds());
+            for (Pinned pinned : sessions.values()) {
+                if (pinned.worker != null && pinned.lastUsedAt < idleCutoff) {
+                    pinned.tryPark();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Parking idle pinned sessions failed", e);
+        }
+    }
+    
+    /**
+     * Parks the least recently used session that has a process and no turn in flight.
+     */
+    private boolean parkLeastRecentlyUsed() {
+        List<Pinned> candidates = new ArrayList<>();
+        for (Pinned pinned : sessions.values()) {
+            if (pinned.worker != null && !pinned.isBusy()) {
+                candidates.add(pinned);
+            }
+        }
+        candidates.sort((a, b) -> Long.compare(a.lastUsedAt, b.lastUsedAt));
+        for (Pinned pinned : candidates) {
+            if (pinned.tryPark()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private List<String> workerCommand(ClaudeCliOptions options) {
+        // Output format, verbosity and continuation are the worker's own business
+        ClaudeCliOptions base = options.toBuilder()
+            .outputFormat(null)
+            .verbose(null)
+            .continueMode(null)
+            .standardInput(null)
+            .build();
+        List<String> command = new ArrayList<>(commandBuilder.cliCommand(base));
+        command.addAll(CliWorkerPool.WORKER_FLAGS);
+        return List.copyOf(command);
+    }
+    
+    private Map<String, String> environment(ClaudeCliOptions options) {
+        if (defaultEnvironment == null || options.getEnvironmentVariables() == null) {
+            return options.getEnvironmentVariables() != null ? options.getEnvironmentVariables() : defaultEnvironment;
+        }
+        Map<String, String> environment = new HashMap<>(defaultEnvironment);
+        environment.putAll(options.getEnvironmentVariables());
+        return environment;
+    }
+    
+    /**
+     * A process slot from {@code from}, parking an idle session first if none is free. Gives up
+     * after {@code acquireTimeoutMillis}; a slot granted after that is handed straight back.
+     */
+    private CompletableFuture<ProcessScheduler.Permit> acquire(ProcessScheduler from) {
+        ProcessScheduler.Permit permit = from.tryAcquire();
+        if (permit == null && parkLeastRecentlyUsed()) {
+            permit = from.tryAcquire();
+        }
+        if (permit != null) {
+            return CompletableFuture.completedFuture(permit);
+        }
+        CompletableFuture<ProcessScheduler.Permit> admitted = new CompletableFuture<>();
+        from.acquire().whenComplete((granted, error) -> {
+            if (error != null) {
+                admitted.completeExceptionally(error);
+            } else if (!admitted.complete(granted)) {
+                granted.release();
+            }
+        });
+        return admitted.orTimeout(config.getAcquireTimeoutMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    private CompletableFuture<Permits> admit() {
+        return acquire(processes).thenCompose(pinnedPermit -> acquire(scheduler).handle((globalPermit, error) -> {
+            if (error != null) {
+                pinnedPermit.release();
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            return new Permits(pinnedPermit, globalPermit);
+        }));
+    }
+    
+    private ProcessExecutor.ProcessResult refused(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String reason = cause instanceof TimeoutException
+            ? "No process slot for the pinned session within " + config.getAcquireTimeoutMillis() + "ms"
+            : "Pinned process not admitted: " + cause.getMessage();
+        return ProcessExecutor.ProcessResult.builder().exitCode(-1).error(reason).rejected(true).build();
+    }
+    
+    private static ProcessExecutor.ProcessResult failure(String error) {
+        return ProcessExecutor.ProcessResult.builder().exitCode(-1).error(error).build();
+    }
+    
+    private static ProcessExecutor.ProcessResult cancelled() {
+        return ProcessExecutor.ProcessResult.builder().exitCode(-1).error("Request cancelled").cancelled(true).build();
+    }
+    
+    private final class Pinned {
+        
+        private final String sessionId;
+        
+        // Guarded by this
+        private final Deque<Turn> turns = new ArrayDeque<>();
+        private boolean busy;
+        
+        // Only touched by the turn in flight, or with the session idle and this held
+        private List<String> command;
+        private String cliSessionId;
+        private Permits permits;
+        
+        private volatile boolean released;
+        
+        private volatile CliWorker worker;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        
+        Pinned(String sessionId) {
+            this.sessionId = sessionId;
+        }
+        
+        synchronized boolean isBusy() {
+            return busy;
+        }
+        
+        void submit(Turn turn) {
+            synchronized (this) {
+                turns.addLast(turn);
+                if (busy) {
+                    return;
+                }
+                busy = true;
+            }
+            next();
+        }
+        
+        /**
+         * Hands the next queued turn to the executor, or marks the session idle.
+         */
+        private void next() {
+            while (true) {
+                Turn turn;
+                synchronized (this) {
+                    turn = turns.pollFirst();
+                    if (turn == null) {
+                        busy = false;
+                        // An idle process keeps its slot, so give it up to anyone waiting for one
+                        if (released || scheduler.hasWaiters() || processes.hasWaiters()) {
+                            park();
+                        }
+                        return;
+                    }
+                }
+                try {
+                    executorService.execute(() -> begin(turn));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    turn.execution.complete(failure("Executor rejected the turn"));
+                }
+            }
+        }
+        
+        private void begin(Turn turn) {
+            try {
+                if (released) {
+                    finish(turn, failure("Session has been closed"));
+                    return;
+                }
+                if (turn.slot.isCancelled()) {
+                    finish(turn, cancelled());
+                    return;
+                }
+                if (timeoutMillis(turn) <= 0) {
+                    finish(turn, deadlinePassed());
+                    return;
+                }
+                
+                List<String> wanted = workerCommand(turn.options);
+                if (worker != null && (!worker.isHealthy() || !wanted.equals(command))) {
+                    // Broken, or the session's options changed: carry on in a fresh process
+                    park();
+                }
+                if (worker != null) {
+                    run(turn, turn.prompt);
+                    return;
+                }
+                
+                CompletableFuture<Permits> admission = admit();
+                if (admission.isDone() && !admission.isCompletedExceptionally()) {
+                    launch(turn, wanted, admission.join());
+                    return;
+                }
+                admission.whenComplete((admitted, error) -> {
+                    if (error != null) {
+                        finish(turn, refused(error));
+                        return;
+                    }
+                    try {
+                        executorService.execute(() -> launch(turn, wanted, admitted));
+                    } catch (RejectedExecutionException e) {
+                        admitted.release();
+                        finish(turn, failure("Executor rejected the turn"));
+                    }
+                });
+            } catch (Exception e) {
+                fail(turn, e);
+            }
+        }
+        
+        /**
+         * Starts the process, resuming the CLI session if there is one, and runs the turn on it.
+         */
+        private void launch(Turn turn, List<String> wanted, Permits admitted) {
+            try {
+                if (released) {
+                    admitted.release();
+                    finish(turn, failure("Session has been closed"));
+                    return;
+                }
+                List<String> startCommand = new ArrayList<>(wanted);
+                if (cliSessionId != null) {
+                    startCommand.add("--resume");
+                    startCommand.add(cliSessionId);
+                }
+                ClaudeCliOptions options = turn.options;
+                String directory = options.getWorkingDirectory() != null ? options.getWorkingDirectory() : defaultWorkingDirectory;
+                long startedAt = System.nanoTime();
+                try {
+                    worker = CliWorker.start(startCommand, directory != null ? new File(directory) : null,
+                        environment(options));
+                } catch (IOException e) {
+                    admitted.release();
+                    metrics.recordSpawn(options, System.nanoTime() - startedAt, false);
+                    finish(turn, ProcessExecutor.ProcessResult.builder()
+                        .exitCode(-1)
+                        .error("Failed to start pinned process: " + e.getMessage())
+                        .spawnFailed(true)
+                        .build());
+                    return;
+                }
+                permits = admitted;
+                metrics.recordSpawn(options, System.nanoTime() - startedAt, true);
+                command = wanted;
+                (cliSessionId != null ? resumedCount : spawnedCount).incrementAndGet();
+                log.debug("Pinned session {} to CLI pid {}{}", sessionId, worker.getPid(),
+                    cliSessionId != null ? " resuming " + cliSessionId : "");
+                
+                String message = cliSessionId == null && turn.history != null
+                    ? primed(turn.history, turn.prompt)
+                    : turn.prompt;
+                run(turn, message);
+            } catch (Exception e) {
+                fail(turn, e);
+            }
+        }
+        
+        private void run(Turn turn, String message) throws IOException {
+            long timeoutMillis = timeoutMillis(turn);
+            if (timeoutMillis <= 0) {
+                finish(turn, deadlinePassed());
+                return;
+            }
+            if (!turn.slot.assign(worker)) {
+                finish(turn, cancelled());
+                return;
+            }
+            turnCount.incrementAndGet();
+            ProcessExecutor.ProcessResult result = worker.send(message, objectMapper, streamJsonParser,
+                maintenance, timeoutMillis, turn.lineConsumer, turn.inspector);
+            
+            StreamJsonTranscript transcript = result.getTranscript();
+            if (transcript != null && transcript.getResult() != null && transcript.getResult().getSessionId() != null) {
+                cliSessionId = transcript.getResult().getSessionId();
+            }
+            if (turn.slot.isCancelled()) {
+                result = cancelled();
+            }
+            if (!worker.isHealthy()) {
+                park();
+            }
+            finish(turn, result);
+        }
+        
+        private long timeoutMillis(Turn turn) {
+            return ProcessWatchdog.timeoutMillis(turn.options, TimeUnit.SECONDS.toMillis(config.getRequestTimeoutSeconds()));
+        }
+        
+        private ProcessExecutor.ProcessResult deadlinePassed() {
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("Deadline passed before the turn could start")
+                .timedOut(true)
+                .build();
+        }
+        
+        private void finish(Turn turn, ProcessExecutor.ProcessResult result) {
+            settle();
+            turn.execution.complete(result);
+            next();
+        }
+        
+        private void fail(Turn turn, Exception e) {
+            settle();
+            turn.execution.completeExceptionally(e);
+            next();
+        }
+        
+        private void settle() {
+            lastUsedAt = System.currentTimeMillis();
+            if (released) {
+                park();
+            }
+        }
+        
+        private String primed(Supplier<InputStream> history, String prompt) throws IOException {
+            String previous;
+            try (InputStream input = history.get()) {
+                previous = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            return previous.isEmpty() ? prompt : previous + prompt;
+        }
+        
+        synchronized boolean tryPark() {
+            return !busy && park();
+        }
+        
+        private boolean park() {
+            CliWorker running = worker;
+            if (running == null) {
+                return false;
+            }
+            worker = null;
+            running.close();
+            Permits held = permits;
+            permits = null;
+            if (held != null) {
+                held.release();
+            }
+            parkedCount.incrementAndGet();
+            log.debug("Parked session {} (CLI session {})", sessionId, cliSessionId);
+            return true;
+        }
+        
+        void release() {
+            synchronized (this) {
+                released = true;
+                if (!busy) {
+                    park();
+                    return;
+                }
+            }
+            // A turn is in flight: kill it, and it parks on its way out
+            CliWorker running = worker;
+            if (running != null) {
+                running.kill();
+            }
+        }
+    }
+    
+    private static final class Turn {
+        
+        private final String prompt;
+        private final ClaudeCliOptions options;
+        private final Supplier<InputStream> history;
+        private final Consumer<String> lineConsumer;
+        private final OutputInspector inspector;
+        private final TurnSlot slot;
+        private final ClaudeExecution<ProcessExecutor.ProcessResult> execution;
+        
+        Turn(String prompt, ClaudeCliOptions options, Supplier<InputStream> history, Consumer<String> lineConsumer,
+             OutputInspector inspector, TurnSlot slot, ClaudeExecution<ProcessExecutor.ProcessResult> execution) {
+            this.prompt = prompt;
+            this.options = options;
+            this.history = history;
+            this.lineConsumer = lineConsumer;
+            this.inspector = inspector;
+            this.slot = slot;
+            this.execution = execution;
+        }
+    }
+    
+    private static final class Permits {
+        
+        private final ProcessScheduler.Permit pinned;
+        private final ProcessScheduler.Permit global;
+        
+        Permits(ProcessScheduler.Permit pinned, ProcessScheduler.Permit global) {
+            this.pinned = pinned;
+            this.global = global;
+        }
+        
+        void release() {
+            global.release();
+            pinned.release();
+        }
+    }
+    
+    private static class TurnSlot {
+        
+        private CliWorker worker;
+        private boolean cancelled;
+        
+        synchronized boolean assign(CliWorker assigned) {
+            if (cancelled) {
+                return false;
+            }
+            worker = assigned;
+            return true;
+        }
+        
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+        
+        void cancel() {
+            CliWorker assigned;
+            synchronized (this) {
+                cancelled = true;
+                assigned = worker;
+            }
+            if (assigned != null) {
+                assigned.kill();
+            }
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final int sessions;
+        private final int runningProcesses;
+        private final int maxProcesses;
+        private final long spawnedCount;
+        private final long resumedCount;
+        private final long parkedCount;
+        private final long turnCount;
+    }
+}
\ No newline at end of file
@@ -1,82 +1,460 @@
 package com.claudecli.adapter.core;
 
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.model.CapturedOutput;
 import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.claudecli.adapter.stream.StreamJsonTranscript;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
 public class ProcessExecutor {
     
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final ExecutorService executorService;
+    private final boolean ownsExecutorService;
+    private final StreamJsonParser streamJsonParser;
+    private final ProcessScheduler scheduler;
+    private final ProcessScheduler unscheduled;
+    private final long outputMemoryThresholdBytes;
+    private final long defaultTimeoutMillis;
+    private final String defaultWorkingDirectory;
+    private final Map<String, String> defaultEnvironment;
+    private final ProcessWatchdog watchdog = new ProcessWatchdog();
+    private ClaudeCliMetrics metrics = ClaudeCliMetrics.NOOP;
+    private final AtomicInteger ioThreads = new AtomicInteger();
+    
+    public ProcessExecutor(ClaudeCliProperties properties) {
+        this(properties, ExecutorServiceFactory.create(properties.getExecutor().getType()),
+            new StreamJsonParser(new ObjectMapper()), true);
+    }
+    
+    @Autowired
+    public ProcessExecutor(ClaudeCliProperties properties,
+                           @Qualifier("claudeCliExecutorService") ExecutorService executorService,
+                           StreamJsonParser streamJsonParser) {
+        this(properties, executorService, streamJsonParser, false);
+    }
+    
+    private ProcessExecutor(ClaudeCliProperties properties, ExecutorService executorService,
+                            StreamJsonParser streamJsonParser, boolean ownsExecutorService) {
+        this.executorService = executorService;
+        this.streamJsonParser = streamJsonParser;
+        this.ownsExecutorService = ownsExecutorService;
+        this.defaultWorkingDirectory = properties.getWorkingDirectory();
+        this.defaultEnvironment = properties.getDefaultEnvironmentVariables();
+        ClaudeCliProperties.ExecutorConfig config = properties.getExecutor();
+        this.scheduler = new ProcessScheduler(
+            config.getMaxConcurrentProcesses(),
+            config.getQueueCapacity(),
+            config.getOverflowPolicy(),
+            config.getQueueTimeoutMillis(),
+            executorService);
+        // Housekeeping commands such as tmux's run outside the CLI's admission control
+        this.unscheduled = new ProcessScheduler(Integer.MAX_VALUE, 0, ProcessScheduler.OverflowPolicy.REJECT, 0);
+        this.outputMemoryThresholdBytes = config.getOutputMemoryThresholdBytes();
+        this.defaultTimeoutMillis = TimeUnit.SECONDS.toMillis(config.getDefaultTimeoutSeconds());
+    }
+    
+    @Autowired(required = false)
+    public void setMetrics(ClaudeCliMetrics metrics) {
+        this.metrics = metrics;
+    }
     
     public ProcessResult execute(List<String> command, ClaudeCliOptions options) {
+        return execute(command, options, null);
+    }
+    
+    /**
+     * Runs the process and waits for it on the calling thread, which under
+     * {@link ProcessScheduler.OverflowPolicy#CALLER_RUNS} also waits for room in a full queue.
+     */
+    public ProcessResult execute(List<String> command, ClaudeCliOptions options, OutputInspector inspector) {
+        return submit(command, options, inspector, () -> scheduler.acquire(true)).join();
+    }
+    
+    /**
+     * Runs a short command that is not a CLI run, such as a tmux command, without taking a
+     * process slot, so it neither waits behind CLI load nor is rejected by it.
+     */
+    public ProcessResult executeUnscheduled(List<String> command, ClaudeCliOptions options) {
+        return submit(command, options, null, unscheduled::acquire).join();
+    }
+    
+    public ClaudeExecution<ProcessResult> executeAsync(List<String> command, ClaudeCliOptions options) {
+        return executeAsync(command, options, null);
+    }
+    
+    /**
+     * Cancelling the returned future, or anything derived from it, kills the process tree; the
+     * execution then completes with a cancelled result instead of occupying its slot. With an
+     * {@code inspector}, stdout is read through a pipe as it is written, at the cost of a
+     * thread per run, and a run it aborts completes with {@link ProcessResult#getPolicyViolation()}.
+     */
+    public ClaudeExecution<ProcessResult> executeAsync(List<String> command, ClaudeCliOptions options,
+                                                       OutputInspector inspector) {
+        return submit(command, options, inspector, scheduler::acquire);
+    }
+    
+    private ClaudeExecution<ProcessResult> submit(List<String> command, ClaudeCliOptions options,
+                                                  OutputInspector inspector,
+                                                  Supplier<CompletableFuture<ProcessScheduler.Permit>> admission) {
+        ExecutionControl control = new ExecutionControl();
+        ClaudeExecution<ProcessResult> execution = new ClaudeExecution<>(control::cancel, control::outputBytes);
+        long requestedAt = System.nanoTime();
+        admission.get()
+            .thenCompose(permit -> {
+                metrics.recordQueueWait(System.nanoTime() - requestedAt);
+                return launch(command, options, permit, control, inspector);
+            })
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return cause instanceof RejectedExecutionException ? rejectedResult(cause) : failedResult(cause);
+            })
+            .thenAccept(execution::complete);
+        return execution;
+    }
+    
+    /**
+     * Starts the process with stdout/stderr redirected to files so no thread is parked on its
+     * pipes; completion is driven by {@link Process#onExit()}. Stdout goes straight to
+     * {@code outputFile} when one is set.
+     */
+    private CompletableFuture<ProcessResult> launch(List<String> command, ClaudeCliOptions options,
+                                                    ProcessScheduler.Permit permit, ExecutionControl control,
+                                                    OutputInspector inspector) {
+        long timeoutMillis = ProcessWatchdog.timeoutMillis(options, defaultTimeoutMillis);
+        if (control.isCancelled() || timeoutMillis <= 0) {
+            permit.release();
+            return CompletableFuture.completedFuture(control.isCancelled()
+                ? cancelledResult()
+                : timedOutResult("Deadline passed before the process could start"));
+        }
+        
+        boolean external = options.getOutputFile() != null;
+        Path stdoutFile = null;
+        Path stderrFile = null;
+        Process process;
+        long spawnStartedAt = System.nanoTime();
         try {
-            ProcessBuilder pb = createProcessBuilder(command, options);
-            Process process = pb.start();
+            stdoutFile = external
+                ? Path.of(options.getOutputFile())
+                : Files.createTempFile("claude-cli-", ".out");
+            stderrFile = Files.createTempFile("claude-cli-", ".err");
             
-            CompletableFuture<String> outputFuture = readStream(process.getInputStream());
-            CompletableFuture<String> errorFuture = readStream(process.getErrorStream());
-            
-            boolean finished = process.waitFor(300, TimeUnit.SECONDS);
-            if (!finished) {
-                process.destroyForcibly();
+            ProcessBuilder pb = createProcessBuilder(command, options);
+            if (inspector == null) {
+                pb.redirectOutput(stdoutFile.toFile());
+            }
+            pb.redirectError(stderrFile.toFile());
+            process = pb.start();
+            writeInput(process, options, executorService);
+        } catch (Exception e) {
+            log.error("Failed to execute process", e);
+            metrics.recordSpawn(options, System.nanoTime() - spawnStartedAt, false);
+            permit.release();
+            if (!external) {
+                deleteQuietly(stdoutFile);
+            }
+            deleteQuietly(stderrFile);
+            return CompletableFuture.completedFuture(ProcessResult.builder()
+                .exitCode(-1)
+                .error("Process execution failed: " + e.getMessage())
+                .spawnFailed(true)
+                .build());
+        }
+        
+        long startedAt = System.nanoTime();
+        metrics.recordSpawn(options, startedAt - spawnStartedAt, true);
+        
+        Path out = stdoutFile;
+        Path err = stderrFile;
+        control.attach(process, () -> fileSize(out));
+        ProcessWatchdog.Watch watch = watchdog.watch(options, timeoutMillis, () -> fileSize(out), control::timeOut,
+            nanos -> metrics.recordFirstOutput(options, nanos));
+        // Output is only complete once the pipe has been drained into the file as well, and
+        // the inspector has ruled on everything in it
+        CompletableFuture<Void> captured = inspector == null
+            ? CompletableFuture.completedFuture(null)
+            : CompletableFuture.runAsync(() -> pump(process, out, inspector, control), executorService)
+                .thenCompose(drained -> inspector.settled());
+        return process.onExit()
+            .thenCombine(captured, (exited, ignored) -> exited)
+            .handleAsync((exited, error) -> {
+                watch.cancel();
+                long durationNanos = System.nanoTime() - startedAt;
+                long stdoutBytes = fileSize(out);
+                long stderrBytes = fileSize(err);
+                ProcessResult result;
+                if (error != null) {
+                    // Waiting for the exit or draining stdout failed: the output cannot be trusted
+                    ProcessTree.destroy(process);
+                    result = abandon(control, external, out, err, permit,
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    try {
+                        result = collect(options, control, exited, external, out, err, permit);
+                    } catch (RuntimeException e) {
+                        result = abandon(control, external, out, err, permit, e);
+                    }
+                }
+                metrics.recordProcessExit(options, result.getExitCode(), outcome(result), durationNanos,
+                    stdoutBytes, stderrBytes);
+                return result;
+            }, executorService);
+    }
+    
+    private ProcessResult collect(ClaudeCliOptions options, ExecutionControl control, Process exited,
+                                  boolean external, Path out, Path err, ProcessScheduler.Permit permit) {
+        boolean keepStdout = external;
+        control.finish();
+        try {
+            if (control.isCancelled()) {
+                return cancelledResult();
+            }
+            if (control.getTimeoutReason() != null) {
+                return timedOutResult(control.getTimeoutReason());
+            }
+            if (control.getAbortReason() != null) {
+                // Keep what was decoded up to the abort, e.g. the offending tool call
+                StreamJsonTranscript transcript = "stream-json".equals(options.getOutputFormat())
+                    ? parseStreamJson(out)
+                    : null;
                 return ProcessResult.builder()
                     .exitCode(-1)
-                    .error("Process timeout after 5 minutes")
-                    .timedOut(true)
+                    .error(control.getAbortReason())
+                    .policyViolation(control.getAbortReason())
+                    .transcript(transcript)
                     .build();
             }
             
+            StreamJsonTranscript transcript = "stream-json".equals(options.getOutputFormat())
+                ? parseStreamJson(out)
+                : null;
+            
+            CapturedOutput captured;
+            if (external) {
+                captured = CapturedOutput.external(out);
+            } else if (Files.size(out) > outputMemoryThresholdBytes) {
+                captured = CapturedOutput.spilled(out);
+                keepStdout = true;
+            } else {
+                captured = CapturedOutput.of(readFile(out));
+            }
+            
+            String output;
+            if (transcript != null) {
+                output = transcript.getResultText();
+            } else {
+                output = captured.getFile() != null ? null : captured.toString();
+            }
             return ProcessResult.builder()
-                .exitCode(process.exitValue())
-                .output(outputFuture.get(5, TimeUnit.SECONDS))
-                .error(errorFuture.get(5, TimeUnit.SECONDS))
+                .exitCode(exited.exitValue())
+                .output(output)
+                .error(readTail(err, outputMemoryThresholdBytes))
+                .transcript(transcript)
+                .capturedOutput(captured)
                 .build();
-                
-        } catch (Exception e) {
-            log.error("Failed to execute process", e);
+        } catch (IOException e) {
             return ProcessResult.builder()
                 .exitCode(-1)
-                .error("Process execution failed: " + e.getMessage())
+                .error("Error reading process output: " + e.getMessage())
                 .build();
+        } finally {
+            permit.release();
+            if (!keepStdout) {
+                deleteQuietly(out);
+            }
+            deleteQuietly(err);
         }
     }
     
-    public void executeStream(List<String> command, ClaudeCliOptions options, 
+    static String outcome(ProcessResult result) {
+        if (result.getPolicyViolation() != null) {
+            return "denied";
+        }
+        if (result.isCancelled()) {
+            return "cancelled";
+        }
+        if (result.isTimedOut()) {
+            return "timeout";
+        }
+        return result.getExitCode() == 0 ? "success" : "error";
+    }
+    
+    /**
+     * Streams stdout lines with demand-driven reads. The process is started when the publisher
+     * is subscribed to and killed if the subscription is cancelled.
+     */
+    public Flow.Publisher<String> executePublisher(List<String> command, ClaudeCliOptions options) {
+        return executePublisher(command, options, null);
+    }
+    
+    /**
+     * Each line is shown to {@code inspector}, when given, before it is published; if it aborts
+     * the run, the subscriber gets a {@link RunAbortedException}.
+     */
+    public Flow.Publisher<String> executePublisher(List<String> command, ClaudeCliOptions options,
+                                                   OutputInspector inspector) {
+        return new ProcessOutputPublisher(createProcessBuilder(command, options), scheduler::acquire,
+            executorService, ioThreads, watchdog, options, defaultTimeoutMillis, metrics, inspector);
+    }
+    
+    /**
+     * Blocks until the process has finished, handing each stdout line to {@code outputConsumer}.
+     */
+    public void executeStream(List<String> command, ClaudeCliOptions options,
                             Consumer<String> outputConsumer, Consumer<String> errorConsumer) {
-        try {
-            ProcessBuilder pb = createProcessBuilder(command, options);
-            Process process = pb.start();
+        executeStream(command, options, outputConsumer, errorConsumer, null);
+    }
+    
+    public void executeStream(List<String> command, ClaudeCliOptions options,
+                              Consumer<String> outputConsumer, Consumer<String> errorConsumer,
+                              OutputInspector inspector) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        executePublisher(command, options, inspector).subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
             
-            streamOutput(process.getInputStream(), outputConsumer);
-            streamOutput(process.getErrorStream(), errorConsumer);
+            @Override
+            public void onNext(String line) {
+                outputConsumer.accept(line);
+            }
             
-            process.waitFor();
+            @Override
+            public void onError(Throwable throwable) {
+                errorConsumer.accept(throwable.getMessage());
+                done.complete(null);
+            }
             
-        } catch (Exception e) {
-            log.error("Failed to execute streaming process", e);
-            errorConsumer.accept("Process execution failed: " + e.getMessage());
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        done.join();
+    }
+    
+    public ProcessScheduler.Stats getSchedulerStats() {
+        return scheduler.getStats();
+    }
+    
+    /**
+     * Shared with the worker pools, so their long-lived processes count toward
+     * {@code max-concurrent-processes} as well.
+     */
+    public ProcessScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    /**
+     * Threads currently parked on child process I/O. Only streaming executions hold any, so
+     * dividing by the scheduler's active process count gives the dedicated threads per request.
+     */
+    public int getIoThreadCount() {
+        return ioThreads.get();
+    }
+    
+    private ProcessResult cancelledResult() {
+        return ProcessResult.builder()
+            .exitCode(-1)
+            .error("Process cancelled")
+            .cancelled(true)
+            .build();
+    }
+    
+    private ProcessResult timedOutResult(String reason) {
+        return ProcessResult.builder()
+            .exitCode(-1)
+            .error(reason)
+            .timedOut(true)
+            .build();
+    }
+    
+    /**
+     * Frees what a run that could not be collected still holds, and reports it as failed.
+     */
+    private ProcessResult abandon(ExecutionControl control, boolean external, Path out, Path err,
+                                  ProcessScheduler.Permit permit, Throwable cause) {
+        log.warn("Could not collect Claude CLI process result", cause);
+        control.finish();
+        permit.release();
+        if (!external) {
+            deleteQuietly(out);
         }
+        deleteQuietly(err);
+        return failedResult(cause);
+    }
+    
+    private static ProcessResult failedResult(Throwable cause) {
+        return ProcessResult.builder()
+            .exitCode(-1)
+            .error("Process execution failed: " + cause.getMessage())
+            .build();
+    }
+    
+    private ProcessResult rejectedResult(Throwable cause) {
+        return ProcessResult.builder()
+            .exitCode(-1)
+            .error("Process rejected: " + cause.getMessage())
+            .rejected(true)
+            .build();
     }
     
-    public CompletableFuture<ProcessResult> executeAsync(List<String> command, ClaudeCliOptions options) {
-        return CompletableFuture.supplyAsync(() -> execute(command, options), executorService);
+    /**
+     * Copies {@link ClaudeCliOptions#getStandardInput()} to the process on {@code executor}, so
+     * a CLI that reads its input slowly, or not at all, never blocks the caller. Stdin is closed
+     * straight away when there is no input.
+     */
+    static void writeInput(Process process, ClaudeCliOptions options, Executor executor) throws IOException {
+        if (options.getStandardInput() == null) {
+            process.getOutputStream().close();
+            return;
+        }
+        executor.execute(() -> {
+            try (InputStream input = options.getStandardInput().get();
+                 OutputStream stdin = process.getOutputStream()) {
+                input.transferTo(stdin);
+            } catch (IOException | UncheckedIOException e) {
+                // The process exited or stopped reading; its own result reports what went wrong
+                log.debug("Could not write stdin of pid {}: {}", process.pid(), e.getMessage());
+            }
+        });
     }
     
     private ProcessBuilder createProcessBuilder(List<String> command, ClaudeCliOptions options) {
         ProcessBuilder pb = new ProcessBuilder(command);
         
-        if (options.getWorkingDirectory() != null) {
-            pb.directory(new File(options.getWorkingDirectory()));
+        String workingDirectory = options.getWorkingDirectory() != null
+            ? options.getWorkingDirectory()
+            : defaultWorkingDirectory;
+        if (workingDirectory != null) {
+            pb.directory(new File(workingDirectory));
+        }
+        
+        if (defaultEnvironment != null) {
+            pb.environment().putAll(defaultEnvironment);
         }
         
         if (options.getEnvironmentVariables() != null) {
@@ -87,37 +465,132 @@ public class ProcessExecutor {
         return pb;
     }
     
-    private CompletableFuture<String> readStream(InputStream inputStream) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line).append("\n");
+    /**
+     * Copies stdout into its capture file and hands each complete line to the inspector as it
+     * arrives. The file is written first, so the watchdog sees progress as usual. Output that
+     * can no longer be captured or inspected aborts the run rather than going unchecked.
+     */
+    private void pump(Process process, Path out, OutputInspector inspector, ExecutionControl control) {
+        ioThreads.incrementAndGet();
+        Consumer<String> abort = control::abort;
+        try (InputStream stdout = process.getInputStream();
+             OutputStream capture = Files.newOutputStream(out)) {
+            byte[] buffer = new byte[8192];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int read;
+            while ((read = stdout.read(buffer)) != -1) {
+                capture.write(buffer, 0, read);
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, start, i - start);
+                        inspect(line, inspector, abort);
+                        start = i + 1;
+                    }
                 }
-                return sb.toString();
-            } catch (IOException e) {
-                return "Error reading stream: " + e.getMessage();
+                line.write(buffer, start, read - start);
+            }
+            if (line.size() > 0) {
+                inspect(line, inspector, abort);
             }
-        }, executorService);
+        } catch (IOException e) {
+            // Does nothing if the run was already killed, which is what closes a live stdout
+            control.abort("Output could not be inspected: " + e.getMessage());
+        } finally {
+            ioThreads.decrementAndGet();
+        }
     }
     
-    private void streamOutput(InputStream inputStream, Consumer<String> consumer) {
-        executorService.submit(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    consumer.accept(line);
-                }
-            } catch (IOException e) {
-                consumer.accept("Error reading stream: " + e.getMessage());
+    private static void inspect(ByteArrayOutputStream line, OutputInspector inspector, Consumer<String> abort) {
+        try {
+            inspector.inspect(line.toString(StandardCharsets.UTF_8), abort);
+        } catch (RuntimeException e) {
+            log.warn("Output inspector failed", e);
+            abort.accept("Output inspector failed: " + e.getMessage());
+        }
+        line.reset();
+    }
+    
+    /**
+     * Decodes stream-json output event by event straight from the capture file. The streamed
+     * assistant text is only collected, by a second pass, when the run ended without a final answer.
+     */
+    private StreamJsonTranscript parseStreamJson(Path stdoutFile) {
+        StreamJsonTranscript transcript = parseStreamJson(stdoutFile, false);
+        if (transcript.getResult() == null || transcript.getResult().getResult() == null) {
+            transcript = parseStreamJson(stdoutFile, true);
+        }
+        return transcript;
+    }
+    
+    private StreamJsonTranscript parseStreamJson(Path stdoutFile, boolean keepAssistantText) {
+        StreamJsonTranscript transcript = new StreamJsonTranscript(keepAssistantText);
+        try (InputStream in = Files.newInputStream(stdoutFile)) {
+            streamJsonParser.parse(in, transcript);
+        } catch (IOException e) {
+            log.warn("Failed to parse stream-json output: {}", e.getMessage());
+        }
+        return transcript;
+    }
+    
+    private String readFile(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "Error reading stream: " + e.getMessage();
+        }
+    }
+    
+    /**
+     * Reads at most the last {@code maxBytes} of a file; stderr is diagnostic, so the tail is
+     * what matters when it is large.
+     */
+    private String readTail(Path file, long maxBytes) {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            long size = channel.size();
+            if (size <= maxBytes) {
+                return readFile(file);
             }
-        });
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(maxBytes, Integer.MAX_VALUE - 8));
+            channel.position(size - buffer.capacity());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // fill the buffer
+            }
+            buffer.flip();
+            return "[" + (size - buffer.limit()) + " bytes truncated]\n" + StandardCharsets.UTF_8.decode(buffer);
+        } catch (IOException e) {
+            return "Error reading stream: " + e.getMessage();
+        }
+    }
+    
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete temp file {}", file, e);
+        }
+    }
+    
+    public ExecutorService getExecutorService() {
+        return executorService;
     }
     
     public void shutdown() {
+        watchdog.shutdown();
+        if (!ownsExecutorService) {
+            return;
+        }
         executorService.shutdown();
         try {
             if (!executorService.awaitTermination(10, TimeUnit.SECONDS)) {
@@ -128,12 +601,113 @@ public class ProcessExecutor {
         }
     }
     
+    /**
+     * Links a cancellable future to the process it ends up running. Cancellation and timeouts
+     * may arrive before the process has started, in which case it is killed as soon as it is attached.
+     */
+    private static class ExecutionControl {
+        
+        private Process process;
+        private LongSupplier output;
+        private boolean cancelled;
+        private String timeoutReason;
+        private String abortReason;
+        private boolean finished;
+        
+        void attach(Process started, LongSupplier outputBytes) {
+            boolean kill;
+            synchronized (this) {
+                process = started;
+                output = outputBytes;
+                kill = cancelled || timeoutReason != null;
+            }
+            if (kill) {
+                ProcessTree.destroy(started);
+            }
+        }
+        
+        void cancel() {
+            Process running;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                running = process;
+            }
+            if (running != null) {
+                ProcessTree.destroy(running);
+            }
+        }
+        
+        void timeOut(String reason) {
+            Process running;
+            synchronized (this) {
+                if (cancelled || timeoutReason != null) {
+                    return;
+                }
+                timeoutReason = reason;
+                running = process;
+            }
+            log.warn("Killing Claude CLI process tree: {}", reason);
+            if (running != null) {
+                ProcessTree.destroy(running);
+            }
+        }
+        
+        void abort(String reason) {
+            Process running;
+            synchronized (this) {
+                if (finished || cancelled || timeoutReason != null || abortReason != null) {
+                    return;
+                }
+                abortReason = reason;
+                running = process;
+            }
+            log.warn("Killing Claude CLI process tree: {}", reason);
+            if (running != null) {
+                ProcessTree.destroy(running);
+            }
+        }
+        
+        synchronized void finish() {
+            finished = true;
+        }
+        
+        long outputBytes() {
+            LongSupplier current;
+            synchronized (this) {
+                current = output;
+            }
+            return current != null ? current.getAsLong() : 0;
+        }
+        
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+        
+        synchronized String getTimeoutReason() {
+            return timeoutReason;
+        }
+        
+        synchronized String getAbortReason() {
+            return abortReason;
+        }
+    }
+    
     @lombok.Data
-    @lombok.Builder
+    @lombok.Builder(toBuilder = true)
     public static class ProcessResult {
         private final int exitCode;
         private final String output;
         private final String error;
         private final boolean timedOut;
+        private final boolean rejected;
+        private final boolean cancelled;
+        private final boolean spawnFailed;
+        /** Why an {@link OutputInspector} stopped the run, or null. */
+        private final String policyViolation;
+        private final StreamJsonTranscript transcript;
+        private final CapturedOutput capturedOutput;
     }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Publishes a CLI process's stdout line by line. Lines are only read while the subscriber has
+ * outstanding demand, so a slow subscriber stops the pipe from being drained and the child
+ * blocks on its own writes instead of the adapter buffering without limit. Cancelling the
+ * subscription kills the process tree.
+ * <p>
+ * Only the overall timeout and deadline apply: while the subscriber withholds demand the pipe
+ * is deliberately not read, so output progress says nothing about whether the CLI is idle.
+ */
+@Slf4j
+class ProcessOutputPublisher implements Flow.Publisher<String> {
+    
+    private final ProcessBuilder processBuilder;
+    private final Supplier<CompletableFuture<ProcessScheduler.Permit>> admission;
+    private final Executor executor;
+    private final AtomicInteger ioThreads;
+    private final ProcessWatchdog watchdog;
+    private final ClaudeCliOptions options;
+    private final long defaultTimeoutMillis;
+    private final ClaudeCliMetrics metrics;
+    private final OutputInspector inspector;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    
+    ProcessOutputPublisher(ProcessBuilder processBuilder,
+                           Supplier<CompletableFuture<ProcessScheduler.Permit>> admission,
+                           Executor executor, AtomicInteger ioThreads, ProcessWatchdog watchdog,
+                           ClaudeCliOptions options, long defaultTimeoutMillis, ClaudeCliMetrics metrics,
+                           OutputInspector inspector) {
+        this.processBuilder = processBuilder;
+        this.admission = admission;
+        this.executor = executor;
+        this.ioThreads = ioThreads;
+        this.watchdog = watchdog;
+        this.options = options;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.metrics = metrics;
+        this.inspector = inspector;
+    }
+    
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+                
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A process output publisher supports a single subscriber"));
+            return;
+        }
+        
+        LineSubscription subscription = new LineSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        admission.get().whenComplete((permit, error) -> {
+            if (error != null) {
+                subscription.fail(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                subscription.start(permit);
+            }
+        });
+    }
+    
+    private class LineSubscription implements Flow.Subscription {
+        
+        private final Flow.Subscriber<? super String> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private final Consumer<String> abort = this::abort;
+        
+        private volatile boolean cancelled;
+        private volatile Process process;
+        private volatile BufferedReader reader;
+        private volatile ProcessScheduler.Permit permit;
+        private volatile Path stderrFile;
+        private volatile ProcessWatchdog.Watch watch;
+        private long startedAt;
+        private boolean firstLineSeen;
+        
+        LineSubscription(Flow.Subscriber<? super String> subscriber) {
+            this.subscriber = subscriber;
+        }
+        
+        void start(ProcessScheduler.Permit permit) {
+            this.permit = permit;
+            if (cancelled) {
+                cleanup();
+                return;
+            }
+            long timeoutMillis = ProcessWatchdog.timeoutMillis(options, defaultTimeoutMillis);
+            if (timeoutMillis <= 0) {
+                fail(new TimeoutException("Deadline passed before the process could start"));
+                return;
+            }
+            long spawnStartedAt = System.nanoTime();
+            try {
+                stderrFile = Files.createTempFile("claude-cli-", ".err");
+                processBuilder.redirectError(stderrFile.toFile());
+                process = processBuilder.start();
+                ProcessExecutor.writeInput(process, options, executor);
+                reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+                startedAt = System.nanoTime();
+                metrics.recordSpawn(options, startedAt - spawnStartedAt, true);
+            } catch (IOException e) {
+                log.error("Failed to execute streaming process", e);
+                metrics.recordSpawn(options, System.nanoTime() - spawnStartedAt, false);
+                fail(new IOException("Process execution failed: " + e.getMessage(), e));
+                return;
+            }
+            watch = watchdog.watch(options, timeoutMillis, null, reason -> {
+                destroy();
+                fail(new TimeoutException(reason));
+            }, null);
+            if (cancelled) {
+                destroy();
+                return;
+            }
+            drain();
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                fail(new IllegalArgumentException("Subscription request must be positive (rule 3.9), got " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, add) -> {
+                long sum = current + add;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (!terminated.get()) {
+                destroy();
+            }
+        }
+        
+        private void drain() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::readLoop);
+            }
+        }
+        
+        private void readLoop() {
+            ioThreads.incrementAndGet();
+            int missed = 1;
+            try {
+                while (true) {
+                    BufferedReader current = reader;
+                    while (current != null && !cancelled && !terminated.get() && demand.get() > 0) {
+                        String line = current.readLine();
+                        if (line == null) {
+                            complete();
+                            return;
+                        }
+                        if (!firstLineSeen) {
+                            firstLineSeen = true;
+                            metrics.recordFirstOutput(options, System.nanoTime() - startedAt);
+                        }
+                        if (inspector != null) {
+                            inspect(line);
+                            if (terminated.get()) {
+                                continue;
+                            }
+                        }
+                        subscriber.onNext(line);
+                        if (demand.get() != Long.MAX_VALUE) {
+                            demand.decrementAndGet();
+                        }
+                    }
+                    missed = wip.addAndGet(-missed);
+                    if (missed == 0) {
+                        return;
+                    }
+                }
+            } catch (IOException e) {
+                if (!cancelled) {
+                    destroy();
+                    fail(new IOException("Error reading stream: " + e.getMessage(), e));
+                }
+            } catch (Throwable t) {
+                // Subscriber threw from onNext (rule 2.13): treat the subscription as cancelled
+                cancel();
+                log.warn("Stream subscriber failed, process killed", t);
+            } finally {
+                ioThreads.decrementAndGet();
+            }
+        }
+        
+        private void complete() {
+            // An approval still pending may yet abort the run, which then fails instead
+            CompletableFuture<Void> settled = inspector != null
+                ? inspector.settled().toCompletableFuture().exceptionally(error -> null)
+                : CompletableFuture.completedFuture(null);
+            process.onExit().thenCombine(settled, (exited, ignored) -> exited).whenComplete((exited, error) -> {
+                int exitCode = exited != null ? exited.exitValue() : -1;
+                if (exitCode == 0 || cancelled) {
+                    cleanup();
+                    if (terminated.compareAndSet(false, true) && !cancelled) {
+                        subscriber.onComplete();
+                    }
+                } else {
+                    String stderr = readStderr();
+                    fail(new IllegalStateException("Claude CLI exited with code " + exitCode
+                        + (stderr.isEmpty() ? "" : ": " + stderr)));
+                }
+            });
+        }
+        
+        private void inspect(String line) {
+            try {
+                inspector.inspect(line, abort);
+            } catch (RuntimeException e) {
+                log.warn("Output inspector failed", e);
+                abort("Output inspector failed: " + e.getMessage());
+            }
+        }
+        
+        private void abort(String reason) {
+            if (terminated.get() || cancelled) {
+                return;
+            }
+            log.warn("Killing Claude CLI process tree: {}", reason);
+            destroy();
+            fail(new RunAbortedException(reason));
+        }
+        
+        void fail(Throwable error) {
+            cleanup();
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onError(error);
+            }
+        }
+        
+        private void destroy() {
+            Process running = process;
+            if (running != null) {
+                ProcessTree.destroy(running);
+            }
+            cleanup();
+        }
+        
+        private void cleanup() {
+            ProcessWatchdog.Watch running = watch;
+            if (running != null) {
+                running.cancel();
+            }
+            ProcessScheduler.Permit held = permit;
+            if (held != null) {
+                held.release();
+            }
+            Path stderr = stderrFile;
+            if (stderr != null) {
+                try {
+                    Files.deleteIfExists(stderr);
+                } catch (IOException e) {
+                    log.debug("Could not delete temp file {}", stderr, e);
+                }
+            }
+        }
+        
+        private String readStderr() {
+            Path stderr = stderrFile;
+            if (stderr == null) {
+                return "";
+            }
+            try {
+                byte[] bytes = Files.readAllBytes(stderr);
+                int from = Math.max(0, bytes.length - 4096);
+                return new String(bytes, from, bytes.length - from, StandardCharsets.UTF_8).trim();
+            } catch (IOException e) {
+                return "";
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,273 @@
+package com.claudecli.adapter.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for CLI processes: at most {@code maxConcurrentProcesses} run at once,
+ * further requests wait in a bounded FIFO queue and the {@link OverflowPolicy} decides what
+ * happens once that is exhausted.
+ */
+@Slf4j
+public class ProcessScheduler {
+    
+    public enum OverflowPolicy {
+        /** Wait in the bounded queue, reject once the queue is full. */
+        QUEUE,
+        /** Reject as soon as every process slot is busy. */
+        REJECT,
+        /**
+         * Like {@link #QUEUE}, but once the queue is full a synchronous caller waits, up to the
+         * queue timeout, for room in it instead of being rejected, which slows the submitter
+         * down. Async callers are rejected as under {@link #QUEUE}.
+         */
+        CALLER_RUNS
+    }
+    
+    private final int maxConcurrentProcesses;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long queueTimeoutMillis;
+    private final Executor handoverExecutor;
+    
+    private final Object lock = new Object();
+    private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+    private int activeProcesses;
+    
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong totalQueueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    
+    public ProcessScheduler(int maxConcurrentProcesses, int queueCapacity,
+                            OverflowPolicy overflowPolicy, long queueTimeoutMillis) {
+        this(maxConcurrentProcesses, queueCapacity, overflowPolicy, queueTimeoutMillis, Runnable::run);
+    }
+    
+    /**
+     * Slots freed by a finished process are handed to the next waiter on
+     * {@code handoverExecutor}, so the waiter's launch does not run on the thread that freed the
+     * slot, which is usually a {@link Process#onExit()} callback.
+     */
+    public ProcessScheduler(int maxConcurrentProcesses, int queueCapacity,
+                            OverflowPolicy overflowPolicy, long queueTimeoutMillis,
+                            Executor handoverExecutor) {
+        if (maxConcurrentProcesses < 1) {
+            throw new IllegalArgumentException("maxConcurrentProcesses must be at least 1");
+        }
+        this.maxConcurrentProcesses = maxConcurrentProcesses;
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.QUEUE;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.handoverExecutor = handoverExecutor;
+    }
+    
+    /**
+     * Requests a process slot. The returned future completes with a {@link Permit} once the
+     * process may start, or exceptionally with a {@link RejectedExecutionException}.
+     */
+    public CompletableFuture<Permit> acquire() {
+        return acquire(false);
+    }
+    
+    /**
+     * {@code callerBlocks} marks a caller that is going to wait for the result on this thread
+     * anyway. Under {@link OverflowPolicy#CALLER_RUNS} such a caller is held here while the
+     * queue is full, rather than rejected.
+     */
+    public CompletableFuture<Permit> acquire(boolean callerBlocks) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<Permit> waiter;
+        
+        synchronized (lock) {
+            if (callerBlocks && overflowPolicy == OverflowPolicy.CALLER_RUNS && isFull() && !awaitRoom()) {
+                return reject("no room in the process queue within " + queueTimeoutMillis + "ms");
+            }
+            
+            if (activeProcesses < maxConcurrentProcesses) {
+                activeProcesses++;
+                admittedCount.incrementAndGet();
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            
+            if (overflowPolicy == OverflowPolicy.REJECT) {
+                return reject("all " + maxConcurrentProcesses + " process slots are busy");
+            }
+            
+            if (waiters.size() >= queueCapacity) {
+                return reject("process queue is full (" + queueCapacity + " waiting)");
+            }
+            
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+            queuedCount.incrementAndGet();
+        }
+        
+        CompletableFuture<Permit> admission = waiter;
+        if (queueTimeoutMillis > 0) {
+            admission = waiter.orTimeout(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        
+        admission = admission.handle((permit, error) -> {
+            if (error != null) {
+                synchronized (lock) {
+                    waiters.remove(waiter);
+                    lock.notifyAll();
+                }
+                rejectedCount.incrementAndGet();
+                throw new CompletionException(new RejectedExecutionException(
+                    "Timed out after " + queueTimeoutMillis + "ms waiting for a process slot"));
+            }
+            recordQueueWait(System.nanoTime() - enqueuedAt);
+            return permit;
+        });
+        return admission;
+    }
+    
+    /**
+     * A slot if one is free right now, otherwise null. Nothing is queued, so speculative work
+     * such as pre-spawning workers never gets ahead of waiting requests.
+     */
+    public Permit tryAcquire() {
+        synchronized (lock) {
+            if (activeProcesses < maxConcurrentProcesses) {
+                activeProcesses++;
+                admittedCount.incrementAndGet();
+                return new Permit();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Whether a request is queued for a slot, so holders of idle slots can give theirs up.
+     */
+    public boolean hasWaiters() {
+        synchronized (lock) {
+            return !waiters.isEmpty();
+        }
+    }
+    
+    // Both every slot and the whole queue are taken; holds lock
+    private boolean isFull() {
+        return activeProcesses >= maxConcurrentProcesses && waiters.size() >= queueCapacity;
+    }
+    
+    /**
+     * Waits on {@code lock}, which the caller holds, until a slot or a queue place is free.
+     * False if the queue timeout passed first or the thread was interrupted.
+     */
+    private boolean awaitRoom() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        try {
+            while (isFull()) {
+                if (queueTimeoutMillis <= 0) {
+                    lock.wait();
+                    continue;
+                }
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                lock.wait(remainingMillis);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private CompletableFuture<Permit> reject(String reason) {
+        rejectedCount.incrementAndGet();
+        log.warn("Rejecting Claude CLI process: {}", reason);
+        return CompletableFuture.failedFuture(new RejectedExecutionException(reason));
+    }
+    
+    private void recordQueueWait(long waitNanos) {
+        totalQueueWaitNanos.addAndGet(waitNanos);
+        maxQueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+    
+    private void release() {
+        CompletableFuture<Permit> next;
+        synchronized (lock) {
+            next = waiters.pollFirst();
+            // Either a slot or a queue place has just come free
+            lock.notifyAll();
+            if (next == null) {
+                activeProcesses--;
+                return;
+            }
+        }
+        // The slot stays taken while it is handed over
+        try {
+            handoverExecutor.execute(() -> handOver(next));
+        } catch (RejectedExecutionException e) {
+            handOver(next);
+        }
+    }
+    
+    private void handOver(CompletableFuture<Permit> next) {
+        if (next.complete(new Permit())) {
+            admittedCount.incrementAndGet();
+        } else {
+            // The waiter timed out in the meantime; pass the slot on
+            release();
+        }
+    }
+    
+    public Stats getStats() {
+        int active;
+        int queued;
+        synchronized (lock) {
+            active = activeProcesses;
+            queued = waiters.size();
+        }
+        long waited = queuedCount.get();
+        return Stats.builder()
+            .maxConcurrentProcesses(maxConcurrentProcesses)
+            .activeProcesses(active)
+            .queueCapacity(queueCapacity)
+            .queueDepth(queued)
+            .admittedCount(admittedCount.get())
+            .rejectedCount(rejectedCount.get())
+            .averageQueueWaitMillis(waited == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNanos.get() / waited))
+            .maxQueueWaitMillis(TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get()))
+            .build();
+    }
+    
+    public class Permit {
+        
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                ProcessScheduler.this.release();
+            }
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final int maxConcurrentProcesses;
+        private final int activeProcesses;
+        private final int queueCapacity;
+        private final int queueDepth;
+        private final long admittedCount;
+        private final long rejectedCount;
+        private final long averageQueueWaitMillis;
+        private final long maxQueueWaitMillis;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.claudecli.adapter.core;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Kills a CLI process together with the tool subprocesses it started. Descendants are
+ * snapshotted before the root dies, since they are re-parented and unreachable afterwards.
+ */
+final class ProcessTree {
+    
+    private ProcessTree() {
+    }
+    
+    static void destroy(Process process) {
+        destroy(process.toHandle());
+    }
+    
+    static void destroy(ProcessHandle root) {
+        List<ProcessHandle> descendants;
+        try {
+            descendants = root.descendants().collect(Collectors.toList());
+        } catch (UnsupportedOperationException e) {
+            descendants = List.of();
+        }
+        root.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * One shared timer thread that enforces per-request timeouts, deadlines, time-to-first-byte
+ * and idle-output limits for every running process, by polling how much output each has written.
+ */
+@Slf4j
+class ProcessWatchdog {
+    
+    private static final long MIN_CHECK_INTERVAL_MILLIS = 10;
+    private static final long MAX_CHECK_INTERVAL_MILLIS = 1000;
+    private static final long FIRST_OUTPUT_POLL_MILLIS = 20;
+    
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "claude-cli-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Time left for a request: its own {@code timeout} (or the default) capped by its {@code deadline}.
+     */
+    static long timeoutMillis(ClaudeCliOptions options, long defaultTimeoutMillis) {
+        long timeout = options.getTimeout() != null ? options.getTimeout().toMillis() : defaultTimeoutMillis;
+        if (options.getDeadline() != null) {
+            timeout = Math.min(timeout, Duration.between(Instant.now(), options.getDeadline()).toMillis());
+        }
+        return timeout;
+    }
+    
+    /**
+     * Starts watching a process. {@code outputBytes} may be null when progress cannot be
+     * observed, in which case only the overall timeout applies. {@code onTimeout} is called at
+     * most once, with a description of the limit that was hit. {@code onFirstOutput}, if set,
+     * is called with the nanoseconds until output first appeared; until then the file is polled
+     * at a short interval so the measurement is useful.
+     */
+    Watch watch(ClaudeCliOptions options, long timeoutMillis, LongSupplier outputBytes,
+                Consumer<String> onTimeout, LongConsumer onFirstOutput) {
+        Long firstByteMillis = outputBytes != null && options.getFirstByteTimeout() != null
+            ? options.getFirstByteTimeout().toMillis() : null;
+        Long idleMillis = outputBytes != null && options.getIdleOutputTimeout() != null
+            ? options.getIdleOutputTimeout().toMillis() : null;
+        
+        long shortest = timeoutMillis;
+        if (firstByteMillis != null) {
+            shortest = Math.min(shortest, firstByteMillis);
+        }
+        if (idleMillis != null) {
+            shortest = Math.min(shortest, idleMillis);
+        }
+        long interval = Math.max(MIN_CHECK_INTERVAL_MILLIS, Math.min(MAX_CHECK_INTERVAL_MILLIS, shortest / 4));
+        
+        Watch watch = new Watch(timeoutMillis, firstByteMillis, idleMillis, interval, outputBytes, onTimeout,
+            outputBytes != null ? onFirstOutput : null);
+        watch.schedule();
+        return watch;
+    }
+    
+    void shutdown() {
+        timer.shutdownNow();
+    }
+    
+    /**
+     * A running check. It reschedules itself rather than running at a fixed rate so it can
+     * poll quickly until the first output byte and at the normal interval afterwards.
+     */
+    class Watch implements Runnable {
+        
+        private final long startedAt = System.nanoTime();
+        private final long timeoutMillis;
+        private final Long firstByteMillis;
+        private final Long idleMillis;
+        private final long interval;
+        private final LongSupplier outputBytes;
+        private final Consumer<String> onTimeout;
+        private LongConsumer onFirstOutput;
+        
+        private long lastSize;
+        private long lastProgressAt = startedAt;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> next;
+        
+        Watch(long timeoutMillis, Long firstByteMillis, Long idleMillis, long interval, LongSupplier outputBytes,
+              Consumer<String> onTimeout, LongConsumer onFirstOutput) {
+            this.timeoutMillis = timeoutMillis;
+            this.firstByteMillis = firstByteMillis;
+            this.idleMillis = idleMillis;
+            this.interval = interval;
+            this.outputBytes = outputBytes;
+            this.onTimeout = onTimeout;
+            this.onFirstOutput = onFirstOutput;
+        }
+        
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> scheduled = next;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+        
+        private void schedule() {
+            if (cancelled) {
+                return;
+            }
+            long delay = onFirstOutput != null ? Math.min(interval, FIRST_OUTPUT_POLL_MILLIS) : interval;
+            try {
+                next = timer.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+        
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                String reason = check(System.nanoTime());
+                if (reason != null) {
+                    cancelled = true;
+                    onTimeout.accept(reason);
+                    return;
+                }
+            } catch (Exception e) {
+                log.warn("Process watchdog check failed", e);
+            }
+            schedule();
+        }
+        
+        private String check(long now) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(now - startedAt);
+            if (elapsed >= timeoutMillis) {
+                return "Process timeout after " + timeoutMillis + "ms";
+            }
+            if (outputBytes == null) {
+                return null;
+            }
+            
+            long size = outputBytes.getAsLong();
+            if (size != lastSize) {
+                if (lastSize == 0 && onFirstOutput != null) {
+                    onFirstOutput.accept(now - startedAt);
+                    onFirstOutput = null;
+                }
+                lastSize = size;
+                lastProgressAt = now;
+                return null;
+            }
+            if (size == 0 && firstByteMillis != null && elapsed >= firstByteMillis) {
+                return "No output within " + firstByteMillis + "ms";
+            }
+            if (size > 0 && idleMillis != null && TimeUnit.NANOSECONDS.toMillis(now - lastProgressAt) >= idleMillis) {
+                return "No output for " + idleMillis + "ms";
+            }
+            return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,202 @@
+package com.claudecli.adapter.core;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.model.ClaudeResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Retries classified failures with jittered exponential backoff and guards each
+ * {@code cliPath|apiUrl|model} key with its own {@link CircuitBreaker}, so an outage fails
+ * fast with {@code CIRCUIT_OPEN} instead of every request running into its timeout.
+ * Backoff delays are scheduled, never slept.
+ */
+@Slf4j
+public class ResilientExecutor {
+    
+    private static final Set<ClaudeResponse.FailureType> NEUTRAL = EnumSet.of(
+        ClaudeResponse.FailureType.CANCELLED, ClaudeResponse.FailureType.REJECTED,
+        ClaudeResponse.FailureType.POLICY_VIOLATION);
+    
+    private final ClaudeCliProperties.ResilienceConfig config;
+    private final Set<ClaudeResponse.FailureType> retryOn;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "claude-cli-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong shortCircuitedCount = new AtomicLong();
+    
+    public ResilientExecutor(ClaudeCliProperties properties) {
+        this.config = properties.getResilience();
+        this.retryOn = config.getRetryOn().isEmpty()
+            ? EnumSet.noneOf(ClaudeResponse.FailureType.class)
+            : EnumSet.copyOf(config.getRetryOn());
+    }
+    
+    public static String breakerKey(String cliPath, String apiUrl, String model) {
+        return cliPath + "|" + (apiUrl != null ? apiUrl : "") + "|" + (model != null ? model : "");
+    }
+    
+    /**
+     * Runs {@code attempt} until it succeeds, fails with a non-retryable type or runs out of
+     * attempts. Cancelling the returned execution cancels the current attempt and any pending retry.
+     */
+    public ClaudeExecution<ClaudeResponse> execute(String key, String prompt,
+                                                   Supplier<CompletableFuture<ClaudeResponse>> attempt) {
+        return execute(key, prompt, true, attempt);
+    }
+    
+    /**
+     * As above, but with {@code retryable} false the attempt runs once and only goes through the
+     * circuit breaker. Use that for runs that must not be repeated, such as agentic ones.
+     */
+    public ClaudeExecution<ClaudeResponse> execute(String key, String prompt, boolean retryable,
+                                                   Supplier<CompletableFuture<ClaudeResponse>> attempt) {
+        CircuitBreaker breaker = breakers.computeIfAbsent(key,
+            k -> new CircuitBreaker(config.getFailureThreshold(), config.getOpenMillis()));
+        Attempts attempts = new Attempts(key, prompt, retryable ? config.getMaxAttempts() : 1, breaker, attempt);
+        attempts.run(1);
+        return attempts.result;
+    }
+    
+    long backoffMillis(int attempt) {
+        double ceiling = Math.min(config.getMaxBackoffMillis(),
+            config.getInitialBackoffMillis() * Math.pow(config.getMultiplier(), attempt - 1));
+        // Full jitter spreads retries from many callers that failed at the same moment
+        return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+    }
+    
+    public Map<String, CircuitBreaker.State> getCircuitStates() {
+        Map<String, CircuitBreaker.State> states = new ConcurrentHashMap<>();
+        breakers.forEach((key, breaker) -> states.put(key, breaker.getState()));
+        return states;
+    }
+    
+    public Stats getStats() {
+        return Stats.builder()
+            .retryCount(retryCount.get())
+            .shortCircuitedCount(shortCircuitedCount.get())
+            .openCircuits(breakers.values().stream().filter(b -> b.getState() != CircuitBreaker.State.CLOSED).count())
+            .build();
+    }
+    
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+    
+    private class Attempts {
+        
+        private final String key;
+        private final String prompt;
+        private final int maxAttempts;
+        private final CircuitBreaker breaker;
+        private final Supplier<CompletableFuture<ClaudeResponse>> attempt;
+        private final ClaudeExecution<ClaudeResponse> result = new ClaudeExecution<>(this::cancel);
+        private volatile CompletableFuture<ClaudeResponse> current;
+        
+        Attempts(String key, String prompt, int maxAttempts, CircuitBreaker breaker,
+                 Supplier<CompletableFuture<ClaudeResponse>> attempt) {
+            this.key = key;
+            this.prompt = prompt;
+            this.maxAttempts = maxAttempts;
+            this.breaker = breaker;
+            this.attempt = attempt;
+        }
+        
+        void run(int number) {
+            if (result.isDone()) {
+                return;
+            }
+            if (!breaker.tryAcquire()) {
+                shortCircuitedCount.incrementAndGet();
+                result.complete(circuitOpenResponse(number));
+                return;
+            }
+            
+            CompletableFuture<ClaudeResponse> running;
+            try {
+                running = attempt.get();
+            } catch (RuntimeException e) {
+                breaker.onIgnored();
+                result.completeExceptionally(e);
+                return;
+            }
+            current = running;
+            if (result.isDone()) {
+                running.cancel(true);
+            }
+            running.whenComplete((response, error) -> {
+                if (error != null) {
+                    breaker.onIgnored();
+                    result.completeExceptionally(error);
+                    return;
+                }
+                
+                ClaudeResponse.FailureType failure = response.getFailureType();
+                if (failure == null) {
+                    breaker.onSuccess();
+                } else if (NEUTRAL.contains(failure)) {
+                    breaker.onIgnored();
+                } else {
+                    breaker.onFailure();
+                }
+                
+                if (failure != null && retryOn.contains(failure) && number < maxAttempts && !result.isDone()) {
+                    // The failed attempt's output is never seen by the caller; free its temp file now
+                    if (response.getCapturedOutput() != null) {
+                        response.getCapturedOutput().close();
+                    }
+                    long delay = backoffMillis(number);
+                    retryCount.incrementAndGet();
+                    log.debug("Retrying Claude CLI request after {} ({} of {}) in {}ms",
+                        failure, number, maxAttempts, delay);
+                    timer.schedule(() -> run(number + 1), delay, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                result.complete(number > 1 ? response.toBuilder().attempts(number).build() : response);
+            });
+        }
+        
+        private void cancel() {
+            CompletableFuture<ClaudeResponse> running = current;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+        
+        private ClaudeResponse circuitOpenResponse(int number) {
+            return ClaudeResponse.builder()
+                .prompt(prompt)
+                .status(ClaudeResponse.ResponseStatus.CIRCUIT_OPEN)
+                .errorOutput("Circuit open for " + key + ", retry in " + breaker.getRemainingOpenMillis() + "ms")
+                .exitCode(-1)
+                .attempts(number - 1)
+                .timestamp(LocalDateTime.now())
+                .build();
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final long retryCount;
+        private final long shortCircuitedCount;
+        private final long openCircuits;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.claudecli.adapter.core;
+
+/**
+ * Signalled to stream subscribers when an {@link OutputInspector} stopped the run, e.g. because
+ * a tool call was denied by the security policy.
+ */
+public class RunAbortedException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public RunAbortedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
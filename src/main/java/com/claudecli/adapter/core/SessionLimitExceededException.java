@@ -0,0 +1,13 @@
+package com.claudecli.adapter.core;
+
+/**
+ * Thrown by {@link ClaudeCliWrapper#createSession} when the total or per-user session limit is reached.
+ */
+public class SessionLimitExceededException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public SessionLimitExceededException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.claudecli.adapter.core;
+
+/**
+ * Thrown by {@link ClaudeCliWrapper#createSession} when the session id is already in use by another user.
+ */
+public class SessionOwnershipException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public SessionOwnershipException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
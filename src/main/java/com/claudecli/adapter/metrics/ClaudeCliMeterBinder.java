@@ -0,0 +1,140 @@
+package com.claudecli.adapter.metrics;
+
+import com.claudecli.adapter.cache.ResponseCache;
+import com.claudecli.adapter.core.CliWorkerPool;
+import com.claudecli.adapter.core.HedgingExecutor;
+import com.claudecli.adapter.core.PinnedSessionWorkers;
+import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.core.ResilientExecutor;
+import com.claudecli.adapter.service.ClaudeCliService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Gauges and counters read from the components' own statistics: saturation of the process
+ * scheduler, session count, and the optional pool, pinned session, cache, hedging and resilience
+ * features.
+ */
+public class ClaudeCliMeterBinder implements MeterBinder {
+    
+    private final ProcessExecutor processExecutor;
+    private final ObjectProvider<ClaudeCliService> service;
+    private final ObjectProvider<CliWorkerPool> workerPool;
+    private final ObjectProvider<ResponseCache> responseCache;
+    private final ObjectProvider<HedgingExecutor> hedgingExecutor;
+    private final ObjectProvider<ResilientExecutor> resilientExecutor;
+    private final ObjectProvider<PinnedSessionWorkers> pinnedSessionWorkers;
+    
+    public ClaudeCliMeterBinder(ProcessExecutor processExecutor,
+                                ObjectProvider<ClaudeCliService> service,
+                                ObjectProvider<CliWorkerPool> workerPool,
+                                ObjectProvider<ResponseCache> responseCache,
+                                ObjectProvider<HedgingExecutor> hedgingExecutor,
+                                ObjectProvider<ResilientExecutor> resilientExecutor,
+                                ObjectProvider<PinnedSessionWorkers> pinnedSessionWorkers) {
+        this.processExecutor = processExecutor;
+        this.service = service;
+        this.workerPool = workerPool;
+        this.responseCache = responseCache;
+        this.hedgingExecutor = hedgingExecutor;
+        this.resilientExecutor = resilientExecutor;
+        this.pinnedSessionWorkers = pinnedSessionWorkers;
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("claude.cli.processes.active", processExecutor, e -> e.getSchedulerStats().getActiveProcesses())
+            .description("CLI processes currently running")
+            .register(registry);
+        Gauge.builder("claude.cli.processes.max", processExecutor, e -> e.getSchedulerStats().getMaxConcurrentProcesses())
+            .register(registry);
+        Gauge.builder("claude.cli.queue.depth", processExecutor, e -> e.getSchedulerStats().getQueueDepth())
+            .description("Requests waiting for a CLI process slot")
+            .register(registry);
+        FunctionCounter.builder("claude.cli.queue.rejected", processExecutor, e -> e.getSchedulerStats().getRejectedCount())
+            .register(registry);
+        Gauge.builder("claude.cli.io.threads", processExecutor, ProcessExecutor::getIoThreadCount)
+            .register(registry);
+        
+        ClaudeCliService claudeCliService = service.getIfUnique();
+        if (claudeCliService != null) {
+            Gauge.builder("claude.cli.sessions.active", claudeCliService, ClaudeCliService::getActiveSessionCount)
+                .register(registry);
+            FunctionCounter.builder("claude.cli.sessions.evicted", claudeCliService, s -> s.getSessionStats().getIdleEvictions())
+                .tag("reason", "idle")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.sessions.evicted", claudeCliService, s -> s.getSessionStats().getTtlEvictions())
+                .tag("reason", "ttl")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.sessions.rejected", claudeCliService, s -> s.getSessionStats().getRejectedCount())
+                .register(registry);
+        }
+        
+        CliWorkerPool pool = workerPool.getIfAvailable();
+        if (pool != null) {
+            Gauge.builder("claude.cli.pool.workers", pool, p -> p.getStats().getIdleWorkers())
+                .tag("state", "idle")
+                .register(registry);
+            Gauge.builder("claude.cli.pool.workers", pool, p -> p.getStats().getBusyWorkers())
+                .tag("state", "busy")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.pool.spawned", pool, p -> p.getStats().getSpawnedCount())
+                .register(registry);
+        }
+        
+        PinnedSessionWorkers pinned = pinnedSessionWorkers.getIfAvailable();
+        if (pinned != null) {
+            Gauge.builder("claude.cli.pinned.processes", pinned, p -> p.getStats().getRunningProcesses())
+                .description("Pinned session processes currently running")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.pinned.starts", pinned, p -> p.getStats().getSpawnedCount())
+                .tag("kind", "new")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.pinned.starts", pinned, p -> p.getStats().getResumedCount())
+                .tag("kind", "resume")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.pinned.parked", pinned, p -> p.getStats().getParkedCount())
+                .register(registry);
+        }
+        
+        ResponseCache cache = responseCache.getIfAvailable();
+        if (cache != null) {
+            FunctionCounter.builder("claude.cli.cache.requests", cache, c -> c.getStats().getHits())
+                .tag("result", "hit")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.cache.requests", cache, c -> c.getStats().getMisses())
+                .tag("result", "miss")
+                .register(registry);
+            Gauge.builder("claude.cli.cache.size", cache, c -> c.getStats().getMemoryBytes())
+                .baseUnit("bytes")
+                .register(registry);
+        }
+        
+        HedgingExecutor hedging = hedgingExecutor.getIfAvailable();
+        if (hedging != null) {
+            FunctionCounter.builder("claude.cli.hedging.hedges", hedging, h -> h.getStats().getHedgedCount())
+                .register(registry);
+            FunctionCounter.builder("claude.cli.hedging.wins", hedging, h -> h.getStats().getHedgeWins())
+                .tag("winner", "hedge")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.hedging.wins", hedging, h -> h.getStats().getPrimaryWins())
+                .tag("winner", "primary")
+                .register(registry);
+            FunctionCounter.builder("claude.cli.hedging.budget.exhausted", hedging, h -> h.getStats().getBudgetExhaustedCount())
+                .register(registry);
+        }
+        
+        ResilientExecutor resilience = resilientExecutor.getIfAvailable();
+        if (resilience != null) {
+            FunctionCounter.builder("claude.cli.retries", resilience, r -> r.getStats().getRetryCount())
+                .register(registry);
+            FunctionCounter.builder("claude.cli.circuit.short.circuited", resilience, r -> r.getStats().getShortCircuitedCount())
+                .register(registry);
+            Gauge.builder("claude.cli.circuits.open", resilience, r -> r.getStats().getOpenCircuits())
+                .register(registry);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.claudecli.adapter.metrics;
+
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.model.ClaudeResponse;
+
+/**
+ * Lifecycle hooks for instrumentation. Components default to {@link #NOOP}; a Micrometer
+ * implementation is auto-configured when a {@code MeterRegistry} is present, and the adapter
+ * itself has no compile-time dependency on Micrometer.
+ */
+public interface ClaudeCliMetrics {
+    
+    ClaudeCliMetrics NOOP = new ClaudeCliMetrics() {
+    };
+    
+    /** Time a request waited for a process slot. */
+    default void recordQueueWait(long nanos) {
+    }
+    
+    /** Time taken by {@code ProcessBuilder.start()}, or until it failed. */
+    default void recordSpawn(ClaudeCliOptions options, long nanos, boolean success) {
+    }
+    
+    /** Time from spawn until the process first wrote to stdout. */
+    default void recordFirstOutput(ClaudeCliOptions options, long nanos) {
+    }
+    
+    /**
+     * A process has exited. {@code outcome} is one of success, error, timeout or cancelled;
+     * byte counts are -1 when they could not be observed.
+     */
+    default void recordProcessExit(ClaudeCliOptions options, int exitCode, String outcome, long durationNanos,
+                                   long stdoutBytes, long stderrBytes) {
+    }
+    
+    default void recordResponse(ClaudeCliOptions options, ClaudeResponse response) {
+    }
+    
+    default void recordTmuxCommand(String command, long nanos, boolean success) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.claudecli.adapter.metrics;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import com.claudecli.adapter.model.ClaudeResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the adapter's lifecycle events as Micrometer meters, tagged with model and execution mode.
+ * Models come from callers, so only the default model and {@code metrics.models} keep their name;
+ * everything else is tagged {@code other} to keep the number of series bounded.
+ */
+public class MicrometerClaudeCliMetrics implements ClaudeCliMetrics {
+    
+    private final MeterRegistry registry;
+    private final String defaultModel;
+    private final Set<String> taggedModels;
+    private final Timer queueWait;
+    
+    public MicrometerClaudeCliMetrics(MeterRegistry registry, ClaudeCliProperties properties) {
+        this.registry = registry;
+        this.defaultModel = properties.getDefaultModel();
+        Set<String> models = new HashSet<>(properties.getMetrics().getModels());
+        if (defaultModel != null) {
+            models.add(defaultModel);
+        }
+        this.taggedModels = Set.copyOf(models);
+        this.queueWait = Timer.builder("claude.cli.queue.wait")
+            .description("Time requests waited for a CLI process slot")
+            .register(registry);
+    }
+    
+    @Override
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public void recordSpawn(ClaudeCliOptions options, long nanos, boolean success) {
+        Timer.builder("claude.cli.process.spawn")
+            .description("Time taken to start a CLI process")
+            .tags(tags(options).and("result", success ? "success" : "failure"))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public void recordFirstOutput(ClaudeCliOptions options, long nanos) {
+        Timer.builder("claude.cli.process.first.output")
+            .description("Time from process start to its first stdout byte")
+            .tags(tags(options))
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public void recordProcessExit(ClaudeCliOptions options, int exitCode, String outcome, long durationNanos,
+                                  long stdoutBytes, long stderrBytes) {
+        Tags tags = tags(options);
+        Timer.builder("claude.cli.process.duration")
+            .description("Wall-clock time of CLI processes")
+            .tags(tags.and("outcome", outcome))
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("claude.cli.process.exits")
+            .description("CLI process exits by exit code")
+            .tags(tags.and("exit.code", Integer.toString(exitCode)))
+            .register(registry)
+            .increment();
+        if (stdoutBytes >= 0) {
+            outputBytes(tags, "stdout").record(stdoutBytes);
+        }
+        if (stderrBytes >= 0) {
+            outputBytes(tags, "stderr").record(stderrBytes);
+        }
+    }
+    
+    @Override
+    public void recordResponse(ClaudeCliOptions options, ClaudeResponse response) {
+        Counter.builder("claude.cli.responses")
+            .description("Responses returned to callers by status")
+            .tags(tags(options)
+                .and("status", String.valueOf(response.getStatus()))
+                .and("failure.type", response.getFailureType() != null ? response.getFailureType().name() : "none"))
+            .register(registry)
+            .increment();
+    }
+    
+    @Override
+    public void recordTmuxCommand(String command, long nanos, boolean success) {
+        Timer.builder("claude.cli.tmux.command")
+            .description("Latency of tmux commands")
+            .tags("command", command, "result", success ? "success" : "failure")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private DistributionSummary outputBytes(Tags tags, String stream) {
+        return DistributionSummary.builder("claude.cli.process.output")
+            .description("Bytes written by CLI processes")
+            .baseUnit("bytes")
+            .tags(tags.and("stream", stream))
+            .register(registry);
+    }
+    
+    private Tags tags(ClaudeCliOptions options) {
+        String model = options != null && options.getModel() != null ? options.getModel() : defaultModel;
+        ClaudeCliOptions.ExecutionMode mode = options != null && options.getExecutionMode() != null
+            ? options.getExecutionMode() : ClaudeCliOptions.ExecutionMode.DIRECT;
+        String modelTag = model == null ? "default" : taggedModels.contains(model) ? model : "other";
+        return Tags.of("model", modelTag, "mode", mode.name().toLowerCase());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.claudecli.adapter.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.function.Consumer;
+
+@Data
+@Builder
+public class BatchOptions {
+    
+    /** Maximum number of prompts in flight at once. */
+    @Builder.Default
+    private Integer parallelism = 4;
+    
+    @Builder.Default
+    private ErrorPolicy errorPolicy = ErrorPolicy.COLLECT_ALL;
+    
+    /** Deliver results to the listener in input order rather than completion order. */
+    @Builder.Default
+    private Boolean preserveOrder = false;
+    
+    /**
+     * With {@code preserveOrder}, how many prompts past the oldest undelivered one may be launched.
+     * Results that finish ahead of a slow prompt wait in a buffer of at most this size; once it is
+     * full no more prompts are launched until the slow one completes.
+     */
+    @Builder.Default
+    private Integer reorderWindow = 64;
+    
+    /** Keep every response for the completion list; turn off for very large batches that only use the listener. */
+    @Builder.Default
+    private Boolean retainResults = true;
+    
+    private Consumer<BatchResult> resultListener;
+    
+    public enum ErrorPolicy {
+        /** Stop launching and cancel in-flight prompts on the first response that is not SUCCESS. */
+        FAIL_FAST,
+        /** Run every prompt and report failures alongside successes. */
+        COLLECT_ALL
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.claudecli.adapter.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchResult {
+    
+    private final int index;
+    private final String prompt;
+    private final ClaudeResponse response;
+}
\ No newline at end of file
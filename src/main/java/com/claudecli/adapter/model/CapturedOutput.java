@@ -0,0 +1,216 @@
+package com.claudecli.adapter.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Standard output of a CLI run. Small outputs are held as a string; anything above the
+ * configured threshold stays in a file and is only read when asked for, either as a stream or
+ * as a {@link CharSequence} backed by a memory-mapped view of the file. A spilled file can be
+ * handed to several owners with {@link #share()}; it is deleted once every handle has been
+ * closed or become unreachable.
+ */
+public final class CapturedOutput implements AutoCloseable {
+    
+    private static final Cleaner CLEANER = Cleaner.create();
+    
+    private final String text;
+    private final Path file;
+    private final SharedFile shared;
+    private final Cleaner.Cleanable cleanable;
+    private volatile CharSequence mapped;
+    
+    private CapturedOutput(String text, Path file, SharedFile shared) {
+        this.text = text;
+        this.file = file;
+        this.shared = shared;
+        this.cleanable = shared != null ? CLEANER.register(this, new HandleReleaser(shared)) : null;
+    }
+    
+    public static CapturedOutput of(String text) {
+        return new CapturedOutput(text != null ? text : "", null, null);
+    }
+    
+    /**
+     * Wraps a spilled temp file, which is deleted once this object becomes unreachable or is closed.
+     */
+    public static CapturedOutput spilled(Path file) {
+        return new CapturedOutput(null, file, new SharedFile(file));
+    }
+    
+    /**
+     * Wraps a caller-owned file, such as {@link ClaudeCliOptions#getOutputFile()}, which is never deleted.
+     */
+    public static CapturedOutput external(Path file) {
+        return new CapturedOutput(null, file, null);
+    }
+    
+    /**
+     * Another handle on the same output for a second owner, who closes it independently. Outputs
+     * without a temp file have nothing to release and are returned as is.
+     *
+     * @throws IllegalStateException if every handle on the spilled file is already closed
+     */
+    public CapturedOutput share() {
+        if (shared == null) {
+            return this;
+        }
+        if (!shared.retain()) {
+            throw new IllegalStateException("Captured output " + file + " has already been deleted");
+        }
+        return new CapturedOutput(null, file, shared);
+    }
+    
+    /**
+     * Whether the output is in one of our temp files rather than held as a string.
+     */
+    public boolean isSpilled() {
+        return shared != null;
+    }
+    
+    /**
+     * Whether the output went to a caller-owned file. It is only read when asked for explicitly,
+     * through {@link #openStream()}, {@link #asCharSequence()} or {@link #toString()}.
+     */
+    public boolean isExternal() {
+        return file != null && shared == null;
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    /**
+     * Size of the output in bytes when spilled, in UTF-16 chars otherwise.
+     */
+    public long size() {
+        if (file == null) {
+            return text.length();
+        }
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public InputStream openStream() throws IOException {
+        if (file == null) {
+            return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return Files.newInputStream(file);
+    }
+    
+    public Reader openReader() throws IOException {
+        return new InputStreamReader(openStream(), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Random access to the output without copying it onto the heap; spilled files are decoded
+     * a chunk at a time from a memory-mapped view.
+     */
+    public CharSequence asCharSequence() {
+        if (file == null) {
+            return text;
+        }
+        CharSequence view = mapped;
+        if (view == null) {
+            synchronized (this) {
+                view = mapped;
+                if (view == null) {
+                    try {
+                        view = new MappedCharSequence(file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    mapped = view;
+                }
+            }
+        }
+        return view;
+    }
+    
+    /**
+     * Releases this handle; the spilled temp file is deleted now if it was the last one, rather than
+     * waiting for garbage collection.
+     */
+    @Override
+    public void close() {
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+    }
+    
+    /**
+     * Materialises the whole output as a string.
+     */
+    @Override
+    public String toString() {
+        if (file == null) {
+            return text;
+        }
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static class SharedFile {
+        
+        private final Path file;
+        private final AtomicInteger handles = new AtomicInteger(1);
+        
+        SharedFile(Path file) {
+            this.file = file;
+        }
+        
+        boolean retain() {
+            while (true) {
+                int current = handles.get();
+                if (current <= 0) {
+                    return false;
+                }
+                if (handles.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+        
+        void release() {
+            if (handles.decrementAndGet() == 0) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Temp directory cleanup will get it eventually
+                }
+            }
+        }
+    }
+    
+    /**
+     * Cleaning action for one handle; it must not reference the handle itself.
+     */
+    private static class HandleReleaser implements Runnable {
+        
+        private final SharedFile shared;
+        
+        HandleReleaser(SharedFile shared) {
+            this.shared = shared;
+        }
+        
+        @Override
+        public void run() {
+            shared.release();
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,22 @@
 package com.claudecli.adapter.model;
 
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import java.util.List;
+import java.util.function.Supplier;
 
-@Data
-@Builder
+/**
+ * Immutable, so one instance can be shared by every request of a session and layered under
+ * others with {@link #overlay(ClaudeCliOptions)}. A field left null is inherited from the layer
+ * below. The builder copies the flag list and environment, so a caller changing its own
+ * collection afterwards does not change the options.
+ */
+@Value
+@Builder(toBuilder = true)
 public class ClaudeCliOptions {
     
     private String prompt;
@@ -24,6 +34,11 @@ public class ClaudeCliOptions {
     private String historyFile;
     private String outputFile;
     
+    /**
+     * Opened once per process and copied to its stdin, which is otherwise closed immediately.
+     */
+    private Supplier<InputStream> standardInput;
+    
     private Integer maxTokens;
     private Double temperature;
     
@@ -32,18 +47,118 @@ public class ClaudeCliOptions {
     
     private String workingDirectory;
     
-    @Builder.Default
-    private ExecutionMode executionMode = ExecutionMode.DIRECT;
+    private Boolean bypassCache;
+    
+    private Duration timeout;
+    private Instant deadline;
+    private Duration firstByteTimeout;
+    private Duration idleOutputTimeout;
+    
+    private ExecutionMode executionMode;
     
     private TmuxOptions tmuxOptions;
     
+    public ExecutionMode getExecutionMode() {
+        return executionMode != null ? executionMode : ExecutionMode.DIRECT;
+    }
+    
+    /**
+     * These options with every field {@code overlay} sets taking precedence. When the overlay
+     * already carries everything these options would add, it is returned as is, so layering
+     * is idempotent and usually allocates nothing.
+     */
+    public ClaudeCliOptions overlay(ClaudeCliOptions overlay) {
+        if (overlay == null) {
+            return this;
+        }
+        if (overlay == this || !addsTo(overlay)) {
+            return overlay;
+        }
+        return new ClaudeCliOptions(
+            pick(overlay.prompt, prompt),
+            pick(overlay.model, model),
+            pick(overlay.outputFormat, outputFormat),
+            pick(overlay.apiKey, apiKey),
+            pick(overlay.apiUrl, apiUrl),
+            pick(overlay.dangerouslySkipPermissions, dangerouslySkipPermissions),
+            pick(overlay.continueMode, continueMode),
+            pick(overlay.verbose, verbose),
+            pick(overlay.streamJson, streamJson),
+            pick(overlay.contextFile, contextFile),
+            pick(overlay.historyFile, historyFile),
+            pick(overlay.outputFile, outputFile),
+            pick(overlay.standardInput, standardInput),
+            pick(overlay.maxTokens, maxTokens),
+            pick(overlay.temperature, temperature),
+            pick(overlay.additionalFlags, additionalFlags),
+            pick(overlay.environmentVariables, environmentVariables),
+            pick(overlay.workingDirectory, workingDirectory),
+            pick(overlay.bypassCache, bypassCache),
+            pick(overlay.timeout, timeout),
+            pick(overlay.deadline, deadline),
+            pick(overlay.firstByteTimeout, firstByteTimeout),
+            pick(overlay.idleOutputTimeout, idleOutputTimeout),
+            pick(overlay.executionMode, executionMode),
+            pick(overlay.tmuxOptions, tmuxOptions));
+    }
+    
+    // Whether any field set here is missing from the overlay
+    private boolean addsTo(ClaudeCliOptions overlay) {
+        return adds(prompt, overlay.prompt)
+            || adds(model, overlay.model)
+            || adds(outputFormat, overlay.outputFormat)
+            || adds(apiKey, overlay.apiKey)
+            || adds(apiUrl, overlay.apiUrl)
+            || adds(dangerouslySkipPermissions, overlay.dangerouslySkipPermissions)
+            || adds(continueMode, overlay.continueMode)
+            || adds(verbose, overlay.verbose)
+            || adds(streamJson, overlay.streamJson)
+            || adds(contextFile, overlay.contextFile)
+            || adds(historyFile, overlay.historyFile)
+            || adds(outputFile, overlay.outputFile)
+            || adds(standardInput, overlay.standardInput)
+            || adds(maxTokens, overlay.maxTokens)
+            || adds(temperature, overlay.temperature)
+            || adds(additionalFlags, overlay.additionalFlags)
+            || adds(environmentVariables, overlay.environmentVariables)
+            || adds(workingDirectory, overlay.workingDirectory)
+            || adds(bypassCache, overlay.bypassCache)
+            || adds(timeout, overlay.timeout)
+            || adds(deadline, overlay.deadline)
+            || adds(firstByteTimeout, overlay.firstByteTimeout)
+            || adds(idleOutputTimeout, overlay.idleOutputTimeout)
+            || adds(executionMode, overlay.executionMode)
+            || adds(tmuxOptions, overlay.tmuxOptions);
+    }
+    
+    public static class ClaudeCliOptionsBuilder {
+        
+        public ClaudeCliOptionsBuilder additionalFlags(List<String> additionalFlags) {
+            this.additionalFlags = additionalFlags != null ? List.copyOf(additionalFlags) : null;
+            return this;
+        }
+        
+        public ClaudeCliOptionsBuilder environmentVariables(Map<String, String> environmentVariables) {
+            this.environmentVariables = environmentVariables != null ? Map.copyOf(environmentVariables) : null;
+            return this;
+        }
+    }
+    
+    private static boolean adds(Object base, Object overlay) {
+        return base != null && overlay == null;
+    }
+    
+    private static <T> T pick(T overlay, T base) {
+        return overlay != null ? overlay : base;
+    }
+    
     public enum ExecutionMode {
         DIRECT,
         TMUX,
         PARALLEL
     }
     
-    @Data
+    @Value
     @Builder
     public static class TmuxOptions {
         private String sessionName;
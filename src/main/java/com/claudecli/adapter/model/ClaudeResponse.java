@@ -1,12 +1,15 @@
 package com.claudecli.adapter.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ClaudeResponse {
     
     private String sessionId;
@@ -22,17 +25,59 @@ public class ClaudeResponse {
     private String rawOutput;
     private String errorOutput;
     private Integer exitCode;
+    private FailureType failureType;
+    private Integer attempts;
+    
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private CapturedOutput capturedOutput;
+    
+    /**
+     * Outputs above the capture threshold are not held as a string; they are read from
+     * {@link #getCapturedOutput()} on first access here. Output written to an
+     * {@code outputFile} is never read here and stays null.
+     */
+    public String getResponse() {
+        if (response == null && capturedOutput != null && capturedOutput.isSpilled()) {
+            return capturedOutput.toString();
+        }
+        return response;
+    }
+    
+    public String getRawOutput() {
+        if (rawOutput == null && capturedOutput != null && capturedOutput.isSpilled()) {
+            return capturedOutput.toString();
+        }
+        return rawOutput;
+    }
     
     public enum ResponseStatus {
         SUCCESS,
         PARTIAL,
         ERROR,
         CANCELLED,
-        TIMEOUT
+        TIMEOUT,
+        REJECTED,
+        CIRCUIT_OPEN,
+        DENIED
+    }
+    
+    public enum FailureType {
+        SPAWN_FAILURE,
+        TIMEOUT,
+        RATE_LIMIT,
+        AUTHENTICATION,
+        MODEL_ERROR,
+        API_ERROR,
+        REJECTED,
+        CANCELLED,
+        POLICY_VIOLATION,
+        UNKNOWN
     }
     
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class ToolCall {
         private String toolName;
         private String action;
@@ -41,7 +86,7 @@ public class ClaudeResponse {
     }
     
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class FileChange {
         private String filePath;
         private ChangeType changeType;
@@ -56,7 +101,7 @@ public class ClaudeResponse {
     }
     
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class CommandExecution {
         private String command;
         private String output;
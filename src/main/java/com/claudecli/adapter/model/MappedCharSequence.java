@@ -0,0 +1,171 @@
+package com.claudecli.adapter.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only {@link CharSequence} over a UTF-8 file. The file is mapped rather than read, split
+ * into chunks that start on character boundaries, and only the chunk being accessed is decoded.
+ */
+class MappedCharSequence implements CharSequence {
+    
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final long REGION_BYTES = 1L << 30;
+    
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private final long byteLength;
+    private final long[] chunkByteStarts;
+    private final int[] chunkCharStarts;
+    private final int length;
+    
+    private volatile DecodedChunk current;
+    
+    MappedCharSequence(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byteLength = channel.size();
+            for (long position = 0; position < byteLength; position += REGION_BYTES) {
+                regions.add(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(REGION_BYTES, byteLength - position)));
+            }
+        }
+        
+        // One decoding pass to find chunk boundaries and their char offsets; nothing is retained
+        List<Long> byteStarts = new ArrayList<>();
+        List<Integer> charStarts = new ArrayList<>();
+        long chars = 0;
+        long position = 0;
+        CharBuffer scratch = CharBuffer.allocate(CHUNK_BYTES + 4);
+        while (position < byteLength) {
+            byteStarts.add(position);
+            charStarts.add((int) chars);
+            long end = chunkEnd(position);
+            chars += decode(position, end, scratch).remaining();
+            if (chars > Integer.MAX_VALUE) {
+                throw new IOException("Output " + file + " is too large for a CharSequence; use openStream() instead");
+            }
+            position = end;
+        }
+        
+        chunkByteStarts = byteStarts.stream().mapToLong(Long::longValue).toArray();
+        chunkCharStarts = charStarts.stream().mapToInt(Integer::intValue).toArray();
+        length = (int) chars;
+    }
+    
+    @Override
+    public int length() {
+        return length;
+    }
+    
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        DecodedChunk chunk = chunkContaining(index);
+        return chunk.chars[index - chunk.charStart];
+    }
+    
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        int index = start;
+        while (index < end) {
+            DecodedChunk chunk = chunkContaining(index);
+            int from = index - chunk.charStart;
+            int to = Math.min(chunk.chars.length, end - chunk.charStart);
+            builder.append(chunk.chars, from, to - from);
+            index += to - from;
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+    
+    private DecodedChunk chunkContaining(int charIndex) {
+        DecodedChunk chunk = current;
+        if (chunk != null && charIndex >= chunk.charStart && charIndex < chunk.charStart + chunk.chars.length) {
+            return chunk;
+        }
+        
+        int i = Arrays.binarySearch(chunkCharStarts, charIndex);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        // Chunks that decode to nothing share a char offset with their successor
+        while (i + 1 < chunkCharStarts.length && chunkCharStarts[i + 1] <= charIndex) {
+            i++;
+        }
+        long end = i + 1 < chunkByteStarts.length ? chunkByteStarts[i + 1] : byteLength;
+        CharBuffer decoded = decode(chunkByteStarts[i], end, CharBuffer.allocate((int) (end - chunkByteStarts[i]) + 4));
+        char[] chars = new char[decoded.remaining()];
+        decoded.get(chars);
+        chunk = new DecodedChunk(chunkCharStarts[i], chars);
+        current = chunk;
+        return chunk;
+    }
+    
+    /**
+     * Moves a nominal chunk end forward past UTF-8 continuation bytes so no character is split.
+     */
+    private long chunkEnd(long start) {
+        long end = Math.min(start + CHUNK_BYTES, byteLength);
+        long limit = Math.min(end + 3, byteLength);
+        while (end < limit && (byteAt(end) & 0xC0) == 0x80) {
+            end++;
+        }
+        return end;
+    }
+    
+    private CharBuffer decode(long start, long end, CharBuffer target) {
+        byte[] bytes = new byte[(int) (end - start)];
+        for (int i = 0; i < bytes.length; ) {
+            long position = start + i;
+            ByteBuffer region = regions.get((int) (position / REGION_BYTES)).duplicate();
+            region.position((int) (position % REGION_BYTES));
+            int count = Math.min(region.remaining(), bytes.length - i);
+            region.get(bytes, i, count);
+            i += count;
+        }
+        
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        target.clear();
+        decoder.decode(ByteBuffer.wrap(bytes), target, true);
+        decoder.flush(target);
+        target.flip();
+        return target;
+    }
+    
+    private byte byteAt(long position) {
+        return regions.get((int) (position / REGION_BYTES)).get((int) (position % REGION_BYTES));
+    }
+    
+    private static class DecodedChunk {
+        
+        private final int charStart;
+        private final char[] chars;
+        
+        DecodedChunk(int charStart, char[] chars) {
+            this.charStart = charStart;
+            this.chars = chars;
+        }
+    }
+}
\ No newline at end of file
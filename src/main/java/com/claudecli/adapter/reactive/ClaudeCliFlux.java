@@ -0,0 +1,28 @@
+package com.claudecli.adapter.reactive;
+
+import com.claudecli.adapter.core.ClaudeCliWrapper;
+import com.claudecli.adapter.model.ClaudeCliOptions;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reactor view of {@link ClaudeCliWrapper#executePublisher}. Requires reactor-core on the
+ * classpath; demand and cancellation are passed straight through to the CLI process.
+ */
+public final class ClaudeCliFlux {
+    
+    private ClaudeCliFlux() {
+    }
+    
+    public static Flux<String> stream(ClaudeCliWrapper claudeCli, String prompt) {
+        return JdkFlowAdapter.flowPublisherToFlux(claudeCli.executePublisher(prompt));
+    }
+    
+    public static Flux<String> stream(ClaudeCliWrapper claudeCli, String prompt, ClaudeCliOptions options) {
+        return JdkFlowAdapter.flowPublisherToFlux(claudeCli.executePublisher(prompt, options));
+    }
+    
+    public static Flux<String> stream(ClaudeCliWrapper.ClaudeSession session, String prompt) {
+        return JdkFlowAdapter.flowPublisherToFlux(session.sendPublisher(prompt));
+    }
+}
\ No newline at end of file
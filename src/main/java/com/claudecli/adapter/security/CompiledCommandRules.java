@@ -0,0 +1,250 @@
+package com.claudecli.adapter.security;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An immutable, pre-compiled form of the command allow and deny lists. Prefixes are looked up
+ * in a trie, so a check costs the length of the command rather than the number of entries.
+ * Patterns that require some literal are only run when the command contains it, found for all
+ * of them in one pass; the rest are joined into one alternation where they allow it. Decisions are
+ * cached per command string; a reload builds a new instance, so the cache never outlives the
+ * rules it was filled from.
+ */
+final class CompiledCommandRules {
+    
+    enum Decision {
+        BLACKLISTED(false),
+        BLACKLISTED_PATTERN(false),
+        WHITELISTED(true),
+        WHITELISTED_PATTERN(true),
+        NOT_ALLOWED(false);
+        
+        final boolean allowed;
+        
+        Decision(boolean allowed) {
+            this.allowed = allowed;
+        }
+    }
+    
+    private static final int MAX_CACHED_LENGTH = 4096;
+    
+    // Backreferences and named groups would change meaning or clash once patterns are joined
+    private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+    
+    final List<String> whitelistedCommands;
+    final List<String> blacklistedCommands;
+    
+    private final PrefixTrie blacklistedPrefixes;
+    private final PrefixTrie whitelistedPrefixes;
+    private final PatternSet blacklistMatchers;
+    private final PatternSet whitelistMatchers;
+    private final TwoGenerationCache<String, Decision> decisions;
+    
+    CompiledCommandRules(List<String> whitelistedCommands, List<String> blacklistedCommands,
+                         List<Pattern> whitelistedCommandPatterns, List<Pattern> blacklistedCommandPatterns,
+                         int cacheSize) {
+        this.whitelistedCommands = List.copyOf(whitelistedCommands);
+        this.blacklistedCommands = List.copyOf(blacklistedCommands);
+        this.blacklistedPrefixes = PrefixTrie.of(this.blacklistedCommands);
+        this.whitelistedPrefixes = PrefixTrie.of(this.whitelistedCommands);
+        this.blacklistMatchers = new PatternSet(blacklistedCommandPatterns);
+        this.whitelistMatchers = new PatternSet(whitelistedCommandPatterns);
+        this.decisions = new TwoGenerationCache<>(cacheSize);
+    }
+    
+    /**
+     * Deny rules win over allow rules, prefixes are checked before patterns, and anything not
+     * allowed is denied. Prefixes match the trimmed, lower-cased command; patterns match the
+     * command as given.
+     */
+    Decision decide(String command) {
+        if (!decisions.isEnabled() || command.length() > MAX_CACHED_LENGTH) {
+            return evaluate(command);
+        }
+        Decision decision = decisions.get(command);
+        if (decision == null) {
+            decision = evaluate(command);
+            decisions.put(command, decision);
+        }
+        return decision;
+    }
+    
+    private Decision evaluate(String command) {
+        if (blacklistedPrefixes.matchesPrefixOf(command)) {
+            return Decision.BLACKLISTED;
+        }
+        if (blacklistMatchers.matchesAny(command)) {
+            return Decision.BLACKLISTED_PATTERN;
+        }
+        if (whitelistedPrefixes.matchesPrefixOf(command)) {
+            return Decision.WHITELISTED;
+        }
+        if (whitelistMatchers.matchesAny(command)) {
+            return Decision.WHITELISTED_PATTERN;
+        }
+        return Decision.NOT_ALLOWED;
+    }
+    
+    /**
+     * Joins the patterns into one alternation, keeping apart those with their own flags or
+     * with constructs that depend on group numbering.
+     */
+    private static Pattern[] combine(List<Pattern> patterns) {
+        List<Pattern> result = new ArrayList<>();
+        StringBuilder alternation = new StringBuilder();
+        List<Pattern> joined = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            if (pattern.flags() != 0 || NOT_COMBINABLE.matcher(pattern.pattern()).find()) {
+                result.add(pattern);
+                continue;
+            }
+            if (alternation.length() > 0) {
+                alternation.append('|');
+            }
+            alternation.append("(?:").append(pattern.pattern()).append(')');
+            joined.add(pattern);
+        }
+        if (joined.size() == 1) {
+            result.add(joined.get(0));
+        } else if (joined.size() > 1) {
+            try {
+                result.add(Pattern.compile(alternation.toString()));
+            } catch (PatternSyntaxException e) {
+                result.addAll(joined);
+            }
+        }
+        return result.toArray(new Pattern[0]);
+    }
+    
+    private static final class PatternSet {
+        
+        private final RegexLiteralIndex indexed;
+        private final Pattern[] unindexed;
+        
+        PatternSet(List<Pattern> patterns) {
+            List<Pattern> withLiteral = new ArrayList<>();
+            List<String> literals = new ArrayList<>();
+            List<Pattern> rest = new ArrayList<>();
+            for (Pattern pattern : patterns) {
+                String literal = RegexLiteralIndex.requiredLiteral(pattern);
+                if (literal != null) {
+                    withLiteral.add(pattern);
+                    literals.add(literal);
+                } else {
+                    rest.add(pattern);
+                }
+            }
+            this.indexed = new RegexLiteralIndex(withLiteral, literals);
+            this.unindexed = combine(rest);
+        }
+        
+        boolean matchesAny(String command) {
+            for (Pattern pattern : unindexed) {
+                if (pattern.matcher(command).matches()) {
+                    return true;
+                }
+            }
+            return !indexed.isEmpty() && indexed.matchesAny(command);
+        }
+    }
+    
+    /**
+     * Character trie over the prefix entries, with each node's children in sorted arrays so a
+     * lookup does no boxing or allocation.
+     */
+    static final class PrefixTrie {
+        
+        private static final char[] NO_KEYS = new char[0];
+        private static final PrefixTrie[] NO_CHILDREN = new PrefixTrie[0];
+        
+        private char[] keys = NO_KEYS;
+        private PrefixTrie[] children = NO_CHILDREN;
+        private boolean terminal;
+        
+        static PrefixTrie of(Collection<String> prefixes) {
+            PrefixTrie root = new PrefixTrie();
+            for (String prefix : prefixes) {
+                PrefixTrie node = root;
+                for (int i = 0; i < prefix.length(); i++) {
+                    node = node.childFor(prefix.charAt(i));
+                }
+                node.terminal = true;
+            }
+            return root;
+        }
+        
+        /**
+         * Whether some entry is a prefix of the command with surrounding whitespace removed
+         * and lower-cased as {@link String#toLowerCase()} does. That is done a character at a
+         * time when it comes to the same thing, i.e. for ASCII outside Turkish and Azeri locales.
+         */
+        boolean matchesPrefixOf(String command) {
+            int start = 0;
+            int end = command.length();
+            while (start < end && command.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && command.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return false;
+            }
+            if (lowerCasesByCharacter(command, start, end)) {
+                return walk(command, start, end, true);
+            }
+            String lowered = command.substring(start, end).toLowerCase();
+            return walk(lowered, 0, lowered.length(), false);
+        }
+        
+        private boolean walk(String command, int start, int end, boolean lowerCase) {
+            PrefixTrie node = this;
+            for (int i = start; ; i++) {
+                if (node.terminal) {
+                    return true;
+                }
+                if (i == end) {
+                    return false;
+                }
+                char c = command.charAt(i);
+                int index = Arrays.binarySearch(node.keys, lowerCase ? Character.toLowerCase(c) : c);
+                if (index < 0) {
+                    return false;
+                }
+                node = node.children[index];
+            }
+        }
+        
+        private static boolean lowerCasesByCharacter(String command, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (command.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            String language = Locale.getDefault().getLanguage();
+            return !"tr".equals(language) && !"az".equals(language);
+        }
+        
+        private PrefixTrie childFor(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            PrefixTrie child = new PrefixTrie();
+            char[] newKeys = new char[keys.length + 1];
+            PrefixTrie[] newChildren = new PrefixTrie[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
\ No newline at end of file
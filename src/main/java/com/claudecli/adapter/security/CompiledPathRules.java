@@ -0,0 +1,318 @@
+package com.claudecli.adapter.security;
+
+import com.claudecli.adapter.security.CommandSecurityPolicy.FileOperation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, pre-compiled form of the path allow and deny lists. Every root is a node in a
+ * trie keyed by path component, and each node carries bit masks of the operations denied or
+ * allowed there and below, already folded in from its ancestors. A check walks the path's
+ * components in place, following {@code ..} back up through parent links, so it allocates
+ * nothing and costs the length of the path rather than the number of roots.
+ */
+final class CompiledPathRules {
+    
+    enum Decision {
+        BLACKLISTED(false),
+        NOT_WHITELISTED(false),
+        ALLOWED(true);
+        
+        final boolean allowed;
+        
+        Decision(boolean allowed) {
+            this.allowed = allowed;
+        }
+    }
+    
+    private static final int ALL_OPERATIONS = (1 << FileOperation.values().length) - 1;
+    
+    final List<String> whitelistedPaths;
+    final List<String> blacklistedPaths;
+    
+    private final Node root = new Node(null);
+    // Operations that are only allowed under a whitelisted root
+    private final int confined;
+    private final Node workingDirectory;
+    private final int workingDirectoryDepthBelow;
+    private final boolean resolveSymlinks;
+    private final TwoGenerationCache<String, String> realPaths;
+    
+    /**
+     * Per-operation lists replace the whitelist for their operation and add to the blacklist.
+     * Without a per-operation whitelist, writes and deletes are confined to
+     * {@code whitelistedPaths} and reads and executes are not confined. The root directory in a
+     * blacklist denies only the root itself, not everything below it.
+     */
+    CompiledPathRules(List<String> whitelistedPaths, List<String> blacklistedPaths,
+                      Map<FileOperation, List<String>> operationWhitelistedPaths,
+                      Map<FileOperation, List<String>> operationBlacklistedPaths,
+                      boolean resolveSymlinks, int symlinkCacheSize) {
+        this.whitelistedPaths = List.copyOf(whitelistedPaths);
+        this.blacklistedPaths = List.copyOf(blacklistedPaths);
+        this.resolveSymlinks = resolveSymlinks;
+        this.realPaths = new TwoGenerationCache<>(symlinkCacheSize);
+        
+        int confinedOperations = 0;
+        for (FileOperation operation : FileOperation.values()) {
+            int bit = bit(operation);
+            List<String> whitelist = operationWhitelistedPaths.get(operation);
+            if (whitelist == null && (operation == FileOperation.WRITE || operation == FileOperation.DELETE)) {
+                whitelist = this.whitelistedPaths;
+            }
+            if (whitelist != null) {
+                confinedOperations |= bit;
+                for (String path : whitelist) {
+                    forEachForm(path, node -> node.allow |= bit);
+                }
+            }
+            List<String> blacklist = operationBlacklistedPaths.getOrDefault(operation, List.of());
+            for (String path : blacklist) {
+                forEachForm(path, node -> denyAt(node, bit));
+            }
+        }
+        for (String path : this.blacklistedPaths) {
+            forEachForm(path, node -> denyAt(node, ALL_OPERATIONS));
+        }
+        this.confined = confinedOperations;
+        root.inherit(0, 0);
+        
+        // Relative paths resolve against the directory the JVM started in, as Path does
+        Node node = root;
+        int depthBelow = 0;
+        for (Path name : Paths.get("").toAbsolutePath().normalize()) {
+            String component = name.toString();
+            Node child = depthBelow == 0 ? node.child(component, 0, component.length()) : null;
+            if (child != null) {
+                node = child;
+            } else {
+                depthBelow++;
+            }
+        }
+        this.workingDirectory = node;
+        this.workingDirectoryDepthBelow = depthBelow;
+    }
+    
+    /**
+     * Throws for paths that cannot be resolved when symlinks are followed, or that
+     * {@link Path} would reject.
+     */
+    Decision decide(String path, FileOperation operation) throws IOException {
+        if (path.indexOf('\0') >= 0) {
+            throw new IOException("Path contains a NUL character");
+        }
+        if (resolveSymlinks) {
+            path = realPath(path);
+        }
+        Node node;
+        int depthBelow;
+        int start = 0;
+        if (isSeparator(path.charAt(0))) {
+            node = root;
+            depthBelow = 0;
+        } else {
+            node = workingDirectory;
+            depthBelow = workingDirectoryDepthBelow;
+        }
+        
+        int end = path.length();
+        while (start < end) {
+            int from = start;
+            while (start < end && !isSeparator(path.charAt(start))) {
+                start++;
+            }
+            int length = start - from;
+            start++;
+            if (length == 0 || (length == 1 && path.charAt(from) == '.')) {
+                continue;
+            }
+            if (length == 2 && path.charAt(from) == '.' && path.charAt(from + 1) == '.') {
+                if (depthBelow > 0) {
+                    depthBelow--;
+                } else if (node.parent != null) {
+                    node = node.parent;
+                }
+                continue;
+            }
+            if (depthBelow == 0) {
+                Node child = node.child(path, from, length);
+                if (child != null) {
+                    node = child;
+                    continue;
+                }
+            }
+            depthBelow++;
+        }
+        
+        int bit = bit(operation);
+        int denied = node.denied | (depthBelow == 0 ? node.deniedExactly : 0);
+        if ((denied & bit) != 0) {
+            return Decision.BLACKLISTED;
+        }
+        if ((confined & bit) != 0 && (node.allowed & bit) == 0) {
+            return Decision.NOT_WHITELISTED;
+        }
+        return Decision.ALLOWED;
+    }
+    
+    private String realPath(String path) throws IOException {
+        String real = realPaths.get(path);
+        if (real == null) {
+            real = resolveExisting(Paths.get(path).toAbsolutePath()).toString();
+            realPaths.put(path, real);
+        }
+        return real;
+    }
+    
+    /**
+     * Resolves symlinks in the longest part of the path that exists; the rest does not exist
+     * yet, so it cannot contain links and is normalized as written.
+     */
+    private static Path resolveExisting(Path absolute) throws IOException {
+        for (int existing = absolute.getNameCount(); existing > 0; existing--) {
+            Path prefix = absolute.getRoot().resolve(absolute.subpath(0, existing));
+            if (Files.exists(prefix)) {
+                Path real = prefix.toRealPath();
+                return existing == absolute.getNameCount()
+                    ? real : real.resolve(absolute.subpath(existing, absolute.getNameCount())).normalize();
+            }
+        }
+        return absolute.normalize();
+    }
+    
+    private static void denyAt(Node node, int bits) {
+        if (node.parent == null) {
+            node.deniedExactly |= bits;
+        } else {
+            node.deny |= bits;
+        }
+    }
+    
+    /**
+     * Applies the rule to the root's trie node, and also to the node for its real path when
+     * symlinks are resolved, since checked paths arrive in that form.
+     */
+    private void forEachForm(String path, Consumer<Node> rule) {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        Path absolute = Paths.get(path).toAbsolutePath().normalize();
+        rule.accept(insert(absolute));
+        if (resolveSymlinks) {
+            try {
+                Path real = resolveExisting(absolute);
+                if (!real.equals(absolute)) {
+                    rule.accept(insert(real));
+                }
+            } catch (IOException e) {
+                // The lexical form still applies
+            }
+        }
+    }
+    
+    private Node insert(Path absolute) {
+        Node node = root;
+        for (Path name : absolute) {
+            node = node.childFor(name.toString());
+        }
+        return node;
+    }
+    
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == File.separatorChar;
+    }
+    
+    private static int bit(FileOperation operation) {
+        return 1 << operation.ordinal();
+    }
+    
+    /**
+     * One path component. {@code deny} and {@code allow} are the rules set on this node;
+     * {@code denied} and {@code allowed} add those of every ancestor.
+     */
+    private static final class Node {
+        
+        private static final String[] NO_KEYS = new String[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        
+        final Node parent;
+        String[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int deny;
+        int deniedExactly;
+        int allow;
+        int denied;
+        int allowed;
+        
+        Node(Node parent) {
+            this.parent = parent;
+        }
+        
+        void inherit(int parentDenied, int parentAllowed) {
+            denied = parentDenied | deny;
+            allowed = parentAllowed | allow;
+            for (Node child : children) {
+                child.inherit(denied, allowed);
+            }
+        }
+        
+        /**
+         * The child named by {@code path[from, from + length)}, found without copying it out.
+         */
+        Node child(String path, int from, int length) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(keys[mid], path, from, length);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+        
+        Node childFor(String name) {
+            Node existing = child(name, 0, name.length());
+            if (existing != null) {
+                return existing;
+            }
+            int insertAt = -Arrays.binarySearch(keys, name) - 1;
+            Node child = new Node(this);
+            String[] newKeys = new String[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = name;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+        
+        // Same order as String.compareTo, so keys stay sorted for both lookups
+        private static int compare(String key, String path, int from, int length) {
+            int common = Math.min(key.length(), length);
+            for (int i = 0; i < common; i++) {
+                char a = key.charAt(i);
+                char b = path.charAt(from + i);
+                if (a != b) {
+                    return a - b;
+                }
+            }
+            return key.length() - length;
+        }
+    }
+}
\ No newline at end of file
@@ -5,9 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 @Slf4j
@@ -53,8 +52,18 @@ public class DefaultCommandSecurityPolicy implements CommandSecurityPolicy {
         "/proc"
     );
     
+    // Replace the whitelist for an operation, and add to the blacklist
+    private Map<FileOperation, List<String>> operationWhitelistedPaths = Map.of();
+    private Map<FileOperation, List<String>> operationBlacklistedPaths = Map.of();
+    
     private boolean requireApprovalForAllCommands = false;
     private boolean logAllCommands = true;
+    private int decisionCacheSize = 10000;
+    private boolean resolveSymlinks = false;
+    private int symlinkCacheSize = 10000;
+    
+    private volatile CompiledCommandRules commandRules = compile();
+    private volatile CompiledPathRules pathRules = compilePaths();
     
     @Override
     public boolean isCommandAllowed(String command) {
@@ -62,35 +71,53 @@ public class DefaultCommandSecurityPolicy implements CommandSecurityPolicy {
             return false;
         }
         
-        String trimmedCommand = command.trim().toLowerCase();
-        
-        // Check blacklist first
-        if (blacklistedCommands.stream().anyMatch(trimmedCommand::startsWith)) {
-            log.warn("Command blocked by blacklist: {}", command);
-            return false;
-        }
-        
-        if (blacklistedCommandPatterns.stream().anyMatch(p -> p.matcher(command).matches())) {
-            log.warn("Command blocked by blacklist pattern: {}", command);
-            return false;
-        }
-        
-        // Check whitelist
-        if (whitelistedCommands.stream().anyMatch(trimmedCommand::startsWith)) {
-            log.debug("Command allowed by whitelist: {}", command);
-            return true;
-        }
-        
-        if (whitelistedCommandPatterns.stream().anyMatch(p -> p.matcher(command).matches())) {
-            log.debug("Command allowed by whitelist pattern: {}", command);
-            return true;
+        CompiledCommandRules.Decision decision = commandRules.decide(command);
+        switch (decision) {
+            case BLACKLISTED -> log.warn("Command blocked by blacklist: {}", command);
+            case BLACKLISTED_PATTERN -> log.warn("Command blocked by blacklist pattern: {}", command);
+            case WHITELISTED -> {
+                if (logAllCommands) {
+                    log.debug("Command allowed by whitelist: {}", command);
+                }
+            }
+            case WHITELISTED_PATTERN -> {
+                if (logAllCommands) {
+                    log.debug("Command allowed by whitelist pattern: {}", command);
+                }
+            }
+            case NOT_ALLOWED -> log.warn("Command not explicitly allowed: {}", command);
         }
-        
-        // Default deny
-        log.warn("Command not explicitly allowed: {}", command);
-        return false;
+        return decision.allowed;
+    }
+    
+    /**
+     * Replaces all command rules at once. Checks already running finish against the old rules;
+     * every later check sees only the new ones.
+     */
+    public synchronized void reloadCommandRules(List<String> whitelistedCommands, List<String> blacklistedCommands,
+                                                List<Pattern> whitelistedCommandPatterns,
+                                                List<Pattern> blacklistedCommandPatterns) {
+        this.whitelistedCommands = whitelistedCommands;
+        this.blacklistedCommands = blacklistedCommands;
+        this.whitelistedCommandPatterns = whitelistedCommandPatterns;
+        this.blacklistedCommandPatterns = blacklistedCommandPatterns;
+        this.commandRules = compile();
     }
     
+    private CompiledCommandRules compile() {
+        return new CompiledCommandRules(whitelistedCommands, blacklistedCommands,
+            whitelistedCommandPatterns, blacklistedCommandPatterns, decisionCacheSize);
+    }
+    
+    private CompiledPathRules compilePaths() {
+        return new CompiledPathRules(whitelistedPaths, blacklistedPaths,
+            operationWhitelistedPaths, operationBlacklistedPaths, resolveSymlinks, symlinkCacheSize);
+    }
+    
+    /**
+     * Paths match whitelisted and blacklisted roots by whole components, so {@code /tmpfoo} is
+     * not under {@code /tmp}; a blacklisted {@code /} only covers the root directory itself.
+     */
     @Override
     public boolean isFileOperationAllowed(String filePath, FileOperation operation) {
         if (filePath == null || filePath.trim().isEmpty()) {
@@ -98,30 +125,13 @@ public class DefaultCommandSecurityPolicy implements CommandSecurityPolicy {
         }
         
         try {
-            Path path = Paths.get(filePath).normalize().toAbsolutePath();
-            String pathStr = path.toString();
-            
-            // Check blacklisted paths
-            if (blacklistedPaths.stream().anyMatch(pathStr::startsWith)) {
+            CompiledPathRules.Decision decision = pathRules.decide(filePath, operation);
+            if (decision == CompiledPathRules.Decision.BLACKLISTED) {
                 log.warn("File operation blocked for blacklisted path: {} ({})", filePath, operation);
-                return false;
+            } else if (decision == CompiledPathRules.Decision.NOT_WHITELISTED) {
+                log.warn("File operation not allowed outside whitelisted paths: {} ({})", filePath, operation);
             }
-            
-            // For write/delete operations, check whitelist
-            if (operation == FileOperation.WRITE || operation == FileOperation.DELETE) {
-                boolean allowed = whitelistedPaths.stream()
-                    .anyMatch(whitePath -> pathStr.startsWith(whitePath));
-                
-                if (!allowed) {
-                    log.warn("Write/Delete operation not allowed outside whitelisted paths: {} ({})", 
-                        filePath, operation);
-                }
-                
-                return allowed;
-            }
-            
-            // Read operations are generally allowed outside blacklisted paths
-            return true;
+            return decision.allowed;
             
         } catch (Exception e) {
             log.error("Error checking file operation permission", e);
@@ -158,38 +168,67 @@ public class DefaultCommandSecurityPolicy implements CommandSecurityPolicy {
     
     @Override
     public List<String> getWhitelistedCommands() {
-        return whitelistedCommands;
+        return commandRules.whitelistedCommands;
     }
     
     @Override
     public List<String> getBlacklistedCommands() {
-        return blacklistedCommands;
+        return commandRules.blacklistedCommands;
     }
     
     @Override
     public List<String> getWhitelistedPaths() {
-        return whitelistedPaths;
+        return pathRules.whitelistedPaths;
     }
     
     @Override
     public List<String> getBlacklistedPaths() {
-        return blacklistedPaths;
+        return pathRules.blacklistedPaths;
     }
     
-    public void setWhitelistedCommands(List<String> whitelistedCommands) {
+    public synchronized void setWhitelistedCommands(List<String> whitelistedCommands) {
         this.whitelistedCommands = whitelistedCommands;
+        this.commandRules = compile();
     }
     
-    public void setBlacklistedCommands(List<String> blacklistedCommands) {
+    public synchronized void setBlacklistedCommands(List<String> blacklistedCommands) {
         this.blacklistedCommands = blacklistedCommands;
+        this.commandRules = compile();
     }
     
-    public void setWhitelistedPaths(List<String> whitelistedPaths) {
+    public synchronized void setDecisionCacheSize(int decisionCacheSize) {
+        this.decisionCacheSize = decisionCacheSize;
+        this.commandRules = compile();
+    }
+    
+    public synchronized void setWhitelistedPaths(List<String> whitelistedPaths) {
         this.whitelistedPaths = whitelistedPaths;
+        this.pathRules = compilePaths();
     }
     
-    public void setBlacklistedPaths(List<String> blacklistedPaths) {
+    public synchronized void setBlacklistedPaths(List<String> blacklistedPaths) {
         this.blacklistedPaths = blacklistedPaths;
+        this.pathRules = compilePaths();
+    }
+    
+    public synchronized void setOperationWhitelistedPaths(Map<FileOperation, List<String>> operationWhitelistedPaths) {
+        this.operationWhitelistedPaths = operationWhitelistedPaths;
+        this.pathRules = compilePaths();
+    }
+    
+    public synchronized void setOperationBlacklistedPaths(Map<FileOperation, List<String>> operationBlacklistedPaths) {
+        this.operationBlacklistedPaths = operationBlacklistedPaths;
+        this.pathRules = compilePaths();
+    }
+    
+    public synchronized void setResolveSymlinks(boolean resolveSymlinks) {
+        this.resolveSymlinks = resolveSymlinks;
+        this.pathRules = compilePaths();
+    }
+    
+    public synchronized void setSymlinkCacheSize(int symlinkCacheSize) {
+        this.symlinkCacheSize = symlinkCacheSize;
+        this.pathRules = compilePaths();
     }
     
     public void setRequireApprovalForAllCommands(boolean requireApprovalForAllCommands) {
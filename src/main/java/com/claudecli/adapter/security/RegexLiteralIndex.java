@@ -0,0 +1,242 @@
+package com.claudecli.adapter.security;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Patterns indexed by a literal that any match must contain. One Aho-Corasick pass over the
+ * input finds which literals occur, and only the patterns owning them are run, so a long list
+ * of patterns costs little more than the ones that could actually match.
+ */
+final class RegexLiteralIndex {
+    
+    private final Pattern[] patterns;
+    private final Node root = new Node();
+    
+    RegexLiteralIndex(List<Pattern> patterns, List<String> literals) {
+        this.patterns = patterns.toArray(new Pattern[0]);
+        for (int id = 0; id < literals.size(); id++) {
+            String literal = literals.get(id);
+            Node node = root;
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.childFor(literal.charAt(i));
+            }
+            node.patternIds = Arrays.copyOf(node.patternIds, node.patternIds.length + 1);
+            node.patternIds[node.patternIds.length - 1] = id;
+        }
+        linkFailures();
+    }
+    
+    boolean isEmpty() {
+        return patterns.length == 0;
+    }
+    
+    /**
+     * Whether any indexed pattern matches the whole input.
+     */
+    boolean matchesAny(String input) {
+        long[] tried = null;
+        Node node = root;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            Node next = node.child(c);
+            while (next == null && node != root) {
+                node = node.fail;
+                next = node.child(c);
+            }
+            node = next != null ? next : root;
+            for (Node found = node.patternIds.length > 0 ? node : node.output; found != null; found = found.output) {
+                for (int id : found.patternIds) {
+                    if (tried == null) {
+                        tried = new long[(patterns.length + 63) >>> 6];
+                    }
+                    if ((tried[id >>> 6] & (1L << id)) == 0) {
+                        tried[id >>> 6] |= 1L << id;
+                        if (patterns[id].matcher(input).matches()) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    private void linkFailures() {
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.keys.length; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                while (fail != root && fail.child(c) == null) {
+                    fail = fail.fail;
+                }
+                Node target = fail.child(c);
+                child.fail = target != null ? target : root;
+                child.output = child.fail.patternIds.length > 0 ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+    
+    /**
+     * The longest run of literal characters that every match of the pattern contains, or null
+     * when it cannot be determined safely: flags, inline flags, alternation at the top level
+     * and escapes with arguments all disable indexing. Groups and classes are skipped, as their
+     * contents may be optional or alternatives.
+     */
+    static String requiredLiteral(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        String regex = pattern.pattern();
+        StringBuilder run = new StringBuilder();
+        String best = "";
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (depth > 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '[') {
+                    i = endOfClass(regex, i);
+                } else if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                continue;
+            }
+            switch (c) {
+                case '|':
+                    return null;
+                case '(':
+                    if (regex.startsWith("(?", i) && !regex.startsWith("(?:", i)) {
+                        return null;
+                    }
+                    depth++;
+                    break;
+                case '[':
+                    i = endOfClass(regex, i);
+                    break;
+                case '*', '?':
+                    // The character before is optional
+                    if (run.length() > 0) {
+                        run.setLength(run.length() - 1);
+                    }
+                    break;
+                case '{':
+                    if (run.length() > 0) {
+                        run.setLength(run.length() - 1);
+                    }
+                    int close = regex.indexOf('}', i);
+                    i = close < 0 ? regex.length() : close;
+                    break;
+                case '\\':
+                    if (i + 1 >= regex.length()) {
+                        return null;
+                    }
+                    char escaped = regex.charAt(++i);
+                    if (!Character.isLetterOrDigit(escaped)) {
+                        run.append(escaped);
+                        continue;
+                    }
+                    if ("pPxuNkcQ0".indexOf(escaped) >= 0) {
+                        return null;
+                    }
+                    break;
+                case '.', '^', '$', '+':
+                    break;
+                default:
+                    run.append(c);
+                    continue;
+            }
+            // Anything but a plain character ends the current run; before '+' it is still required
+            best = longer(best, run);
+            run.setLength(0);
+        }
+        best = longer(best, run);
+        return best.isEmpty() ? null : best;
+    }
+    
+    private static String longer(String best, CharSequence run) {
+        return run.length() > best.length() ? run.toString() : best;
+    }
+    
+    private static int endOfClass(String regex, int open) {
+        int i = skipLeadingBracket(regex, open + 1);
+        int depth = 1;
+        for (; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+                i = skipLeadingBracket(regex, i + 1) - 1;
+            } else if (c == ']' && --depth == 0) {
+                return i;
+            }
+        }
+        return regex.length();
+    }
+    
+    /**
+     * Skips a negation and a ']' that is a literal member because it comes first.
+     */
+    private static int skipLeadingBracket(String regex, int i) {
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        return i;
+    }
+    
+    private static final class Node {
+        
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_PATTERNS = new int[0];
+        
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        int[] patternIds = NO_PATTERNS;
+        Node fail;
+        Node output;
+        
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        Node childFor(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.claudecli.adapter.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Asked about tool calls the security policy marks as {@code REQUIRES_USER_APPROVAL}. The CLI
+ * keeps running while the answer is pending, and may run the tool before it arrives; the run's
+ * result waits for the answer. Completing with false, failing, or not answering within
+ * {@code claude.cli.security.approval-timeout-millis} stops the run and fails it as denied.
+ */
+@FunctionalInterface
+public interface ToolApprovalHandler {
+    
+    CompletionStage<Boolean> requestApproval(Request request);
+    
+    @Value
+    class Request {
+        String toolUseId;
+        String toolName;
+        JsonNode input;
+        /** The shell command of a Bash call, otherwise null. */
+        String command;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.claudecli.adapter.security;
+
+import com.claudecli.adapter.core.OutputInspector;
+import com.claudecli.adapter.model.ClaudeResponse;
+import com.claudecli.adapter.stream.StreamJsonEvent;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Applies the {@link CommandSecurityPolicy} to tool calls while the CLI is running rather than
+ * after it has finished. Each run gets its own {@link OutputInspector}, which decodes tool_use
+ * events from the stream-json output as they are read. A denied call kills the run at once;
+ * one that needs approval goes to the {@link ToolApprovalHandler}, and the run is killed if
+ * the answer is no. Without a handler, calls that need approval are denied. A line that looks
+ * like it carries a tool call but cannot be decoded kills the run too, since the call in it
+ * cannot be checked.
+ * <p>
+ * The CLI does not wait for the answer, so a call awaiting approval may already have run. What
+ * enforcement does guarantee is the outcome: the run's result is held until every pending
+ * approval is answered, and a refusal fails it as a policy violation even after the CLI exited.
+ */
+@Slf4j
+public class ToolUseEnforcer {
+    
+    private final CommandSecurityPolicy policy;
+    private final StreamJsonParser parser;
+    private final ToolApprovalHandler approvalHandler;
+    private final long approvalTimeoutMillis;
+    
+    private final AtomicLong inspectedCount = new AtomicLong();
+    private final AtomicLong deniedCount = new AtomicLong();
+    private final AtomicLong approvalRequestCount = new AtomicLong();
+    
+    public ToolUseEnforcer(CommandSecurityPolicy policy, StreamJsonParser parser,
+                           ToolApprovalHandler approvalHandler, long approvalTimeoutMillis) {
+        this.policy = policy;
+        this.parser = parser;
+        this.approvalHandler = approvalHandler;
+        this.approvalTimeoutMillis = approvalTimeoutMillis;
+    }
+    
+    /**
+     * A fresh inspector for one run.
+     */
+    public OutputInspector newInspector() {
+        return new RunInspector();
+    }
+    
+    /**
+     * What the policy says about one tool call. Bash commands go through
+     * {@link CommandSecurityPolicy#requiresApproval}; tools that read or write a file are
+     * checked with {@link CommandSecurityPolicy#isFileOperationAllowed}; anything else is approved.
+     */
+    public CommandSecurityPolicy.ApprovalResult evaluate(String toolName, JsonNode input) {
+        if (toolName == null || input == null) {
+            return CommandSecurityPolicy.ApprovalResult.APPROVED;
+        }
+        CommandSecurityPolicy.FileOperation operation;
+        switch (toolName) {
+            case "Bash" -> {
+                return policy.requiresApproval(ClaudeResponse.CommandExecution.builder()
+                    .command(input.path("command").asText(null))
+                    .build());
+            }
+            case "Write", "Edit", "MultiEdit", "NotebookEdit" -> operation = CommandSecurityPolicy.FileOperation.WRITE;
+            case "Read", "Glob", "Grep", "LS" -> operation = CommandSecurityPolicy.FileOperation.READ;
+            default -> {
+                return CommandSecurityPolicy.ApprovalResult.APPROVED;
+            }
+        }
+        String path = filePath(input);
+        if (path == null || policy.isFileOperationAllowed(path, operation)) {
+            return CommandSecurityPolicy.ApprovalResult.APPROVED;
+        }
+        return CommandSecurityPolicy.ApprovalResult.DENIED;
+    }
+    
+    private void enforce(StreamJsonEvent.ToolUse toolUse, Consumer<String> abort, Queue<CompletableFuture<?>> pending) {
+        inspectedCount.incrementAndGet();
+        CommandSecurityPolicy.ApprovalResult result = evaluate(toolUse.getName(), toolUse.getInput());
+        switch (result) {
+            case APPROVED -> {
+            }
+            case DENIED -> {
+                deniedCount.incrementAndGet();
+                abort.accept("Tool call denied by security policy: " + describe(toolUse));
+            }
+            case REQUIRES_USER_APPROVAL -> pending.add(requestApproval(toolUse, abort));
+        }
+    }
+    
+    /**
+     * Asks the handler about the call; the returned future completes, never exceptionally, once
+     * the verdict has been acted on.
+     */
+    private CompletableFuture<Void> requestApproval(StreamJsonEvent.ToolUse toolUse, Consumer<String> abort) {
+        if (approvalHandler == null) {
+            deniedCount.incrementAndGet();
+            abort.accept("Tool call requires approval and no approval handler is configured: " + describe(toolUse));
+            return CompletableFuture.completedFuture(null);
+        }
+        approvalRequestCount.incrementAndGet();
+        String command = "Bash".equals(toolUse.getName()) && toolUse.getInput() != null
+            ? toolUse.getInput().path("command").asText(null)
+            : null;
+        ToolApprovalHandler.Request request = new ToolApprovalHandler.Request(
+            toolUse.getId(), toolUse.getName(), toolUse.getInput(), command);
+        try {
+            return approvalHandler.requestApproval(request)
+                .toCompletableFuture()
+                .orTimeout(approvalTimeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((approved, error) -> {
+                    if (error != null || !Boolean.TRUE.equals(approved)) {
+                        deniedCount.incrementAndGet();
+                        abort.accept("Tool call not approved: " + describe(toolUse));
+                    }
+                    return null;
+                });
+        } catch (RuntimeException e) {
+            log.warn("Tool approval handler failed", e);
+            deniedCount.incrementAndGet();
+            abort.accept("Tool call not approved: " + describe(toolUse));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+    
+    private static String filePath(JsonNode input) {
+        for (String field : new String[] {"file_path", "notebook_path", "path"}) {
+            if (input.hasNonNull(field)) {
+                return input.get(field).asText();
+            }
+        }
+        return null;
+    }
+    
+    private static String describe(StreamJsonEvent.ToolUse toolUse) {
+        JsonNode input = toolUse.getInput();
+        String detail = null;
+        if (input != null) {
+            detail = "Bash".equals(toolUse.getName()) ? input.path("command").asText(null) : filePath(input);
+        }
+        return toolUse.getName() + (detail != null ? " " + detail : "");
+    }
+    
+    private final class RunInspector implements OutputInspector {
+        
+        private final Queue<CompletableFuture<?>> pending = new ConcurrentLinkedQueue<>();
+        
+        @Override
+        public void inspect(String line, Consumer<String> abort) {
+            // Only assistant messages carrying a tool call are worth decoding; a line with
+            // escapes is decoded as well, since "tool_use" may be spelled with one
+            if (!line.contains("tool_use") && !line.contains("\\u")) {
+                return;
+            }
+            try {
+                parser.parseLineStrictly(line, event -> {
+                    if (event instanceof StreamJsonEvent.ToolUse toolUse) {
+                        enforce(toolUse, abort, pending);
+                    }
+                });
+            } catch (IOException e) {
+                deniedCount.incrementAndGet();
+                abort.accept("Tool call could not be decoded: " + e.getMessage());
+            }
+        }
+        
+        @Override
+        public CompletionStage<Void> settled() {
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]));
+        }
+    }
+    
+    public Stats getStats() {
+        return new Stats(inspectedCount.get(), deniedCount.get(), approvalRequestCount.get());
+    }
+    
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    public static class Stats {
+        private final long inspectedToolCalls;
+        private final long deniedToolCalls;
+        private final long approvalRequests;
+    }
+}
\ No newline at end of file
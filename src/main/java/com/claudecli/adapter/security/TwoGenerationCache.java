@@ -0,0 +1,58 @@
+package com.claudecli.adapter.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache that approximates LRU without bookkeeping on reads. Entries go into a young
+ * generation; a hit in the old generation is copied forward, and when the young one fills up
+ * the old one is dropped wholesale. A size of zero disables it.
+ */
+final class TwoGenerationCache<K, V> {
+    
+    private final int generationSize;
+    
+    private volatile Map<K, V> young = new ConcurrentHashMap<>();
+    private volatile Map<K, V> old = Map.of();
+    
+    TwoGenerationCache(int size) {
+        this.generationSize = Math.max(size, 0) / 2;
+    }
+    
+    boolean isEnabled() {
+        return generationSize > 0;
+    }
+    
+    V get(K key) {
+        if (generationSize == 0) {
+            return null;
+        }
+        V value = young.get(key);
+        if (value == null) {
+            value = old.get(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+    
+    void put(K key, V value) {
+        if (generationSize == 0) {
+            return;
+        }
+        Map<K, V> current = young;
+        if (current.size() >= generationSize) {
+            rotate(current);
+            current = young;
+        }
+        current.put(key, value);
+    }
+    
+    private synchronized void rotate(Map<K, V> full) {
+        if (young == full) {
+            old = full;
+            young = new ConcurrentHashMap<>();
+        }
+    }
+}
\ No newline at end of file
@@ -1,36 +1,90 @@
 package com.claudecli.adapter.service;
 
+import com.claudecli.adapter.cache.RequestCoalescer;
+import com.claudecli.adapter.cache.RequestFingerprint;
+import com.claudecli.adapter.cache.ResponseCache;
+import com.claudecli.adapter.core.BatchExecution;
 import com.claudecli.adapter.core.ClaudeCliCommandBuilder;
+import com.claudecli.adapter.core.ClaudeExecution;
 import com.claudecli.adapter.core.ClaudeCliWrapper;
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.core.CliWorkerPool;
+import com.claudecli.adapter.core.FailureClassifier;
+import com.claudecli.adapter.core.HedgingExecutor;
+import com.claudecli.adapter.core.OutputInspector;
+import com.claudecli.adapter.core.PinnedSessionWorkers;
 import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.core.ResilientExecutor;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
+import com.claudecli.adapter.model.BatchOptions;
+import com.claudecli.adapter.model.CapturedOutput;
 import com.claudecli.adapter.model.ClaudeCliOptions;
 import com.claudecli.adapter.model.ClaudeResponse;
 import com.claudecli.adapter.security.CommandSecurityPolicy;
+import com.claudecli.adapter.security.ToolUseEnforcer;
+import com.claudecli.adapter.session.SessionStore;
+import com.claudecli.adapter.stream.StreamJsonEvent;
+import com.claudecli.adapter.stream.StreamJsonParser;
+import com.claudecli.adapter.stream.StreamJsonTranscript;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ClaudeCliService implements ClaudeCliWrapper {
     
+    // Streams read the CLI's own stdout, so they always run directly
+    private static final ClaudeCliOptions STREAM_OVERLAY = ClaudeCliOptions.builder()
+        .outputFormat("stream-json")
+        .executionMode(ClaudeCliOptions.ExecutionMode.DIRECT)
+        .build();
+    private static final ClaudeCliOptions DIRECT_OVERLAY = ClaudeCliOptions.builder()
+        .executionMode(ClaudeCliOptions.ExecutionMode.DIRECT)
+        .build();
+    
     private final ProcessExecutor processExecutor;
     private final ClaudeCliCommandBuilder commandBuilder;
     private final CommandSecurityPolicy securityPolicy;
     private final ObjectMapper objectMapper;
+    private final ObjectProvider<CliWorkerPool> workerPool;
+    private final ObjectProvider<ResponseCache> responseCache;
+    private final ObjectProvider<RequestCoalescer> requestCoalescer;
+    private final ObjectProvider<HedgingExecutor> hedgingExecutor;
+    private final ObjectProvider<ResilientExecutor> resilientExecutor;
+    private final ObjectProvider<PinnedSessionWorkers> pinnedSessionWorkers;
+    private final ObjectProvider<ToolUseEnforcer> toolUseEnforcer;
+    private final ClaudeCliProperties properties;
+    private final SessionRegistry sessions;
+    private final SessionStore sessionStore;
+    
+    private ClaudeCliMetrics metrics = ClaudeCliMetrics.NOOP;
+    private volatile ClaudeCliOptions defaultOptions;
     
-    private final Map<String, ClaudeSessionImpl> sessions = new ConcurrentHashMap<>();
+    @Autowired(required = false)
+    public void setMetrics(ClaudeCliMetrics metrics) {
+        this.metrics = metrics;
+    }
     
     @Override
     public ClaudeResponse execute(String prompt) {
@@ -39,10 +93,48 @@ public class ClaudeCliService implements ClaudeCliWrapper {
     
     @Override
     public ClaudeResponse execute(String prompt, ClaudeCliOptions options) {
-        List<String> command = commandBuilder.buildCommand(prompt, options);
-        ProcessExecutor.ProcessResult result = processExecutor.execute(command, options);
+        options = layered(options);
+        RequestCoalescer coalescer = requestCoalescer.getIfAvailable();
+        if (coalescer != null && RequestFingerprint.isSelfContained(options)) {
+            return executeAsync(prompt, options).join();
+        }
+        
+        ResponseCache cache = responseCache.getIfAvailable();
+        if (cache != null && cache.isCacheable(options)) {
+            String fingerprint = RequestFingerprint.of(prompt, options);
+            ClaudeResponse cached = cache.get(fingerprint);
+            if (cached != null) {
+                return cached;
+            }
+            ClaudeResponse response = run(prompt, options);
+            cache.put(fingerprint, response);
+            return response;
+        }
+        
+        return run(prompt, options);
+    }
+    
+    private ClaudeResponse run(String prompt, ClaudeCliOptions options) {
+        if (isHedged(options) || resilientExecutor.getIfAvailable() != null) {
+            return runAsync(prompt, options).join();
+        }
         
-        return buildResponse(prompt, result);
+        CliWorkerPool pool = workerPool.getIfAvailable();
+        String refusal = enforcementRefusal(options);
+        ProcessExecutor.ProcessResult result;
+        if (refusal != null) {
+            result = refused(refusal);
+        } else if (pool != null && pool.accepts(options)) {
+            result = pool.execute(prompt, options, newInspector());
+        } else {
+            ClaudeCliOptions enforced = enforcedOptions(options);
+            List<String> command = commandBuilder.buildCommand(prompt, enforced);
+            result = reshaped(options, enforced, processExecutor.execute(command, enforced, inspector(enforced)));
+        }
+        
+        ClaudeResponse response = buildResponse(prompt, result);
+        metrics.recordResponse(options, response);
+        return response;
     }
     
     @Override
@@ -52,9 +144,194 @@ public class ClaudeCliService implements ClaudeCliWrapper {
     
     @Override
     public CompletableFuture<ClaudeResponse> executeAsync(String prompt, ClaudeCliOptions options) {
-        List<String> command = commandBuilder.buildCommand(prompt, options);
-        return processExecutor.executeAsync(command, options)
-            .thenApply(result -> buildResponse(prompt, result));
+        options = layered(options);
+        ResponseCache cache = responseCache.getIfAvailable();
+        RequestCoalescer coalescer = requestCoalescer.getIfAvailable();
+        boolean cacheable = cache != null && cache.isCacheable(options);
+        boolean coalescable = coalescer != null && RequestFingerprint.isSelfContained(options);
+        if (!cacheable && !coalescable) {
+            return runAsync(prompt, options);
+        }
+        
+        String fingerprint = RequestFingerprint.of(prompt, options);
+        if (cacheable) {
+            ClaudeResponse cached = cache.get(fingerprint);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        
+        ClaudeCliOptions requestOptions = options;
+        Supplier<CompletableFuture<ClaudeResponse>> launcher = () -> {
+            CompletableFuture<ClaudeResponse> execution = runAsync(prompt, requestOptions);
+            return cacheable
+                ? execution.thenApply(response -> {
+                    cache.put(fingerprint, response);
+                    return response;
+                })
+                : execution;
+        };
+        return coalescable ? coalescer.execute(fingerprint, launcher) : launcher.get();
+    }
+    
+    private CompletableFuture<ClaudeResponse> runAsync(String prompt, ClaudeCliOptions options) {
+        ResilientExecutor resilience = resilientExecutor.getIfAvailable();
+        CompletableFuture<ClaudeResponse> execution;
+        if (resilience == null) {
+            execution = attempt(prompt, options);
+        } else {
+            String model = options.getModel() != null ? options.getModel() : properties.getDefaultModel();
+            String key = ResilientExecutor.breakerKey(properties.getCliPath(), options.getApiUrl(), model);
+            // Repeating a session turn or an agentic run is not safe, the same rule hedging follows
+            execution = resilience.execute(key, prompt, RequestFingerprint.isSelfContained(options),
+                () -> attempt(prompt, options));
+        }
+        return execution.thenApply(response -> {
+            metrics.recordResponse(options, response);
+            return response;
+        });
+    }
+    
+    private CompletableFuture<ClaudeResponse> attempt(String prompt, ClaudeCliOptions options) {
+        String refusal = enforcementRefusal(options);
+        if (refusal != null) {
+            return CompletableFuture.completedFuture(buildResponse(prompt, refused(refusal)));
+        }
+        
+        Supplier<ClaudeExecution<ProcessExecutor.ProcessResult>> launcher;
+        ClaudeCliOptions enforced = enforcedOptions(options);
+        CliWorkerPool pool = workerPool.getIfAvailable();
+        if (pool != null && pool.accepts(options)) {
+            launcher = () -> pool.executeAsync(prompt, options, newInspector());
+        } else {
+            List<String> command = commandBuilder.buildCommand(prompt, enforced);
+            launcher = () -> processExecutor.executeAsync(command, enforced, inspector(enforced));
+        }
+        
+        ClaudeExecution<ProcessExecutor.ProcessResult> execution = isHedged(options)
+            ? hedgingExecutor.getObject().execute(launcher)
+            : launcher.get();
+        return execution.thenApply(result -> buildResponse(prompt, reshaped(options, enforced, result)));
+    }
+    
+    /**
+     * With tool-use enforcement on, text and json runs are made stream-json so their tool calls
+     * can be seen; the answer is taken from the result event, see {@link #reshaped}.
+     */
+    private ClaudeCliOptions enforcedOptions(ClaudeCliOptions options) {
+        if (toolUseEnforcer.getIfAvailable() == null || "stream-json".equals(options.getOutputFormat())
+            || enforcementRefusal(options) != null) {
+            return options;
+        }
+        return options.toBuilder()
+            .outputFormat("stream-json")
+            .verbose(true)
+            .build();
+    }
+    
+    /**
+     * Why a run cannot be inspected with tool-use enforcement on, or null. A tmux pane is not
+     * read as the CLI writes it, and an output file would get the event stream rather than the
+     * format that was asked for, so such runs are refused instead of run unchecked.
+     */
+    private String enforcementRefusal(ClaudeCliOptions options) {
+        if (toolUseEnforcer.getIfAvailable() == null) {
+            return null;
+        }
+        if (options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.TMUX) {
+            return "Tool-use enforcement cannot inspect a TMUX run";
+        }
+        String format = options.getOutputFormat();
+        if ("stream-json".equals(format)) {
+            return null;
+        }
+        if (options.getOutputFile() != null) {
+            return "Tool-use enforcement needs stream-json output when writing to an output file";
+        }
+        if (format == null || "text".equals(format) || "json".equals(format)) {
+            return null;
+        }
+        return "Tool-use enforcement cannot inspect " + format + " output";
+    }
+    
+    private static ProcessExecutor.ProcessResult refused(String reason) {
+        return ProcessExecutor.ProcessResult.builder()
+            .exitCode(-1)
+            .error(reason)
+            .policyViolation(reason)
+            .build();
+    }
+    
+    /**
+     * A json request that enforcement ran as stream-json. The CLI's json output is its result
+     * event, so that line becomes both the answer and stdout.
+     */
+    private ProcessExecutor.ProcessResult reshaped(ClaudeCliOptions requested, ClaudeCliOptions enforced,
+                                                   ProcessExecutor.ProcessResult result) {
+        if (requested == enforced || !"json".equals(requested.getOutputFormat()) || result.getCapturedOutput() == null) {
+            return result;
+        }
+        String resultEvent = null;
+        try (CapturedOutput events = result.getCapturedOutput();
+             BufferedReader reader = new BufferedReader(events.openReader())) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains("\"result\"") && isResultEvent(line)) {
+                    resultEvent = line;
+                }
+            }
+        } catch (IOException e) {
+            return ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("Error reading process output: " + e.getMessage())
+                .build();
+        }
+        return result.toBuilder()
+            .output(resultEvent)
+            .capturedOutput(null)
+            .build();
+    }
+    
+    private boolean isResultEvent(String line) {
+        try {
+            return "result".equals(objectMapper.readTree(line).path("type").asText(null));
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * An enforcing inspector for a run whose stdout is the CLI's stream-json output, or null.
+     */
+    private OutputInspector inspector(ClaudeCliOptions options) {
+        if (!"stream-json".equals(options.getOutputFormat())
+            || options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.TMUX) {
+            return null;
+        }
+        return newInspector();
+    }
+    
+    private OutputInspector newInspector() {
+        ToolUseEnforcer enforcer = toolUseEnforcer.getIfAvailable();
+        return enforcer != null ? enforcer.newInspector() : null;
+    }
+    
+    /**
+     * Only self-contained requests are hedged: running a session turn or a file-writing
+     * request twice would not be idempotent.
+     */
+    private boolean isHedged(ClaudeCliOptions options) {
+        return hedgingExecutor.getIfAvailable() != null && RequestFingerprint.isSelfContained(options);
+    }
+    
+    @Override
+    public BatchExecution executeBatch(List<String> prompts, ClaudeCliOptions options, BatchOptions batchOptions) {
+        options = layered(options);
+        // PARALLEL describes the batch as a whole; each prompt is an ordinary direct execution
+        ClaudeCliOptions itemOptions = options.getExecutionMode() == ClaudeCliOptions.ExecutionMode.PARALLEL
+            ? options.overlay(DIRECT_OVERLAY)
+            : options;
+        return new BatchExecution(prompts, batchOptions, prompt -> executeAsync(prompt, itemOptions)).start();
     }
     
     @Override
@@ -64,26 +341,44 @@ public class ClaudeCliService implements ClaudeCliWrapper {
     
     @Override
     public void executeStream(String prompt, ClaudeCliOptions options, Consumer<String> streamConsumer) {
-        ClaudeCliOptions streamOptions = ClaudeCliOptions.builder()
-            .outputFormat("stream-json")
-            .build();
-        
-        if (options != null) {
-            streamOptions = mergeOptions(options, streamOptions);
-        }
-        
+        ClaudeCliOptions streamOptions = streamOptions(options);
         List<String> command = commandBuilder.buildCommand(prompt, streamOptions);
         
-        StringBuilder responseBuilder = new StringBuilder();
-        processExecutor.executeStream(command, streamOptions, 
-            line -> {
-                streamConsumer.accept(line);
-                responseBuilder.append(line).append("\n");
-            },
-            error -> log.error("Stream error: {}", error)
+        processExecutor.executeStream(command, streamOptions, streamConsumer,
+            error -> log.error("Stream error: {}", error),
+            inspector(streamOptions)
         );
     }
     
+    @Override
+    public Flow.Publisher<String> executePublisher(String prompt) {
+        return executePublisher(prompt, ClaudeCliOptions.builder().build());
+    }
+    
+    @Override
+    public Flow.Publisher<String> executePublisher(String prompt, ClaudeCliOptions options) {
+        ClaudeCliOptions streamOptions = streamOptions(options);
+        List<String> command = commandBuilder.buildCommand(prompt, streamOptions);
+        return processExecutor.executePublisher(command, streamOptions, inspector(streamOptions));
+    }
+    
+    private ClaudeCliOptions streamOptions(ClaudeCliOptions options) {
+        return layered(options).overlay(STREAM_OVERLAY);
+    }
+    
+    /**
+     * The request's options over the global defaults from {@link ClaudeCliProperties}. Options
+     * that were already layered, such as a session's, come back unchanged without a copy.
+     */
+    private ClaudeCliOptions layered(ClaudeCliOptions options) {
+        ClaudeCliOptions defaults = defaultOptions;
+        if (defaults == null) {
+            defaults = properties.toDefaultOptions();
+            defaultOptions = defaults;
+        }
+        return defaults.overlay(options);
+    }
+    
     @Override
     public ClaudeSession createSession(String sessionId) {
         return createSession(sessionId, ClaudeCliOptions.builder().build());
@@ -91,14 +386,24 @@ public class ClaudeCliService implements ClaudeCliWrapper {
     
     @Override
     public ClaudeSession createSession(String sessionId, ClaudeCliOptions defaultOptions) {
-        ClaudeSessionImpl session = new ClaudeSessionImpl(sessionId, defaultOptions);
-        sessions.put(sessionId, session);
-        return session;
+        return createSession(sessionId, null, defaultOptions);
+    }
+    
+    @Override
+    public ClaudeSession createSession(String sessionId, String userId, ClaudeCliOptions defaultOptions) {
+        return sessions.getOrCreate(sessionId, userId,
+            () -> new ClaudeSessionImpl(sessionId, defaultOptions),
+            () -> sessionStore.delete(sessionId));
+    }
+    
+    @Override
+    public ClaudeSession getSession(String sessionId) {
+        return sessions.get(sessionId);
     }
     
     @Override
     public void destroySession(String sessionId) {
-        ClaudeSessionImpl session = sessions.remove(sessionId);
+        ClaudeSession session = sessions.remove(sessionId);
         if (session != null) {
             session.close();
         }
@@ -106,69 +411,98 @@ public class ClaudeCliService implements ClaudeCliWrapper {
     
     @Override
     public boolean isSessionActive(String sessionId) {
-        ClaudeSessionImpl session = sessions.get(sessionId);
-        return session != null && session.isActive();
+        return sessions.isActive(sessionId);
+    }
+    
+    public int getActiveSessionCount() {
+        return sessions.size();
+    }
+    
+    public SessionRegistry.Stats getSessionStats() {
+        return sessions.getStats();
     }
     
     @PreDestroy
     public void cleanup() {
-        sessions.values().forEach(ClaudeSessionImpl::close);
-        sessions.clear();
         processExecutor.shutdown();
     }
     
     private ClaudeResponse buildResponse(String prompt, ProcessExecutor.ProcessResult result) {
-        ClaudeResponse.ResponseStatus status = result.getExitCode() == 0 
-            ? ClaudeResponse.ResponseStatus.SUCCESS 
+        ClaudeResponse.ResponseStatus status = result.getExitCode() == 0
+            ? ClaudeResponse.ResponseStatus.SUCCESS
             : ClaudeResponse.ResponseStatus.ERROR;
         
         if (result.isTimedOut()) {
             status = ClaudeResponse.ResponseStatus.TIMEOUT;
         }
         
-        return ClaudeResponse.builder()
+        if (result.isRejected()) {
+            status = ClaudeResponse.ResponseStatus.REJECTED;
+        }
+        
+        if (result.isCancelled()) {
+            status = ClaudeResponse.ResponseStatus.CANCELLED;
+        }
+        
+        if (result.getPolicyViolation() != null) {
+            status = ClaudeResponse.ResponseStatus.DENIED;
+        }
+        
+        // stream-json reports API errors in its result event while the CLI still exits 0
+        ClaudeResponse.FailureType failureType = FailureClassifier.classify(result);
+        if (status == ClaudeResponse.ResponseStatus.SUCCESS && failureType != null) {
+            status = ClaudeResponse.ResponseStatus.ERROR;
+        }
+        
+        // rawOutput is stdout as written, which for stream-json is the event stream, not the answer
+        CapturedOutput stdout = result.getCapturedOutput() != null
+            ? result.getCapturedOutput()
+            : CapturedOutput.of(result.getOutput());
+        ClaudeResponse.ClaudeResponseBuilder builder = ClaudeResponse.builder()
             .sessionId(UUID.randomUUID().toString())
             .prompt(prompt)
             .response(result.getOutput())
             .status(status)
             .timestamp(LocalDateTime.now())
-            .rawOutput(result.getOutput())
+            .rawOutput(stdout.getFile() != null ? null : stdout.toString())
             .errorOutput(result.getError())
             .exitCode(result.getExitCode())
-            .build();
+            .failureType(failureType)
+            .capturedOutput(stdout);
+        
+        StreamJsonTranscript transcript = result.getTranscript();
+        if (transcript != null) {
+            builder.toolCalls(transcript.getToolCalls())
+                .fileChanges(transcript.getFileChanges())
+                .commandExecutions(transcript.getCommandExecutions());
+        }
+        
+        return builder.build();
     }
     
-    private ClaudeCliOptions mergeOptions(ClaudeCliOptions base, ClaudeCliOptions overlay) {
-        return ClaudeCliOptions.builder()
-            .prompt(overlay.getPrompt() != null ? overlay.getPrompt() : base.getPrompt())
-            .model(overlay.getModel() != null ? overlay.getModel() : base.getModel())
-            .outputFormat(overlay.getOutputFormat() != null ? overlay.getOutputFormat() : base.getOutputFormat())
-            .apiKey(overlay.getApiKey() != null ? overlay.getApiKey() : base.getApiKey())
-            .apiUrl(overlay.getApiUrl() != null ? overlay.getApiUrl() : base.getApiUrl())
-            .dangerouslySkipPermissions(overlay.getDangerouslySkipPermissions() != null ? overlay.getDangerouslySkipPermissions() : base.getDangerouslySkipPermissions())
-            .continueMode(overlay.getContinueMode() != null ? overlay.getContinueMode() : base.getContinueMode())
-            .verbose(overlay.getVerbose() != null ? overlay.getVerbose() : base.getVerbose())
-            .streamJson(overlay.getStreamJson() != null ? overlay.getStreamJson() : base.getStreamJson())
-            .contextFile(overlay.getContextFile() != null ? overlay.getContextFile() : base.getContextFile())
-            .historyFile(overlay.getHistoryFile() != null ? overlay.getHistoryFile() : base.getHistoryFile())
-            .outputFile(overlay.getOutputFile() != null ? overlay.getOutputFile() : base.getOutputFile())
-            .maxTokens(overlay.getMaxTokens() != null ? overlay.getMaxTokens() : base.getMaxTokens())
-            .temperature(overlay.getTemperature() != null ? overlay.getTemperature() : base.getTemperature())
-            .additionalFlags(overlay.getAdditionalFlags() != null ? overlay.getAdditionalFlags() : base.getAdditionalFlags())
-            .environmentVariables(overlay.getEnvironmentVariables() != null ? overlay.getEnvironmentVariables() : base.getEnvironmentVariables())
-            .workingDirectory(overlay.getWorkingDirectory() != null ? overlay.getWorkingDirectory() : base.getWorkingDirectory())
-            .executionMode(overlay.getExecutionMode() != null ? overlay.getExecutionMode() : base.getExecutionMode())
-            .tmuxOptions(overlay.getTmuxOptions() != null ? overlay.getTmuxOptions() : base.getTmuxOptions())
-            .build();
+    /**
+     * One turn as it is kept in the session store and fed back to the CLI on later turns.
+     */
+    private static byte[] turn(String prompt, String response) {
+        return ("User: " + prompt + "\n\nAssistant: " + response + "\n\n").getBytes(StandardCharsets.UTF_8);
     }
     
-    @RequiredArgsConstructor
     private class ClaudeSessionImpl implements ClaudeSession {
         
         private final String sessionId;
-        private ClaudeCliOptions defaultOptions;
+        private final ClaudeCliOptions historyOverlay;
+        private volatile ClaudeCliOptions defaultOptions;
+        private volatile ClaudeCliOptions turnOptions;
         private volatile boolean active = true;
         
+        ClaudeSessionImpl(String sessionId, ClaudeCliOptions defaultOptions) {
+            this.sessionId = sessionId;
+            this.historyOverlay = recordsHistory()
+                ? ClaudeCliOptions.builder().standardInput(() -> sessionStore.read(sessionId)).build()
+                : null;
+            updateDefaultOptions(defaultOptions);
+        }
+        
         @Override
         public String getSessionId() {
             return sessionId;
@@ -176,53 +510,90 @@ public class ClaudeCliService implements ClaudeCliWrapper {
         
         @Override
         public ClaudeResponse send(String prompt) {
-            if (!active) {
-                throw new IllegalStateException("Session is closed");
+            ClaudeCliOptions options = turnOptions();
+            PinnedSessionWorkers pinned = pinnedWorkers(options);
+            Runnable turnEnded = turnStarted();
+            try {
+                ClaudeResponse response = pinned != null
+                    ? sendPinned(pinned, prompt, options, null).join()
+                    : execute(prompt, options);
+                record(prompt, response);
+                return response;
+            } finally {
+                turnEnded.run();
             }
-            
-            ClaudeCliOptions sessionOptions = ClaudeCliOptions.builder()
-                .historyFile(getHistoryFile())
-                .contextFile(getContextFile())
-                .build();
-            
-            ClaudeCliOptions mergedOptions = mergeOptions(defaultOptions, sessionOptions);
-            return execute(prompt, mergedOptions);
         }
         
         @Override
         public CompletableFuture<ClaudeResponse> sendAsync(String prompt) {
-            if (!active) {
-                throw new IllegalStateException("Session is closed");
+            ClaudeCliOptions options = turnOptions();
+            PinnedSessionWorkers pinned = pinnedWorkers(options);
+            Runnable turnEnded = turnStarted();
+            CompletableFuture<ClaudeResponse> execution;
+            try {
+                execution = pinned != null
+                    ? sendPinned(pinned, prompt, options, null)
+                    : executeAsync(prompt, options);
+            } catch (RuntimeException e) {
+                turnEnded.run();
+                throw e;
             }
-            
-            ClaudeCliOptions sessionOptions = ClaudeCliOptions.builder()
-                .historyFile(getHistoryFile())
-                .contextFile(getContextFile())
-                .build();
-            
-            ClaudeCliOptions mergedOptions = mergeOptions(defaultOptions, sessionOptions);
-            return executeAsync(prompt, mergedOptions);
+            return execution.thenApply(response -> {
+                record(prompt, response);
+                return response;
+            }).whenComplete((response, error) -> turnEnded.run());
         }
         
         @Override
         public void sendStream(String prompt, Consumer<String> streamConsumer) {
-            if (!active) {
-                throw new IllegalStateException("Session is closed");
+            ClaudeCliOptions options = turnOptions();
+            PinnedSessionWorkers pinned = pinnedWorkers(options);
+            Runnable turnEnded = turnStarted();
+            try {
+                if (pinned != null) {
+                    record(prompt, sendPinned(pinned, prompt, options, streamConsumer).join());
+                    return;
+                }
+                
+                TurnRecorder recorder = new TurnRecorder(prompt);
+                executeStream(prompt, options, line -> {
+                    recorder.accept(line);
+                    streamConsumer.accept(line);
+                });
+                recorder.finish();
+            } finally {
+                turnEnded.run();
+            }
+        }
+        
+        @Override
+        public Flow.Publisher<String> sendPublisher(String prompt) {
+            ClaudeCliOptions options = turnOptions();
+            PinnedSessionWorkers pinned = pinnedWorkers(options);
+            if (pinned != null) {
+                return subscriber -> publishPinned(pinned, prompt, options, subscriber);
             }
             
-            ClaudeCliOptions sessionOptions = ClaudeCliOptions.builder()
-                .historyFile(getHistoryFile())
-                .contextFile(getContextFile())
-                .build();
-            
-            ClaudeCliOptions mergedOptions = mergeOptions(defaultOptions, sessionOptions);
-            executeStream(prompt, mergedOptions, streamConsumer);
+            Flow.Publisher<String> publisher = executePublisher(prompt, options);
+            return subscriber -> publisher.subscribe(
+                new RecordingSubscriber(subscriber, new TurnRecorder(prompt), turnStarted()));
         }
         
+        /**
+         * Closing twice does nothing, so a reference kept after the session was closed or
+         * expired cannot release the pinned process of a newer session with the same id.
+         */
         @Override
-        public void close() {
+        public synchronized void close() {
+            if (!active) {
+                return;
+            }
             active = false;
-            sessions.remove(sessionId);
+            sessions.remove(sessionId, this);
+            PinnedSessionWorkers pinned = pinnedSessionWorkers.getIfAvailable();
+            if (pinned != null) {
+                pinned.release(sessionId);
+            }
         }
         
         @Override
@@ -236,16 +607,179 @@ public class ClaudeCliService implements ClaudeCliWrapper {
         }
         
         @Override
-        public void updateDefaultOptions(ClaudeCliOptions options) {
+        public synchronized void updateDefaultOptions(ClaudeCliOptions options) {
             this.defaultOptions = options;
+            this.turnOptions = layered(options).overlay(historyOverlay);
+        }
+        
+        /**
+         * The session's options over the global defaults, with its history so far piped to the
+         * CLI's stdin. They are resolved once and shared by every turn until the defaults change.
+         */
+        private ClaudeCliOptions turnOptions() {
+            if (!active) {
+                throw new IllegalStateException("Session is closed");
+            }
+            return turnOptions;
+        }
+        
+        /**
+         * Keeps the session from going idle until the returned callback runs; running it again
+         * does nothing.
+         */
+        private Runnable turnStarted() {
+            sessions.turnStarted(sessionId, this);
+            AtomicBoolean ended = new AtomicBoolean();
+            return () -> {
+                if (ended.compareAndSet(false, true)) {
+                    sessions.turnEnded(sessionId, this);
+                }
+            };
+        }
+        
+        private PinnedSessionWorkers pinnedWorkers(ClaudeCliOptions options) {
+            PinnedSessionWorkers pinned = pinnedSessionWorkers.getIfAvailable();
+            return pinned != null && pinned.accepts(options) ? pinned : null;
+        }
+        
+        /**
+         * Runs the turn on the session's pinned process, which keeps the conversation itself;
+         * the stored history is only sent when a process starts with nothing to resume.
+         */
+        private CompletableFuture<ClaudeResponse> sendPinned(PinnedSessionWorkers pinned, String prompt,
+                                                             ClaudeCliOptions options, Consumer<String> lines) {
+            return pinned.send(sessionId, prompt, options, options.getStandardInput(), lines, newInspector())
+                .thenApply(result -> {
+                    ClaudeResponse response = buildResponse(prompt, result);
+                    metrics.recordResponse(options, response);
+                    return response;
+                });
+        }
+        
+        /**
+         * Lines are buffered per subscriber and the pinned process is not read further while
+         * the buffer is full; cancelling the subscription kills the process.
+         */
+        private void publishPinned(PinnedSessionWorkers pinned, String prompt, ClaudeCliOptions options,
+                                   Flow.Subscriber<? super String> subscriber) {
+            SubmissionPublisher<String> lines = new SubmissionPublisher<>();
+            lines.subscribe(subscriber);
+            Runnable turnEnded = turnStarted();
+            AtomicReference<CompletableFuture<?>> turn = new AtomicReference<>();
+            turn.set(sendPinned(pinned, prompt, options, line -> {
+                if (lines.hasSubscribers()) {
+                    lines.submit(line);
+                } else if (turn.get() != null) {
+                    turn.get().cancel(true);
+                }
+            }).whenComplete((response, error) -> {
+                if (error != null) {
+                    lines.closeExceptionally(error);
+                } else if (response.getStatus() != ClaudeResponse.ResponseStatus.SUCCESS) {
+                    lines.closeExceptionally(new IllegalStateException("Claude CLI turn failed: " + response.getErrorOutput()));
+                } else {
+                    record(prompt, response);
+                    lines.close();
+                }
+            }).whenComplete((response, error) -> turnEnded.run()));
+        }
+        
+        private boolean recordsHistory() {
+            return Boolean.TRUE.equals(properties.getSession().getPersistHistory());
+        }
+        
+        private void record(String prompt, ClaudeResponse response) {
+            if (response.getStatus() != ClaudeResponse.ResponseStatus.SUCCESS) {
+                return;
+            }
+            // Output sent to a caller's outputFile is theirs; it is not read back into history
+            record(prompt, response.getResponse());
+        }
+        
+        private void record(String prompt, String response) {
+            if (response != null && recordsHistory()) {
+                sessionStore.append(sessionId, turn(prompt, response));
+            }
+        }
+        
+        /**
+         * Picks the final answer out of a stream-json turn so it can be added to the history.
+         */
+        private class TurnRecorder implements Consumer<String> {
+            
+            private final String prompt;
+            private final StreamJsonParser parser = new StreamJsonParser(objectMapper);
+            private String result;
+            
+            TurnRecorder(String prompt) {
+                this.prompt = prompt;
+            }
+            
+            @Override
+            public void accept(String line) {
+                parser.parseLine(line, event -> {
+                    if (event instanceof StreamJsonEvent.Result done && !done.isError()) {
+                        result = done.getResult();
+                    }
+                });
+            }
+            
+            void finish() {
+                record(prompt, result);
+            }
         }
+    }
+    
+    private static class RecordingSubscriber implements Flow.Subscriber<String> {
         
-        private String getHistoryFile() {
-            return "/tmp/claude-session-" + sessionId + ".history";
+        private final Flow.Subscriber<? super String> downstream;
+        private final ClaudeSessionImpl.TurnRecorder recorder;
+        private final Runnable turnEnded;
+        
+        RecordingSubscriber(Flow.Subscriber<? super String> downstream, ClaudeSessionImpl.TurnRecorder recorder,
+                            Runnable turnEnded) {
+            this.downstream = downstream;
+            this.recorder = recorder;
+            this.turnEnded = turnEnded;
         }
         
-        private String getContextFile() {
-            return "/tmp/claude-session-" + sessionId + ".context";
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    subscription.request(n);
+                }
+                
+                @Override
+                public void cancel() {
+                    turnEnded.run();
+                    subscription.cancel();
+                }
+            });
+        }
+        
+        @Override
+        public void onNext(String line) {
+            recorder.accept(line);
+            downstream.onNext(line);
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            turnEnded.run();
+            downstream.onError(throwable);
+        }
+        
+        @Override
+        public void onComplete() {
+            try {
+                recorder.finish();
+            } catch (RuntimeException e) {
+                log.warn("Failed to record session turn: {}", e.getMessage());
+            }
+            turnEnded.run();
+            downstream.onComplete();
         }
     }
 }
\ No newline at end of file
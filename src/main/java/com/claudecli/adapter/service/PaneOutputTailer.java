@@ -0,0 +1,281 @@
+package com.claudecli.adapter.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the log files that tmux {@code pipe-pane} writes pane output to. One thread waits on
+ * a {@link WatchService} for the files' directories, polling as well in case the file system
+ * does not report changes, and reads only the bytes past each file's last offset. A tail reads
+ * nothing while its publisher has no subscribers or they are not keeping up, so unread output
+ * stays in the file rather than on the heap.
+ */
+@Slf4j
+class PaneOutputTailer {
+    
+    private static final int CHUNK_BYTES = 64 * 1024;
+    
+    private final long pollIntervalMillis;
+    private final Map<String, Tail> tails = new ConcurrentHashMap<>();
+    private final Queue<Tail> replaced = new ConcurrentLinkedQueue<>();
+    private final Map<Path, WatchKey> watchedDirectories = new HashMap<>();
+    private final WatchService watchService;
+    
+    private volatile boolean closed;
+    
+    PaneOutputTailer(long pollIntervalMillis) throws IOException {
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Thread thread = new Thread(this::run, "claude-cli-pane-tailer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * The publisher of output appended to {@code logFile} for this session, starting a tail at
+     * the beginning of the file if there is none yet.
+     */
+    Flow.Publisher<String> follow(String sessionName, Path logFile) {
+        Path file = logFile.toAbsolutePath().normalize();
+        Tail tail = tails.compute(sessionName, (name, existing) -> {
+            if (existing != null && existing.file.equals(file) && !existing.ending) {
+                return existing;
+            }
+            if (existing != null) {
+                replaced.add(existing);
+            }
+            return new Tail(file);
+        });
+        watch(file.getParent());
+        return tail.publisher;
+    }
+    
+    Flow.Publisher<String> publisher(String sessionName) {
+        Tail tail = tails.get(sessionName);
+        return tail != null ? tail.publisher : null;
+    }
+    
+    /**
+     * Completes the session's publisher once its subscribers have read what is in the file.
+     */
+    void end(String sessionName) {
+        Tail tail = tails.get(sessionName);
+        if (tail != null) {
+            tail.ending = true;
+        }
+    }
+    
+    void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("Failed to close pane output watch service", e);
+        }
+    }
+    
+    private void watch(Path directory) {
+        synchronized (watchedDirectories) {
+            if (directory == null || watchedDirectories.containsKey(directory)) {
+                return;
+            }
+            try {
+                watchedDirectories.put(directory, directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY));
+            } catch (IOException | ClosedWatchServiceException e) {
+                // Polling still picks the file up once the directory exists
+                log.debug("Cannot watch {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+    
+    private void run() {
+        Set<Path> changed = new HashSet<>();
+        Set<Path> created = new HashSet<>();
+        try {
+            while (!closed) {
+                WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                boolean tick = key == null;
+                while (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.context() instanceof Path name) {
+                            Path file = directory.resolve(name);
+                            changed.add(file);
+                            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                                created.add(file);
+                            }
+                        } else {
+                            // Overflow: events were lost, so look at every file
+                            tick = true;
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll();
+                }
+                
+                for (Tail tail; (tail = replaced.poll()) != null; ) {
+                    tail.finish();
+                }
+                for (Map.Entry<String, Tail> entry : tails.entrySet()) {
+                    Tail tail = entry.getValue();
+                    if (created.contains(tail.file)) {
+                        tail.reopen();
+                    }
+                    if (tick || tail.ending || tail.backlogged || changed.contains(tail.file)) {
+                        tail.pump();
+                    }
+                    if (tail.ending && tail.finishIfDrained()) {
+                        tails.remove(entry.getKey(), tail);
+                        unwatchUnused(tail.file.getParent());
+                    }
+                }
+                changed.clear();
+                created.clear();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closing
+        } finally {
+            replaced.forEach(Tail::finish);
+            tails.values().forEach(Tail::finish);
+            tails.clear();
+        }
+    }
+    
+    private void unwatchUnused(Path directory) {
+        for (Tail tail : tails.values()) {
+            if (tail.file.getParent().equals(directory)) {
+                return;
+            }
+        }
+        synchronized (watchedDirectories) {
+            WatchKey key = watchedDirectories.remove(directory);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+    }
+    
+    /**
+     * Read position and decoder state for one log file. Only touched by the tailer thread,
+     * apart from {@code ending}.
+     */
+    private static final class Tail {
+        
+        final Path file;
+        final SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+        final ByteBuffer bytes = ByteBuffer.allocate(CHUNK_BYTES);
+        final CharBuffer chars = CharBuffer.allocate(CHUNK_BYTES);
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        
+        FileChannel channel;
+        long offset;
+        long size;
+        boolean backlogged;
+        volatile boolean ending;
+        
+        Tail(Path file) {
+            this.file = file;
+        }
+        
+        void pump() {
+            if (!publisher.hasSubscribers()) {
+                return;
+            }
+            try {
+                if (channel == null) {
+                    if (!Files.exists(file)) {
+                        return;
+                    }
+                    channel = FileChannel.open(file, StandardOpenOption.READ);
+                }
+                size = channel.size();
+                if (size < offset) {
+                    // Truncated, e.g. by a new pipe-pane on the same file
+                    rewind();
+                }
+                backlogged = false;
+                while (offset < size) {
+                    if (publisher.estimateMaximumLag() >= publisher.getMaxBufferCapacity()) {
+                        backlogged = true;
+                        return;
+                    }
+                    int read = channel.read(bytes, offset);
+                    if (read <= 0) {
+                        return;
+                    }
+                    offset += read;
+                    bytes.flip();
+                    decoder.decode(bytes, chars, false);
+                    bytes.compact();
+                    chars.flip();
+                    if (chars.hasRemaining()) {
+                        publisher.submit(chars.toString());
+                    }
+                    chars.clear();
+                }
+            } catch (IOException e) {
+                log.debug("Failed to read pane log {}", file, e);
+                closeChannel();
+            }
+        }
+        
+        /**
+         * The file was created again, so any open channel reads a file that is gone.
+         */
+        void reopen() {
+            closeChannel();
+            rewind();
+        }
+        
+        boolean finishIfDrained() {
+            if (publisher.hasSubscribers() && offset < size) {
+                return false;
+            }
+            finish();
+            return true;
+        }
+        
+        void finish() {
+            publisher.close();
+            closeChannel();
+        }
+        
+        private void rewind() {
+            offset = 0;
+            bytes.clear();
+            decoder.reset();
+        }
+        
+        private void closeChannel() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close pane log {}", file, e);
+                }
+                channel = null;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,313 @@
+package com.claudecli.adapter.service;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.core.ClaudeCliWrapper.ClaudeSession;
+import com.claudecli.adapter.core.SessionLimitExceededException;
+import com.claudecli.adapter.core.SessionOwnershipException;
+import com.claudecli.adapter.util.HashedWheelTimer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Live sessions by id, bounded in total and per user, and expired after an idle timeout or an
+ * absolute TTL. A lookup is a map read and a volatile write of the access time; each session
+ * has at most one pending expiry check on a shared {@link HashedWheelTimer}, which re-arms
+ * itself when the session has been used since it was scheduled. A session with a turn in
+ * flight is never idle; its idle time starts again when its last turn ends.
+ */
+@Slf4j
+public class SessionRegistry {
+    
+    public enum RemovalCause {
+        CLOSED, IDLE, EXPIRED, SHUTDOWN
+    }
+    
+    private final long idleNanos;
+    private final long ttlNanos;
+    private final int maxSessions;
+    private final int maxSessionsPerUser;
+    private final Executor cleanupExecutor;
+    private final HashedWheelTimer timer;
+    
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> userCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong ttlEvictions = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    
+    public SessionRegistry(ClaudeCliProperties.SessionConfig config, Executor cleanupExecutor) {
+        this.idleNanos = positiveNanos(config.getIdleTimeoutSeconds());
+        this.ttlNanos = positiveNanos(config.getTtlSeconds());
+        this.maxSessions = config.getMaxSessions() != null ? config.getMaxSessions() : Integer.MAX_VALUE;
+        this.maxSessionsPerUser = config.getMaxSessionsPerUser() != null
+            ? config.getMaxSessionsPerUser() : Integer.MAX_VALUE;
+        this.cleanupExecutor = cleanupExecutor;
+        this.timer = new HashedWheelTimer("claude-cli-session-expiry", config.getExpiryTickMillis(),
+            TimeUnit.MILLISECONDS, 512);
+    }
+    
+    /**
+     * Returns the live session with this id, marking it as used, or null.
+     */
+    public ClaudeSession get(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        RemovalCause expired = entry.expiredAt(now);
+        if (expired != null) {
+            evict(entry, expired);
+            return null;
+        }
+        entry.lastAccess = now;
+        return entry.session;
+    }
+    
+    /**
+     * Marks the start of a turn on this session, which keeps it from going idle until the
+     * matching {@link #turnEnded}. Does nothing if {@code session} is no longer the one
+     * registered under its id.
+     */
+    public void turnStarted(String sessionId, ClaudeSession session) {
+        Entry entry = sessions.get(sessionId);
+        if (entry != null && entry.session == session) {
+            entry.turns.incrementAndGet();
+            entry.lastAccess = System.nanoTime();
+        }
+    }
+    
+    public void turnEnded(String sessionId, ClaudeSession session) {
+        Entry entry = sessions.get(sessionId);
+        if (entry != null && entry.session == session) {
+            entry.lastAccess = System.nanoTime();
+            entry.turns.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Returns the existing session with this id, or registers the one {@code factory} creates.
+     * An existing session keeps the options it was created with; {@code factory} is only
+     * called when there is none, and a session it creates that loses a race to register is
+     * discarded without being closed, so creating one must not acquire anything.
+     * {@code cleanup} runs on the cleanup executor once the session is closed or expires, but
+     * not when the registry shuts down.
+     *
+     * @throws SessionLimitExceededException if the total or per-user limit is reached
+     * @throws SessionOwnershipException if the id belongs to a different user
+     */
+    public ClaudeSession getOrCreate(String sessionId, String userId, Supplier<? extends ClaudeSession> factory,
+                                     Runnable cleanup) {
+        while (true) {
+            Entry existing = sessions.get(sessionId);
+            if (existing != null) {
+                if (userId != null && existing.userId != null && !userId.equals(existing.userId)) {
+                    throw new SessionOwnershipException("Session " + sessionId + " belongs to another user");
+                }
+                ClaudeSession session = get(sessionId);
+                if (session != null) {
+                    return session;
+                }
+                continue;
+            }
+            
+            reserve(userId);
+            Entry entry = new Entry(sessionId, userId, factory.get(), cleanup);
+            Entry raced = sessions.putIfAbsent(sessionId, entry);
+            if (raced != null) {
+                release(userId);
+                continue;
+            }
+            createdCount.incrementAndGet();
+            schedule(entry, Math.min(idleNanos, ttlNanos));
+            return entry.session;
+        }
+    }
+    
+    /**
+     * Removes the session if it is still the one registered under its id.
+     */
+    public boolean remove(String sessionId, ClaudeSession session) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null && entry.session == session && unregister(entry, RemovalCause.CLOSED);
+    }
+    
+    public ClaudeSession remove(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null && unregister(entry, RemovalCause.CLOSED) ? entry.session : null;
+    }
+    
+    /**
+     * Whether a live session has this id, without counting as a use of it.
+     */
+    public boolean isActive(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null && entry.expiredAt(System.nanoTime()) == null;
+    }
+    
+    public int size() {
+        return size.get();
+    }
+    
+    /**
+     * Closes every session and stops the expiry timer.
+     */
+    public void shutdown() {
+        timer.stop();
+        for (Entry entry : new ArrayList<>(sessions.values())) {
+            evict(entry, RemovalCause.SHUTDOWN);
+        }
+    }
+    
+    public Stats getStats() {
+        return Stats.builder()
+            .activeSessions(size.get())
+            .maxSessions(maxSessions)
+            .createdCount(createdCount.get())
+            .idleEvictions(idleEvictions.get())
+            .ttlEvictions(ttlEvictions.get())
+            .rejectedCount(rejectedCount.get())
+            .build();
+    }
+    
+    private void reserve(String userId) {
+        if (size.incrementAndGet() > maxSessions) {
+            size.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new SessionLimitExceededException("Session limit of " + maxSessions + " reached");
+        }
+        if (userId != null) {
+            AtomicInteger count = userCounts.computeIfAbsent(userId, u -> new AtomicInteger());
+            if (count.incrementAndGet() > maxSessionsPerUser) {
+                count.decrementAndGet();
+                size.decrementAndGet();
+                rejectedCount.incrementAndGet();
+                throw new SessionLimitExceededException(
+                    "User " + userId + " already has " + maxSessionsPerUser + " sessions");
+            }
+        }
+    }
+    
+    private void release(String userId) {
+        size.decrementAndGet();
+        if (userId != null) {
+            userCounts.computeIfPresent(userId, (u, count) -> count.decrementAndGet() <= 0 ? null : count);
+        }
+    }
+    
+    private void schedule(Entry entry, long delayNanos) {
+        if (delayNanos == Long.MAX_VALUE) {
+            return;
+        }
+        try {
+            entry.expiry = timer.newTimeout(() -> checkExpiry(entry), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (IllegalStateException e) {
+            // Shutting down
+        }
+    }
+    
+    private void checkExpiry(Entry entry) {
+        long now = System.nanoTime();
+        RemovalCause expired = entry.expiredAt(now);
+        if (expired != null) {
+            evict(entry, expired);
+        } else if (sessions.get(entry.sessionId) == entry) {
+            schedule(entry, entry.nextDeadline(now) - now);
+        }
+    }
+    
+    private void evict(Entry entry, RemovalCause cause) {
+        if (unregister(entry, cause)) {
+            log.debug("Session {} removed: {}", entry.sessionId, cause);
+            entry.session.close();
+        }
+    }
+    
+    private boolean unregister(Entry entry, RemovalCause cause) {
+        if (!sessions.remove(entry.sessionId, entry)) {
+            return false;
+        }
+        release(entry.userId);
+        HashedWheelTimer.Timeout expiry = entry.expiry;
+        if (expiry != null) {
+            expiry.cancel();
+        }
+        if (cause == RemovalCause.IDLE) {
+            idleEvictions.incrementAndGet();
+        } else if (cause == RemovalCause.EXPIRED) {
+            ttlEvictions.incrementAndGet();
+        }
+        // Persisted state outlives a restart; only sessions that end are cleaned up
+        if (entry.cleanup != null && cause != RemovalCause.SHUTDOWN) {
+            try {
+                cleanupExecutor.execute(entry.cleanup);
+            } catch (RuntimeException e) {
+                // Executor already shut down; clean up on this thread instead
+                entry.cleanup.run();
+            }
+        }
+        return true;
+    }
+    
+    private static long positiveNanos(Long seconds) {
+        return seconds != null && seconds > 0 ? TimeUnit.SECONDS.toNanos(seconds) : Long.MAX_VALUE;
+    }
+    
+    private final class Entry {
+        
+        final String sessionId;
+        final String userId;
+        final ClaudeSession session;
+        final Runnable cleanup;
+        final long createdAt = System.nanoTime();
+        final AtomicInteger turns = new AtomicInteger();
+        volatile long lastAccess = createdAt;
+        volatile HashedWheelTimer.Timeout expiry;
+        
+        Entry(String sessionId, String userId, ClaudeSession session, Runnable cleanup) {
+            this.sessionId = sessionId;
+            this.userId = userId;
+            this.session = session;
+            this.cleanup = cleanup;
+        }
+        
+        RemovalCause expiredAt(long now) {
+            if (ttlNanos != Long.MAX_VALUE && now - createdAt >= ttlNanos) {
+                return RemovalCause.EXPIRED;
+            }
+            if (idleNanos != Long.MAX_VALUE && turns.get() == 0 && now - lastAccess >= idleNanos) {
+                return RemovalCause.IDLE;
+            }
+            return null;
+        }
+        
+        long nextDeadline(long now) {
+            long idleDeadline = idleNanos == Long.MAX_VALUE ? Long.MAX_VALUE
+                : turns.get() > 0 ? now + idleNanos
+                : lastAccess + idleNanos;
+            long ttlDeadline = ttlNanos != Long.MAX_VALUE ? createdAt + ttlNanos : Long.MAX_VALUE;
+            return Math.min(idleDeadline, ttlDeadline);
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final int activeSessions;
+        private final int maxSessions;
+        private final long createdCount;
+        private final long idleEvictions;
+        private final long ttlEvictions;
+        private final long rejectedCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package com.claudecli.adapter.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * One {@code tmux -C} control-mode client. Commands are written to its stdin one per line and
+ * tmux answers each, in order, with a {@code %begin ... %end} (or {@code %error}) block on
+ * stdout; notifications such as {@code %sessions-changed} arrive between blocks.
+ */
+@Slf4j
+class TmuxControlClient {
+    
+    interface Listener {
+        
+        void sessionsChanged();
+        
+        void closed(TmuxControlClient client);
+    }
+    
+    private final Process process;
+    private final BufferedWriter stdin;
+    private final BufferedReader stdout;
+    private final Listener listener;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private boolean closed;
+    
+    private TmuxControlClient(Process process, Listener listener) {
+        this.process = process;
+        this.listener = listener;
+        this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Starts a control client attached to the session named {@code controlSession}, creating it
+     * if needed, and waits for tmux to acknowledge it.
+     */
+    static TmuxControlClient connect(String controlSession, Listener listener, long timeoutMillis)
+            throws IOException {
+        ProcessBuilder pb = new ProcessBuilder("tmux", "-C", "new-session", "-A", "-s", controlSession);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        TmuxControlClient client = new TmuxControlClient(pb.start(), listener);
+        
+        // The command given on the command line is answered like any other
+        Pending started = new Pending("new-session", null);
+        client.pending.add(started);
+        Thread reader = new Thread(client::readLoop, "claude-cli-tmux-control");
+        reader.setDaemon(true);
+        reader.start();
+        
+        try {
+            Reply reply = started.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (reply.isError()) {
+                throw new IOException("tmux refused control session: " + reply.getOutput());
+            }
+            // Without a client attached the control session is not needed, even if we crash
+            client.send(List.of("set-option", "-t", controlSession, "destroy-unattached", "on"), null);
+            return client;
+        } catch (Exception e) {
+            client.close();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw e instanceof IOException io ? io : new IOException("tmux control mode unavailable", e);
+        }
+    }
+    
+    /**
+     * Queues a command. {@code onReply}, when given, runs on the reader thread before the
+     * future completes, so it sees replies in the order tmux executed the commands.
+     */
+    CompletableFuture<Reply> send(List<String> args, Consumer<Reply> onReply) {
+        Pending request = new Pending(args.get(0), onReply);
+        synchronized (pending) {
+            if (closed) {
+                request.future.completeExceptionally(new IOException("tmux control connection closed"));
+                return request.future;
+            }
+            pending.add(request);
+            try {
+                stdin.write(commandLine(args));
+                stdin.newLine();
+                stdin.flush();
+            } catch (IOException e) {
+                pending.removeLast();
+                request.future.completeExceptionally(e);
+                process.destroy();
+            }
+        }
+        return request.future;
+    }
+    
+    boolean isOpen() {
+        synchronized (pending) {
+            return !closed;
+        }
+    }
+    
+    void close() {
+        try {
+            stdin.close();
+        } catch (IOException e) {
+            log.debug("Failed to close tmux control stdin", e);
+        }
+        process.destroy();
+    }
+    
+    private void readLoop() {
+        String blockMarker = null;
+        List<String> output = new ArrayList<>();
+        try {
+            String line;
+            while ((line = stdout.readLine()) != null) {
+                if (blockMarker != null) {
+                    boolean end = line.startsWith("%end ");
+                    if ((end || line.startsWith("%error ")) && line.endsWith(blockMarker)) {
+                        complete(new Reply(List.copyOf(output), !end));
+                        blockMarker = null;
+                        output.clear();
+                    } else {
+                        output.add(line);
+                    }
+                } else if (line.startsWith("%begin ")) {
+                    // %end and %error repeat the time, command number and flags of their %begin
+                    blockMarker = line.substring("%begin".length());
+                } else if (line.startsWith("%sessions-changed")) {
+                    listener.sessionsChanged();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("tmux control connection failed", e);
+        } finally {
+            List<Pending> abandoned;
+            synchronized (pending) {
+                closed = true;
+                abandoned = new ArrayList<>(pending);
+                pending.clear();
+            }
+            IOException closedException = new IOException("tmux control connection closed");
+            abandoned.forEach(request -> request.future.completeExceptionally(closedException));
+            process.destroy();
+            listener.closed(this);
+        }
+    }
+    
+    private void complete(Reply reply) {
+        Pending request;
+        synchronized (pending) {
+            request = pending.poll();
+        }
+        if (request == null) {
+            log.debug("Unexpected tmux control reply: {}", reply.getOutput());
+            return;
+        }
+        if (request.onReply != null) {
+            try {
+                request.onReply.accept(reply);
+            } catch (RuntimeException e) {
+                log.warn("tmux {} reply handler failed", request.command, e);
+            }
+        }
+        request.future.complete(reply);
+    }
+    
+    static String commandLine(List<String> args) {
+        StringBuilder line = new StringBuilder();
+        for (String arg : args) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append('"');
+            for (int i = 0; i < arg.length(); i++) {
+                char c = arg.charAt(i);
+                switch (c) {
+                    case '"', '\\', '$' -> line.append('\\').append(c);
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+            line.append('"');
+        }
+        return line.toString();
+    }
+    
+    private static final class Pending {
+        
+        final String command;
+        final Consumer<Reply> onReply;
+        final CompletableFuture<Reply> future = new CompletableFuture<>();
+        
+        Pending(String command, Consumer<Reply> onReply) {
+            this.command = command;
+            this.onReply = onReply;
+        }
+    }
+    
+    @lombok.Data
+    @lombok.AllArgsConstructor
+    static class Reply {
+        private final List<String> lines;
+        private final boolean error;
+        
+        String getOutput() {
+            return String.join("\n", lines);
+        }
+    }
+}
\ No newline at end of file
@@ -1,23 +1,98 @@
 package com.claudecli.adapter.service;
 
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.core.ClaudeCliCommandBuilder;
 import com.claudecli.adapter.core.ProcessExecutor;
+import com.claudecli.adapter.metrics.ClaudeCliMetrics;
 import com.claudecli.adapter.model.ClaudeCliOptions;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+/**
+ * Runs tmux commands over one persistent {@code tmux -C} control-mode connection, and keeps
+ * the set of existing sessions from its {@code %sessions-changed} notifications so existence
+ * checks do not run tmux at all. Falls back to forking {@code tmux} per command while control
+ * mode is disabled or unavailable.
+ *
+ * <p>Pane output piped to a log file with {@code pipe-pane} can be followed as a stream of new
+ * output instead of polling {@link #capturePane}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class TmuxSessionManager {
     
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000;
+    private static final List<String> LIST_SESSIONS = List.of("list-sessions", "-F", "#{session_name}");
+    
     private final ProcessExecutor processExecutor;
+    private final ClaudeCliProperties.TmuxConfig config;
+    private final ClaudeCliOptions tmuxOptions;
+    private final String controlSessionName;
     private final Map<String, TmuxSession> activeSessions = new ConcurrentHashMap<>();
+    private final Object connectLock = new Object();
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private final AtomicLong controlCommandCount = new AtomicLong();
+    private final AtomicLong forkedCommandCount = new AtomicLong();
+    private final AtomicLong connectCount = new AtomicLong();
+    private final TmuxControlClient.Listener controlListener = new TmuxControlClient.Listener() {
+        @Override
+        public void sessionsChanged() {
+            TmuxControlClient client = control;
+            if (client != null && refreshQueued.compareAndSet(false, true)) {
+                client.send(LIST_SESSIONS, TmuxSessionManager.this::sessionsListed);
+            }
+        }
+        
+        @Override
+        public void closed(TmuxControlClient client) {
+            if (control == client) {
+                control = null;
+                if (!shutdown) {
+                    log.info("tmux control connection closed");
+                }
+            }
+        }
+    };
+    
+    // Only replaced from the control client's reader thread, in the order tmux ran the commands
+    private volatile Set<String> knownSessions = Set.of();
+    private volatile TmuxControlClient control;
+    private volatile long nextConnectAt;
+    private volatile boolean shutdown;
+    private PaneOutputTailer tailer;
+    private ClaudeCliMetrics metrics = ClaudeCliMetrics.NOOP;
+    
+    public TmuxSessionManager(ProcessExecutor processExecutor, ClaudeCliProperties properties) {
+        this.processExecutor = processExecutor;
+        this.config = properties.getTmux();
+        this.tmuxOptions = ClaudeCliOptions.builder()
+            .timeout(Duration.ofMillis(config.getCommandTimeoutMillis()))
+            .build();
+        this.controlSessionName = config.getDefaultSessionPrefix() + "control-" + ProcessHandle.current().pid();
+    }
+    
+    @Autowired(required = false)
+    public void setMetrics(ClaudeCliMetrics metrics) {
+        this.metrics = metrics;
+    }
     
     public TmuxSession createSession(String sessionName, ClaudeCliOptions.TmuxOptions options) {
         if (sessionExists(sessionName)) {
@@ -35,19 +110,37 @@ public class TmuxSessionManager {
             );
         }
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(createCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = runTmux(createCommand, reply -> sessionAdded(sessionName));
         
         if (result.getExitCode() == 0) {
             TmuxSession session = new TmuxSession(sessionName, options);
             activeSessions.put(sessionName, session);
             log.info("Created tmux session: {}", sessionName);
+            if (options.getLogFile() != null) {
+                try {
+                    pipePane(sessionName, options.getLogFile());
+                } catch (RuntimeException e) {
+                    // The caller never gets the session, so nobody else would kill it
+                    discard(sessionName, e);
+                    throw e;
+                }
+            }
             return session;
         } else {
             throw new RuntimeException("Failed to create tmux session: " + result.getError());
         }
     }
     
+    private void discard(String sessionName, RuntimeException cause) {
+        try {
+            killSession(sessionName);
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+        } finally {
+            activeSessions.remove(sessionName);
+        }
+    }
+    
     public void sendCommand(String sessionName, String command) {
         if (!sessionExists(sessionName)) {
             throw new IllegalArgumentException("Tmux session does not exist: " + sessionName);
@@ -57,14 +150,18 @@ public class TmuxSessionManager {
             "tmux", "send-keys", "-t", sessionName, command, "Enter"
         );
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(sendCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = runTmux(sendCommand);
         
         if (result.getExitCode() != 0) {
             log.error("Failed to send command to tmux session {}: {}", sessionName, result.getError());
         }
     }
     
+    public CompletableFuture<Void> sendCommandAsync(String sessionName, String command) {
+        return CompletableFuture.runAsync(() -> sendCommand(sessionName, command),
+            processExecutor.getExecutorService());
+    }
+    
     public String capturePane(String sessionName) {
         if (!sessionExists(sessionName)) {
             throw new IllegalArgumentException("Tmux session does not exist: " + sessionName);
@@ -74,8 +171,7 @@ public class TmuxSessionManager {
             "tmux", "capture-pane", "-t", sessionName, "-p"
         );
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(captureCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = runTmux(captureCommand);
         
         if (result.getExitCode() == 0) {
             return result.getOutput();
@@ -85,6 +181,59 @@ public class TmuxSessionManager {
         }
     }
     
+    public CompletableFuture<String> capturePaneAsync(String sessionName) {
+        return CompletableFuture.supplyAsync(() -> capturePane(sessionName),
+            processExecutor.getExecutorService());
+    }
+    
+    /**
+     * Writes the session's pane output to {@code logFile}, replacing the file, and starts a tail
+     * on it for {@link #streamOutput(String)}.
+     */
+    public void pipePane(String sessionName, String logFile) {
+        Path file = Path.of(logFile);
+        try {
+            // A fresh file, so the tail never reads output left from an earlier run
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replace pane log " + logFile, e);
+        }
+        
+        List<String> pipeCommand = Arrays.asList(
+            "tmux", "pipe-pane", "-t", sessionName, ClaudeCliCommandBuilder.pipePaneCommand(logFile)
+        );
+        
+        ProcessExecutor.ProcessResult result = runTmux(pipeCommand);
+        
+        if (result.getExitCode() != 0) {
+            throw new RuntimeException("Failed to pipe tmux session " + sessionName + ": " + result.getError());
+        }
+        tailer().follow(sessionName, file);
+    }
+    
+    /**
+     * New output of a session piped with {@link #pipePane}, or created with a log file. Only the
+     * bytes appended since the last read are read, and the publisher completes once the session
+     * is gone.
+     */
+    public Flow.Publisher<String> streamOutput(String sessionName) {
+        PaneOutputTailer current = tailer();
+        Flow.Publisher<String> publisher = current.publisher(sessionName);
+        if (publisher == null) {
+            throw new IllegalArgumentException("Tmux session is not piped to a log file: " + sessionName);
+        }
+        return publisher;
+    }
+    
+    /**
+     * Output of a session whose pane is already piped to {@code logFile}, such as a TMUX-mode
+     * execution with {@link ClaudeCliOptions.TmuxOptions#getLogFile()} set, from the start of
+     * the file.
+     */
+    public Flow.Publisher<String> streamOutput(String sessionName, String logFile) {
+        return tailer().follow(sessionName, Path.of(logFile));
+    }
+    
     public void attachSession(String sessionName) {
         if (!sessionExists(sessionName)) {
             throw new IllegalArgumentException("Tmux session does not exist: " + sessionName);
@@ -94,7 +243,8 @@ public class TmuxSessionManager {
             "tmux", "attach-session", "-t", sessionName
         );
         
-        processExecutor.execute(attachCommand, ClaudeCliOptions.builder().build());
+        // Attaching needs a terminal of its own; on the control connection it would move that client
+        forkTmux(attachCommand);
     }
     
     public void killSession(String sessionName) {
@@ -106,11 +256,11 @@ public class TmuxSessionManager {
             "tmux", "kill-session", "-t", sessionName
         );
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(killCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = runTmux(killCommand, reply -> sessionRemoved(sessionName));
         
         if (result.getExitCode() == 0) {
             activeSessions.remove(sessionName);
+            endOutput(sessionName);
             log.info("Killed tmux session: {}", sessionName);
         } else {
             log.error("Failed to kill tmux session {}: {}", sessionName, result.getError());
@@ -118,23 +268,29 @@ public class TmuxSessionManager {
     }
     
     public boolean sessionExists(String sessionName) {
+        if (control() != null) {
+            return knownSessions.contains(sessionName);
+        }
+        
         List<String> checkCommand = Arrays.asList(
             "tmux", "has-session", "-t", sessionName
         );
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(checkCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = forkTmux(checkCommand);
         
         return result.getExitCode() == 0;
     }
     
     public List<String> listSessions() {
+        if (control() != null) {
+            return new ArrayList<>(knownSessions);
+        }
+        
         List<String> listCommand = Arrays.asList(
             "tmux", "list-sessions", "-F", "#{session_name}"
         );
         
-        ProcessExecutor.ProcessResult result = processExecutor.execute(listCommand, 
-            ClaudeCliOptions.builder().build());
+        ProcessExecutor.ProcessResult result = forkTmux(listCommand);
         
         if (result.getExitCode() == 0) {
             return Arrays.asList(result.getOutput().split("\n"));
@@ -144,7 +300,189 @@ public class TmuxSessionManager {
     }
     
     public void killAllSessions() {
-        activeSessions.keySet().forEach(this::killSession);
+        CompletableFuture.allOf(activeSessions.keySet().stream()
+                .map(sessionName -> CompletableFuture.runAsync(() -> killSession(sessionName),
+                    processExecutor.getExecutorService()))
+                .toArray(CompletableFuture[]::new))
+            .join();
+    }
+    
+    /**
+     * Closes the control connection and completes every output stream. The control session is
+     * destroyed by tmux once detached; the sessions created through this manager are left running.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        TmuxControlClient client = control;
+        if (client != null) {
+            client.close();
+        }
+        synchronized (this) {
+            if (tailer != null) {
+                tailer.close();
+            }
+        }
+    }
+    
+    public Stats getStats() {
+        TmuxControlClient client = control;
+        return Stats.builder()
+            .controlModeConnected(client != null && client.isOpen())
+            .knownSessions(knownSessions.size())
+            .controlCommandCount(controlCommandCount.get())
+            .forkedCommandCount(forkedCommandCount.get())
+            .connectCount(connectCount.get())
+            .build();
+    }
+    
+    private ProcessExecutor.ProcessResult runTmux(List<String> command) {
+        return runTmux(command, null);
+    }
+    
+    /**
+     * Runs a command on the control connection when there is one, else forks tmux.
+     * {@code onSuccess} only runs for commands sent over the control connection.
+     */
+    private ProcessExecutor.ProcessResult runTmux(List<String> command,
+                                                  Consumer<TmuxControlClient.Reply> onSuccess) {
+        TmuxControlClient client = control();
+        if (client == null) {
+            return forkTmux(command);
+        }
+        
+        long startedAt = System.nanoTime();
+        CompletableFuture<TmuxControlClient.Reply> reply = client.send(command.subList(1, command.size()),
+            onSuccess == null ? null : r -> {
+                if (!r.isError()) {
+                    onSuccess.accept(r);
+                }
+            });
+        ProcessExecutor.ProcessResult result;
+        try {
+            TmuxControlClient.Reply r = reply.get(config.getCommandTimeoutMillis(), TimeUnit.MILLISECONDS);
+            result = ProcessExecutor.ProcessResult.builder()
+                .exitCode(r.isError() ? 1 : 0)
+                .output(r.isError() ? "" : r.getOutput())
+                .error(r.isError() ? r.getOutput() : "")
+                .build();
+        } catch (ExecutionException e) {
+            // The connection dropped before tmux answered
+            log.debug("tmux control command {} failed, forking instead", command.get(1), e.getCause());
+            return forkTmux(command);
+        } catch (TimeoutException e) {
+            result = ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("tmux " + command.get(1) + " timed out after " + config.getCommandTimeoutMillis() + "ms")
+                .timedOut(true)
+                .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = ProcessExecutor.ProcessResult.builder()
+                .exitCode(-1)
+                .error("Interrupted waiting for tmux " + command.get(1))
+                .build();
+        }
+        controlCommandCount.incrementAndGet();
+        metrics.recordTmuxCommand(command.get(1), System.nanoTime() - startedAt, result.getExitCode() == 0);
+        return result;
+    }
+    
+    private ProcessExecutor.ProcessResult forkTmux(List<String> command) {
+        long startedAt = System.nanoTime();
+        ProcessExecutor.ProcessResult result = processExecutor.executeUnscheduled(command, tmuxOptions);
+        forkedCommandCount.incrementAndGet();
+        metrics.recordTmuxCommand(command.get(1), System.nanoTime() - startedAt, result.getExitCode() == 0);
+        return result;
+    }
+    
+    /**
+     * The open control connection, connecting first if needed, or null to fork instead.
+     */
+    private TmuxControlClient control() {
+        TmuxControlClient client = control;
+        if (client != null && client.isOpen()) {
+            return client;
+        }
+        if (!Boolean.TRUE.equals(config.getControlMode()) || shutdown
+                || System.currentTimeMillis() < nextConnectAt) {
+            return null;
+        }
+        synchronized (connectLock) {
+            client = control;
+            if (client != null && client.isOpen()) {
+                return client;
+            }
+            if (System.currentTimeMillis() < nextConnectAt) {
+                return null;
+            }
+            try {
+                client = TmuxControlClient.connect(controlSessionName, controlListener,
+                    config.getCommandTimeoutMillis());
+                control = client;
+                refreshQueued.set(true);
+                client.send(LIST_SESSIONS, this::sessionsListed)
+                    .get(config.getCommandTimeoutMillis(), TimeUnit.MILLISECONDS);
+                connectCount.incrementAndGet();
+                log.info("Connected to tmux in control mode");
+                return client;
+            } catch (IOException | ExecutionException | TimeoutException e) {
+                if (client != null) {
+                    client.close();
+                }
+                control = null;
+                nextConnectAt = System.currentTimeMillis() + RECONNECT_BACKOFF_MILLIS;
+                log.warn("tmux control mode unavailable, forking tmux per command: {}", e.getMessage());
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+    
+    private synchronized PaneOutputTailer tailer() {
+        if (tailer == null) {
+            try {
+                tailer = new PaneOutputTailer(config.getOutputPollIntervalMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot watch pane logs", e);
+            }
+        }
+        return tailer;
+    }
+    
+    private synchronized void endOutput(String sessionName) {
+        if (tailer != null) {
+            tailer.end(sessionName);
+        }
+    }
+    
+    private void sessionsListed(TmuxControlClient.Reply reply) {
+        refreshQueued.set(false);
+        if (reply.isError()) {
+            return;
+        }
+        Set<String> sessions = new LinkedHashSet<>(reply.getLines());
+        sessions.remove(controlSessionName);
+        for (String gone : knownSessions) {
+            if (!sessions.contains(gone)) {
+                endOutput(gone);
+            }
+        }
+        knownSessions = Collections.unmodifiableSet(sessions);
+    }
+    
+    private void sessionAdded(String sessionName) {
+        Set<String> sessions = new LinkedHashSet<>(knownSessions);
+        sessions.add(sessionName);
+        knownSessions = Collections.unmodifiableSet(sessions);
+    }
+    
+    private void sessionRemoved(String sessionName) {
+        Set<String> sessions = new LinkedHashSet<>(knownSessions);
+        sessions.remove(sessionName);
+        knownSessions = Collections.unmodifiableSet(sessions);
     }
     
     @lombok.Data
@@ -153,4 +491,14 @@ public class TmuxSessionManager {
         private final String sessionName;
         private final ClaudeCliOptions.TmuxOptions options;
     }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final boolean controlModeConnected;
+        private final int knownSessions;
+        private final long controlCommandCount;
+        private final long forkedCommandCount;
+        private final long connectCount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.claudecli.adapter.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps history on the heap only; it is lost when the application stops.
+ */
+public class InMemorySessionStore implements SessionStore {
+    
+    private final Map<String, Records> sessions = new ConcurrentHashMap<>();
+    
+    @Override
+    public void append(String sessionId, byte[] record) {
+        sessions.computeIfAbsent(sessionId, id -> new Records()).add(record.clone());
+    }
+    
+    @Override
+    public InputStream read(String sessionId) {
+        Records records = sessions.get(sessionId);
+        if (records == null) {
+            return InputStream.nullInputStream();
+        }
+        List<InputStream> streams = new ArrayList<>();
+        for (byte[] record : records.snapshot()) {
+            streams.add(new ByteArrayInputStream(record));
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+    
+    @Override
+    public long size(String sessionId) {
+        Records records = sessions.get(sessionId);
+        return records != null ? records.bytes() : 0;
+    }
+    
+    @Override
+    public void delete(String sessionId) {
+        sessions.remove(sessionId);
+    }
+    
+    private static class Records {
+        
+        private final List<byte[]> records = new ArrayList<>();
+        private long bytes;
+        
+        synchronized void add(byte[] record) {
+            records.add(record);
+            bytes += record.length;
+        }
+        
+        synchronized List<byte[]> snapshot() {
+            return new ArrayList<>(records);
+        }
+        
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,774 @@
+package com.claudecli.adapter.session;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import com.claudecli.adapter.util.PrivateDirectories;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps the history of every session in one append-only log, split into segment files, so a
+ * node with tens of thousands of sessions has a few files open rather than two per session.
+ * <p>
+ * Records are framed as {@code [body length][crc32c][seq][time][type][id length][id][payload]}. An
+ * in-memory index holds the offsets of each session's records, and reads hand out slices of
+ * memory-mapped segments rather than copying them onto the heap. Appends reach the page cache
+ * immediately and are fsynced in batches every {@code syncIntervalMillis}, or one by one when
+ * that is 0. Sealed segments whose live fraction falls below {@code compactionThreshold} have
+ * their live records copied to the head of the log and are then deleted. Before each compaction,
+ * sessions not appended to for {@code historyTtlSeconds} are deleted, so the history of sessions
+ * that are never reopened, e.g. after a restart, does not stay forever.
+ * <p>
+ * The directory is created owner-only and opened, and locked, on first use, so applications
+ * that never open a session do not touch it.
+ * <p>
+ * The index is rebuilt on startup by scanning the segments, truncating a torn or corrupt tail
+ * of the last one. Deletes are written as tombstones carrying a sequence number and only remove
+ * records with a lower one, which keeps replay correct after compaction has reordered the log.
+ */
+@Slf4j
+public class SegmentedLogSessionStore implements SessionStore {
+    
+    private static final int HEADER_BYTES = 8;
+    private static final int BODY_FIXED_BYTES = 19;
+    private static final byte APPEND = 1;
+    private static final byte DELETE = 2;
+    private static final int OFFSET_BITS = 40;
+    private static final String SEGMENT_SUFFIX = ".log";
+    
+    private final Path directory;
+    private final long segmentBytes;
+    private final long syncIntervalMillis;
+    private final double compactionThreshold;
+    private final long compactionIntervalSeconds;
+    private final long historyTtlMillis;
+    private FileChannel lockChannel;
+    private FileLock fileLock;
+    private ScheduledExecutorService maintenance;
+    
+    private final Object lock = new Object();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<String, SessionIndex> index = new HashMap<>();
+    private Segment active;
+    private long nextSeq = 1;
+    private boolean dirty;
+    private boolean opened;
+    private boolean closed;
+    
+    private final AtomicLong compactedSegments = new AtomicLong();
+    private final AtomicLong expiredSessions = new AtomicLong();
+    
+    public SegmentedLogSessionStore(ClaudeCliProperties.SessionConfig config) {
+        this.directory = Path.of(config.getHistoryDirectory());
+        this.segmentBytes = Math.min(config.getSegmentBytes(), Integer.MAX_VALUE);
+        this.syncIntervalMillis = config.getSyncIntervalMillis();
+        this.compactionThreshold = config.getCompactionThreshold();
+        this.compactionIntervalSeconds = config.getCompactionIntervalSeconds();
+        this.historyTtlMillis = TimeUnit.SECONDS.toMillis(config.getHistoryTtlSeconds());
+    }
+    
+    @Override
+    public void append(String sessionId, byte[] record) {
+        byte[] id = encodeId(sessionId);
+        synchronized (lock) {
+            ensureOpen();
+            long seq = nextSeq++;
+            ByteBuffer frame = encode(seq, APPEND, id, record);
+            int length = frame.remaining();
+            try {
+                long location = write(frame);
+                index.computeIfAbsent(sessionId, k -> new SessionIndex(id.length))
+                    .add(seq, location, length, System.currentTimeMillis());
+                segment(location).liveBytes += length;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to session log", e);
+            }
+        }
+    }
+    
+    @Override
+    public InputStream read(String sessionId) {
+        synchronized (lock) {
+            ensureOpen();
+            SessionIndex session = index.get(sessionId);
+            if (session == null) {
+                return InputStream.nullInputStream();
+            }
+            ByteBuffer[] payloads = new ByteBuffer[session.count];
+            try {
+                for (int i = 0; i < session.count; i++) {
+                    payloads[i] = payload(session.locations[i], session.lengths[i], session.overhead);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read session log", e);
+            }
+            return new ByteBuffersInputStream(payloads);
+        }
+    }
+    
+    @Override
+    public long size(String sessionId) {
+        synchronized (lock) {
+            ensureOpen();
+            SessionIndex session = index.get(sessionId);
+            return session != null ? session.payloadBytes() : 0;
+        }
+    }
+    
+    @Override
+    public void delete(String sessionId) {
+        byte[] id = encodeId(sessionId);
+        synchronized (lock) {
+            ensureOpen();
+            SessionIndex session = index.remove(sessionId);
+            if (session == null) {
+                return;
+            }
+            for (int i = 0; i < session.count; i++) {
+                segment(session.locations[i]).liveBytes -= session.lengths[i];
+            }
+            try {
+                write(encode(nextSeq++, DELETE, id, new byte[0]));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to session log", e);
+            }
+        }
+    }
+    
+    /**
+     * Fsyncs the active segment if anything was appended since the last sync.
+     */
+    public void sync() {
+        FileChannel channel;
+        synchronized (lock) {
+            if (!dirty || !opened || closed) {
+                return;
+            }
+            dirty = false;
+            channel = active.channel;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // Sealed in the meantime, which forces it
+        } catch (IOException e) {
+            log.warn("Failed to sync session log: {}", e.getMessage());
+            synchronized (lock) {
+                dirty = true;
+            }
+        }
+    }
+    
+    /**
+     * Rewrites sealed segments that are mostly garbage. Appends and reads continue meanwhile;
+     * the lock is only held while each live record is copied.
+     */
+    public void compact() {
+        expire();
+        List<Segment> candidates = new ArrayList<>();
+        synchronized (lock) {
+            if (!opened || closed) {
+                return;
+            }
+            for (Segment segment : segments.values()) {
+                if (segment != active && segment.liveBytes < segment.size * compactionThreshold) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        for (Segment segment : candidates) {
+            try {
+                compact(segment);
+            } catch (IOException e) {
+                log.warn("Failed to compact session log segment {}: {}", segment.path, e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Deletes the history of sessions that have not been appended to within the history TTL.
+     */
+    public void expire() {
+        if (historyTtlMillis <= 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - historyTtlMillis;
+        synchronized (lock) {
+            if (!opened || closed) {
+                return;
+            }
+            List<String> expired = new ArrayList<>();
+            index.forEach((sessionId, session) -> {
+                if (session.lastAppendMillis < cutoff) {
+                    expired.add(sessionId);
+                }
+            });
+            expired.forEach(this::delete);
+            if (!expired.isEmpty()) {
+                expiredSessions.addAndGet(expired.size());
+                log.debug("Expired the history of {} sessions", expired.size());
+            }
+        }
+    }
+    
+    public Stats getStats() {
+        synchronized (lock) {
+            long totalBytes = 0;
+            long liveBytes = 0;
+            for (Segment segment : segments.values()) {
+                totalBytes += segment.size;
+                liveBytes += segment.liveBytes;
+            }
+            return Stats.builder()
+                .sessions(index.size())
+                .segments(segments.size())
+                .totalBytes(totalBytes)
+                .liveBytes(liveBytes)
+                .compactedSegments(compactedSegments.get())
+                .expiredSessions(expiredSessions.get())
+                .build();
+        }
+    }
+    
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (!opened) {
+                return;
+            }
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            try {
+                active.channel.force(false);
+                active.channel.close();
+                fileLock.release();
+                lockChannel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close session log: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void compact(Segment segment) throws IOException {
+        ByteBuffer view = segment.mapped;
+        int offset = 0;
+        while (offset < segment.size) {
+            Frame frame = readFrame(view, offset, segment.size);
+            if (frame == null) {
+                break;
+            }
+            synchronized (lock) {
+                if (closed) {
+                    return;
+                }
+                carryOver(segment, view, offset, frame);
+            }
+            offset += frame.length;
+        }
+        
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            // The copies must be durable before the originals go
+            active.channel.force(false);
+            dirty = false;
+            segments.remove(segment.id);
+        }
+        Files.deleteIfExists(segment.path);
+        compactedSegments.incrementAndGet();
+        log.debug("Compacted session log segment {}", segment.path);
+    }
+    
+    private void carryOver(Segment segment, ByteBuffer view, int offset, Frame frame) throws IOException {
+        if (frame.type == DELETE) {
+            // Older segments may still hold records the tombstone has to keep dead on replay
+            if (segments.firstKey() != segment.id) {
+                write(view.slice(offset, frame.length));
+            }
+            return;
+        }
+        SessionIndex session = index.get(frame.sessionId);
+        int position = session != null ? session.indexOf(location(segment.id, offset)) : -1;
+        if (position < 0) {
+            return;
+        }
+        long moved = write(view.slice(offset, frame.length));
+        session.locations[position] = moved;
+        segment(moved).liveBytes += frame.length;
+        segment.liveBytes -= frame.length;
+    }
+    
+    private long write(ByteBuffer frame) throws IOException {
+        int length = frame.remaining();
+        if (active.size > 0 && active.size + length > segmentBytes) {
+            roll();
+        }
+        long offset = active.size;
+        long position = offset;
+        while (frame.hasRemaining()) {
+            position += active.channel.write(frame, position);
+        }
+        active.size += length;
+        if (syncIntervalMillis <= 0) {
+            active.channel.force(false);
+        } else {
+            dirty = true;
+        }
+        return location(active.id, offset);
+    }
+    
+    private void roll() throws IOException {
+        active.channel.force(false);
+        active.seal();
+        dirty = false;
+        active = openSegment(active.id + 1);
+        segments.put(active.id, active);
+    }
+    
+    private ByteBuffer payload(long location, int length, int overhead) throws IOException {
+        int offset = offset(location);
+        ByteBuffer view = segment(location).view(offset + length);
+        return view.slice(offset + overhead, length - overhead);
+    }
+    
+    private void recover() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                .filter(name -> name.matches("\\d+\\" + SEGMENT_SUFFIX))
+                .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            ids.add(1L);
+        }
+        
+        Map<String, Long> tombstones = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            boolean last = i == ids.size() - 1;
+            Segment segment = openSegment(ids.get(i));
+            segments.put(segment.id, segment);
+            int validEnd = replay(segment, tombstones);
+            if (validEnd < segment.size) {
+                if (last) {
+                    log.warn("Truncating {} bytes of torn or corrupt records from {}",
+                        segment.size - validEnd, segment.path);
+                    segment.channel.truncate(validEnd);
+                    segment.size = validEnd;
+                    segment.mapped = null;
+                } else {
+                    log.warn("Ignoring {} bytes of corrupt records in {}", segment.size - validEnd, segment.path);
+                }
+            }
+            if (last) {
+                active = segment;
+            } else {
+                segment.seal();
+            }
+        }
+        
+        for (Map.Entry<String, Long> tombstone : tombstones.entrySet()) {
+            SessionIndex session = index.get(tombstone.getKey());
+            if (session != null && session.retainAfter(tombstone.getValue()) == 0) {
+                index.remove(tombstone.getKey());
+            }
+        }
+        for (SessionIndex session : index.values()) {
+            session.sortBySeq();
+            for (int i = 0; i < session.count; i++) {
+                segment(session.locations[i]).liveBytes += session.lengths[i];
+            }
+        }
+        if (!index.isEmpty() || segments.size() > 1) {
+            log.info("Recovered {} sessions from {} session log segments in {}", index.size(), segments.size(), directory);
+        }
+    }
+    
+    /**
+     * Indexes the segment's records and returns the offset just past the last valid one.
+     */
+    private int replay(Segment segment, Map<String, Long> tombstones) throws IOException {
+        ByteBuffer view = segment.view(segment.size);
+        int offset = 0;
+        while (offset < segment.size) {
+            Frame frame = readFrame(view, offset, segment.size);
+            if (frame == null) {
+                break;
+            }
+            nextSeq = Math.max(nextSeq, frame.seq + 1);
+            if (frame.type == APPEND) {
+                index.computeIfAbsent(frame.sessionId, k -> new SessionIndex(frame.idLength))
+                    .add(frame.seq, location(segment.id, offset), frame.length, frame.time);
+            } else {
+                tombstones.merge(frame.sessionId, frame.seq, Math::max);
+            }
+            offset += frame.length;
+        }
+        return offset;
+    }
+    
+    private Segment openSegment(long id) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, path, channel, channel.size());
+    }
+    
+    private Segment segment(long location) {
+        return segments.get(location >>> OFFSET_BITS);
+    }
+    
+    /**
+     * Opens the log on first use. Called with {@link #lock} held.
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Session log is closed");
+        }
+        if (opened) {
+            return;
+        }
+        try {
+            PrivateDirectories.ensure(directory);
+            lockChannel = FileChannel.open(directory.resolve("LOCK"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            fileLock = tryLock(lockChannel);
+            recover();
+        } catch (IOException e) {
+            // Leave nothing behind, so the next call retries rather than finding its own lock
+            segments.clear();
+            index.clear();
+            if (lockChannel != null && lockChannel.isOpen()) {
+                try {
+                    lockChannel.close();
+                } catch (IOException ignored) {
+                    // Reported through the original failure
+                }
+            }
+            throw new UncheckedIOException("Cannot open session log in " + directory, e);
+        }
+        
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "claude-cli-session-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncIntervalMillis > 0) {
+            maintenance.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        }
+        if (compactionIntervalSeconds > 0) {
+            maintenance.scheduleWithFixedDelay(this::compact, compactionIntervalSeconds, compactionIntervalSeconds,
+                TimeUnit.SECONDS);
+        }
+        opened = true;
+    }
+    
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        FileLock fileLock;
+        try {
+            fileLock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            channel.close();
+            throw new IllegalStateException("Session log directory is already in use by another store; "
+                + "give each application its own claude.cli.session.history-directory");
+        }
+        return fileLock;
+    }
+    
+    private static byte[] encodeId(String sessionId) {
+        byte[] id = sessionId.getBytes(StandardCharsets.UTF_8);
+        if (id.length > 0xFFFF) {
+            throw new IllegalArgumentException("Session id is too long");
+        }
+        return id;
+    }
+    
+    private static ByteBuffer encode(long seq, byte type, byte[] id, byte[] payload) {
+        int bodyLength = BODY_FIXED_BYTES + id.length + payload.length;
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + bodyLength);
+        frame.putInt(bodyLength)
+            .putInt(0)
+            .putLong(seq)
+            .putLong(System.currentTimeMillis())
+            .put(type)
+            .putShort((short) id.length)
+            .put(id)
+            .put(payload);
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), HEADER_BYTES, bodyLength);
+        frame.putInt(4, (int) crc.getValue());
+        return frame.flip();
+    }
+    
+    /**
+     * Returns the frame at {@code offset}, or null if it is torn or fails its checksum.
+     */
+    private static Frame readFrame(ByteBuffer view, int offset, long limit) {
+        if (limit - offset < HEADER_BYTES + BODY_FIXED_BYTES) {
+            return null;
+        }
+        int bodyLength = view.getInt(offset);
+        if (bodyLength < BODY_FIXED_BYTES || bodyLength > limit - offset - HEADER_BYTES) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(view.slice(offset + HEADER_BYTES, bodyLength));
+        if ((int) crc.getValue() != view.getInt(offset + 4)) {
+            return null;
+        }
+        int body = offset + HEADER_BYTES;
+        byte type = view.get(body + 16);
+        int idLength = Short.toUnsignedInt(view.getShort(body + 17));
+        if ((type != APPEND && type != DELETE) || BODY_FIXED_BYTES + idLength > bodyLength) {
+            return null;
+        }
+        byte[] id = new byte[idLength];
+        view.get(body + BODY_FIXED_BYTES, id);
+        return new Frame(HEADER_BYTES + bodyLength, view.getLong(body), view.getLong(body + 8), type, idLength,
+            new String(id, StandardCharsets.UTF_8));
+    }
+    
+    private static long location(long segmentId, long offset) {
+        return segmentId << OFFSET_BITS | offset;
+    }
+    
+    private static int offset(long location) {
+        return (int) (location & ((1L << OFFSET_BITS) - 1));
+    }
+    
+    private static final class Frame {
+        
+        final int length;
+        final long seq;
+        final long time;
+        final byte type;
+        final int idLength;
+        final String sessionId;
+        
+        Frame(int length, long seq, long time, byte type, int idLength, String sessionId) {
+            this.length = length;
+            this.seq = seq;
+            this.time = time;
+            this.type = type;
+            this.idLength = idLength;
+            this.sessionId = sessionId;
+        }
+    }
+    
+    private static final class Segment {
+        
+        final long id;
+        final Path path;
+        FileChannel channel;
+        long size;
+        long liveBytes;
+        MappedByteBuffer mapped;
+        
+        Segment(long id, Path path, FileChannel channel, long size) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+        }
+        
+        /**
+         * A mapping covering at least {@code end} bytes. The active segment is remapped as it grows.
+         */
+        MappedByteBuffer view(long end) throws IOException {
+            if (mapped == null || mapped.capacity() < end) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return mapped;
+        }
+        
+        void seal() throws IOException {
+            view(size);
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    /**
+     * Record sequence numbers, locations and frame lengths of one session, in append order.
+     */
+    private static final class SessionIndex {
+        
+        final int overhead;
+        long[] seqs = new long[4];
+        long[] locations = new long[4];
+        int[] lengths = new int[4];
+        int count;
+        long lastAppendMillis;
+        
+        SessionIndex(int idLength) {
+            this.overhead = HEADER_BYTES + BODY_FIXED_BYTES + idLength;
+        }
+        
+        void add(long seq, long location, int length, long appendedAtMillis) {
+            lastAppendMillis = Math.max(lastAppendMillis, appendedAtMillis);
+            if (count == seqs.length) {
+                int capacity = count * 2;
+                seqs = Arrays.copyOf(seqs, capacity);
+                locations = Arrays.copyOf(locations, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            seqs[count] = seq;
+            locations[count] = location;
+            lengths[count] = length;
+            count++;
+        }
+        
+        int indexOf(long location) {
+            for (int i = 0; i < count; i++) {
+                if (locations[i] == location) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        long payloadBytes() {
+            long bytes = 0;
+            for (int i = 0; i < count; i++) {
+                bytes += lengths[i] - overhead;
+            }
+            return bytes;
+        }
+        
+        /**
+         * Drops records at or below {@code seq} and returns how many are left.
+         */
+        int retainAfter(long seq) {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (seqs[i] > seq) {
+                    move(i, kept++);
+                }
+            }
+            count = kept;
+            return kept;
+        }
+        
+        /**
+         * Restores append order after replaying a compacted log, dropping copies that a
+         * compaction interrupted before it could delete the original left behind.
+         */
+        void sortBySeq() {
+            for (int i = 1; i < count; i++) {
+                long seq = seqs[i];
+                long location = locations[i];
+                int length = lengths[i];
+                int j = i - 1;
+                while (j >= 0 && seqs[j] > seq) {
+                    move(j, j + 1);
+                    j--;
+                }
+                seqs[j + 1] = seq;
+                locations[j + 1] = location;
+                lengths[j + 1] = length;
+            }
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (kept == 0 || seqs[i] != seqs[kept - 1]) {
+                    move(i, kept++);
+                }
+            }
+            count = kept;
+        }
+        
+        private void move(int from, int to) {
+            seqs[to] = seqs[from];
+            locations[to] = locations[from];
+            lengths[to] = lengths[from];
+        }
+    }
+    
+    private static final class ByteBuffersInputStream extends InputStream {
+        
+        private final ByteBuffer[] buffers;
+        private int current;
+        
+        ByteBuffersInputStream(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+        
+        @Override
+        public int read() {
+            ByteBuffer buffer = next();
+            return buffer != null ? buffer.get() & 0xFF : -1;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer buffer = next();
+            if (buffer == null) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+        
+        private ByteBuffer next() {
+            while (current < buffers.length && !buffers[current].hasRemaining()) {
+                current++;
+            }
+            return current < buffers.length ? buffers[current] : null;
+        }
+    }
+    
+    @lombok.Data
+    @lombok.Builder
+    public static class Stats {
+        private final int sessions;
+        private final int segments;
+        private final long totalBytes;
+        private final long liveBytes;
+        private final long compactedSegments;
+        private final long expiredSessions;
+    }
+}
\ No newline at end of file
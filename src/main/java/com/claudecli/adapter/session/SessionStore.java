@@ -0,0 +1,32 @@
+package com.claudecli.adapter.session;
+
+import java.io.InputStream;
+
+/**
+ * Conversation history of each session, kept as the records appended to it in order.
+ */
+public interface SessionStore {
+    
+    enum Type {
+        LOG,
+        MEMORY
+    }
+    
+    void append(String sessionId, byte[] record);
+    
+    /**
+     * The session's records concatenated in append order, or an empty stream if it has none.
+     * The stream is a snapshot; records appended after it was opened are not included.
+     */
+    InputStream read(String sessionId);
+    
+    /**
+     * Total size in bytes of the session's records.
+     */
+    long size(String sessionId);
+    
+    void delete(String sessionId);
+    
+    default void close() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.claudecli.adapter.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+/**
+ * Typed events decoded from the CLI's {@code --output-format stream-json} output.
+ */
+public interface StreamJsonEvent {
+    
+    Type getType();
+    
+    enum Type {
+        TEXT_DELTA,
+        TOOL_USE,
+        TOOL_RESULT,
+        USAGE,
+        RESULT
+    }
+    
+    @Value
+    class TextDelta implements StreamJsonEvent {
+        String text;
+        
+        @Override
+        public Type getType() {
+            return Type.TEXT_DELTA;
+        }
+    }
+    
+    @Value
+    class ToolUse implements StreamJsonEvent {
+        String id;
+        String name;
+        JsonNode input;
+        
+        @Override
+        public Type getType() {
+            return Type.TOOL_USE;
+        }
+    }
+    
+    @Value
+    class ToolResult implements StreamJsonEvent {
+        String toolUseId;
+        String content;
+        boolean error;
+        
+        @Override
+        public Type getType() {
+            return Type.TOOL_RESULT;
+        }
+    }
+    
+    @Value
+    class Usage implements StreamJsonEvent {
+        long inputTokens;
+        long outputTokens;
+        long cacheReadInputTokens;
+        long cacheCreationInputTokens;
+        /** True for the run totals reported on the final result event. */
+        boolean cumulative;
+        
+        @Override
+        public Type getType() {
+            return Type.USAGE;
+        }
+    }
+    
+    @Value
+    class Result implements StreamJsonEvent {
+        String subtype;
+        boolean error;
+        String result;
+        String sessionId;
+        Long durationMs;
+        Integer numTurns;
+        Double totalCostUsd;
+        
+        @Override
+        public Type getType() {
+            return Type.RESULT;
+        }
+    }
+}
\ No newline at end of file
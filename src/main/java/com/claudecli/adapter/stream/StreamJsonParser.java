@@ -0,0 +1,309 @@
+package com.claudecli.adapter.stream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Token-level decoder for stream-json output. Events are emitted as soon as each one has been
+ * read, so a transcript is never materialised as a whole; only tool inputs, which are small,
+ * are bound to a tree. Jackson recycles the parser's read buffers between calls.
+ */
+@Slf4j
+@Component
+public class StreamJsonParser {
+    
+    private final JsonFactory jsonFactory;
+    
+    public StreamJsonParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+    
+    /**
+     * Parses a sequence of whitespace-separated JSON events until end of input.
+     */
+    public void parse(InputStream input, Consumer<? super StreamJsonEvent> sink) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            parseAll(parser, sink);
+        }
+    }
+    
+    /**
+     * Parses a single line of output. Lines that are not JSON are ignored.
+     */
+    public void parseLine(String line, Consumer<? super StreamJsonEvent> sink) {
+        try {
+            parseLineStrictly(line, sink);
+        } catch (IOException e) {
+            log.debug("Ignoring non stream-json line: {}", line);
+        }
+    }
+    
+    /**
+     * Like {@link #parseLine}, but a line that is not valid JSON is an error. Events decoded
+     * before the error have already been passed to {@code sink}.
+     */
+    public void parseLineStrictly(String line, Consumer<? super StreamJsonEvent> sink) throws IOException {
+        if (line == null || line.isBlank()) {
+            return;
+        }
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            parseAll(parser, sink);
+        }
+    }
+    
+    private void parseAll(JsonParser parser, Consumer<? super StreamJsonEvent> sink) throws IOException {
+        EventState state = new EventState();
+        BlockState block = new BlockState();
+        JsonToken token;
+        while ((token = parser.nextToken()) != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            state.reset();
+            parseEvent(parser, state, block, sink);
+        }
+    }
+    
+    private void parseEvent(JsonParser parser, EventState state, BlockState block,
+                            Consumer<? super StreamJsonEvent> sink) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> state.type = parser.getValueAsString();
+                case "subtype" -> state.subtype = parser.getValueAsString();
+                case "message" -> parseMessage(parser, value, block, sink);
+                case "event" -> parseStreamEvent(parser, value, sink);
+                case "result" -> state.result = value == JsonToken.VALUE_STRING ? parser.getText() : skip(parser);
+                case "is_error" -> state.error = parser.getValueAsBoolean();
+                case "session_id" -> state.sessionId = parser.getValueAsString();
+                case "duration_ms" -> state.durationMs = value.isNumeric() ? parser.getLongValue() : null;
+                case "num_turns" -> state.numTurns = value.isNumeric() ? parser.getIntValue() : null;
+                case "total_cost_usd" -> state.totalCostUsd = value.isNumeric() ? parser.getDoubleValue() : null;
+                case "usage" -> state.usage = parseUsage(parser, value, true);
+                default -> parser.skipChildren();
+            }
+        }
+        
+        if ("result".equals(state.type)) {
+            if (state.usage != null) {
+                sink.accept(state.usage);
+            }
+            sink.accept(new StreamJsonEvent.Result(state.subtype, state.error, state.result, state.sessionId,
+                state.durationMs, state.numTurns, state.totalCostUsd));
+        }
+    }
+    
+    private void parseMessage(JsonParser parser, JsonToken value, BlockState block,
+                              Consumer<? super StreamJsonEvent> sink) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("content".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    block.reset();
+                    parseBlock(parser, block);
+                    block.emit(sink);
+                }
+            } else if ("content".equals(field) && token == JsonToken.VALUE_STRING) {
+                sink.accept(new StreamJsonEvent.TextDelta(parser.getText()));
+            } else if ("usage".equals(field)) {
+                StreamJsonEvent.Usage usage = parseUsage(parser, token, false);
+                if (usage != null) {
+                    sink.accept(usage);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private void parseBlock(JsonParser parser, BlockState block) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> block.type = parser.getValueAsString();
+                case "text" -> block.text = parser.getValueAsString();
+                case "id" -> block.id = parser.getValueAsString();
+                case "name" -> block.name = parser.getValueAsString();
+                case "tool_use_id" -> block.toolUseId = parser.getValueAsString();
+                case "is_error" -> block.error = parser.getValueAsBoolean();
+                case "input" -> block.input = value == JsonToken.START_OBJECT ? parser.readValueAsTree() : null;
+                case "content" -> block.content = readContent(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+    
+    /**
+     * Tool result content is either a plain string or an array of text blocks.
+     */
+    private String readContent(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        StringBuilder content = new StringBuilder();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("text".equals(field)) {
+                    if (content.length() > 0) {
+                        content.append('\n');
+                    }
+                    content.append(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return content.toString();
+    }
+    
+    private void parseStreamEvent(JsonParser parser, JsonToken value,
+                                  Consumer<? super StreamJsonEvent> sink) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("delta".equals(field) && token == JsonToken.START_OBJECT) {
+                String deltaType = null;
+                String text = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String deltaField = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("type".equals(deltaField)) {
+                        deltaType = parser.getValueAsString();
+                    } else if ("text".equals(deltaField)) {
+                        text = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (text != null && (deltaType == null || "text_delta".equals(deltaType))) {
+                    sink.accept(new StreamJsonEvent.TextDelta(text));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private StreamJsonEvent.Usage parseUsage(JsonParser parser, JsonToken value, boolean cumulative) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        long input = 0;
+        long output = 0;
+        long cacheRead = 0;
+        long cacheCreation = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (!token.isNumeric()) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "input_tokens" -> input = parser.getLongValue();
+                case "output_tokens" -> output = parser.getLongValue();
+                case "cache_read_input_tokens" -> cacheRead = parser.getLongValue();
+                case "cache_creation_input_tokens" -> cacheCreation = parser.getLongValue();
+                default -> {
+                }
+            }
+        }
+        return new StreamJsonEvent.Usage(input, output, cacheRead, cacheCreation, cumulative);
+    }
+    
+    private static String skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+    
+    private static final class EventState {
+        private String type;
+        private String subtype;
+        private String result;
+        private boolean error;
+        private String sessionId;
+        private Long durationMs;
+        private Integer numTurns;
+        private Double totalCostUsd;
+        private StreamJsonEvent.Usage usage;
+        
+        void reset() {
+            type = null;
+            subtype = null;
+            result = null;
+            error = false;
+            sessionId = null;
+            durationMs = null;
+            numTurns = null;
+            totalCostUsd = null;
+            usage = null;
+        }
+    }
+    
+    private static final class BlockState {
+        private String type;
+        private String text;
+        private String id;
+        private String name;
+        private String toolUseId;
+        private String content;
+        private boolean error;
+        private JsonNode input;
+        
+        void reset() {
+            type = null;
+            text = null;
+            id = null;
+            name = null;
+            toolUseId = null;
+            content = null;
+            error = false;
+            input = null;
+        }
+        
+        void emit(Consumer<? super StreamJsonEvent> sink) {
+            if (type == null) {
+                return;
+            }
+            switch (type) {
+                case "text" -> {
+                    if (text != null) {
+                        sink.accept(new StreamJsonEvent.TextDelta(text));
+                    }
+                }
+                case "tool_use" -> sink.accept(new StreamJsonEvent.ToolUse(id, name, input));
+                case "tool_result" -> sink.accept(new StreamJsonEvent.ToolResult(toolUseId, content, error));
+                default -> {
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
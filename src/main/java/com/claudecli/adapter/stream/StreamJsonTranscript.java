@@ -0,0 +1,169 @@
+package com.claudecli.adapter.stream;
+
+import com.claudecli.adapter.model.ClaudeResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Folds stream-json events into the structured parts of a {@link ClaudeResponse}: tool calls,
+ * the file changes made by editing tools, and the shell commands run by the Bash tool.
+ */
+@Getter
+public class StreamJsonTranscript implements Consumer<StreamJsonEvent> {
+    
+    private final List<ClaudeResponse.ToolCall> toolCalls = new ArrayList<>();
+    private final List<ClaudeResponse.FileChange> fileChanges = new ArrayList<>();
+    private final List<ClaudeResponse.CommandExecution> commandExecutions = new ArrayList<>();
+    
+    private StreamJsonEvent.Result result;
+    private long inputTokens;
+    private long outputTokens;
+    private long eventCount;
+    
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<String, ClaudeResponse.ToolCall> pendingToolCalls = new HashMap<>();
+    @Getter(lombok.AccessLevel.NONE)
+    private final Map<String, ClaudeResponse.CommandExecution> pendingCommands = new HashMap<>();
+    @Getter(lombok.AccessLevel.NONE)
+    private final StringBuilder assistantText;
+    
+    public StreamJsonTranscript() {
+        this(false);
+    }
+    
+    /**
+     * @param keepAssistantText whether to accumulate the streamed assistant text, which
+     *                          {@link #getResultText()} falls back to when no result event arrives
+     */
+    public StreamJsonTranscript(boolean keepAssistantText) {
+        this.assistantText = keepAssistantText ? new StringBuilder() : null;
+    }
+    
+    @Override
+    public void accept(StreamJsonEvent event) {
+        eventCount++;
+        switch (event.getType()) {
+            case TEXT_DELTA -> {
+                if (result == null && assistantText != null) {
+                    assistantText.append(((StreamJsonEvent.TextDelta) event).getText());
+                }
+            }
+            case TOOL_USE -> onToolUse((StreamJsonEvent.ToolUse) event);
+            case TOOL_RESULT -> onToolResult((StreamJsonEvent.ToolResult) event);
+            case USAGE -> onUsage((StreamJsonEvent.Usage) event);
+            case RESULT -> result = (StreamJsonEvent.Result) event;
+        }
+    }
+    
+    public boolean isComplete() {
+        return result != null;
+    }
+    
+    public boolean isError() {
+        return result != null && result.isError();
+    }
+    
+    /**
+     * The final answer: the result event's text, or the assistant text seen so far when the
+     * run ended without one and the text was kept. Empty otherwise.
+     */
+    public String getResultText() {
+        if (result != null && result.getResult() != null) {
+            return result.getResult();
+        }
+        return assistantText != null ? assistantText.toString() : "";
+    }
+    
+    private void onToolUse(StreamJsonEvent.ToolUse toolUse) {
+        LocalDateTime now = LocalDateTime.now();
+        JsonNode input = toolUse.getInput();
+        
+        ClaudeResponse.ToolCall toolCall = ClaudeResponse.ToolCall.builder()
+            .toolName(toolUse.getName())
+            .action(input != null ? input.toString() : null)
+            .timestamp(now)
+            .build();
+        toolCalls.add(toolCall);
+        if (toolUse.getId() != null) {
+            pendingToolCalls.put(toolUse.getId(), toolCall);
+        }
+        
+        if (input == null || toolUse.getName() == null) {
+            return;
+        }
+        
+        switch (toolUse.getName()) {
+            case "Bash" -> {
+                ClaudeResponse.CommandExecution execution = ClaudeResponse.CommandExecution.builder()
+                    .command(input.path("command").asText(null))
+                    .timestamp(now)
+                    .build();
+                commandExecutions.add(execution);
+                if (toolUse.getId() != null) {
+                    pendingCommands.put(toolUse.getId(), execution);
+                }
+            }
+            case "Write" -> addFileChange(input, ClaudeResponse.FileChange.ChangeType.CREATE,
+                input.path("content").asText(null), now);
+            case "Edit" -> addFileChange(input, ClaudeResponse.FileChange.ChangeType.MODIFY,
+                input.path("new_string").asText(null), now);
+            case "MultiEdit", "NotebookEdit" -> addFileChange(input, ClaudeResponse.FileChange.ChangeType.MODIFY,
+                null, now);
+            default -> {
+            }
+        }
+    }
+    
+    private void addFileChange(JsonNode input, ClaudeResponse.FileChange.ChangeType changeType,
+                               String content, LocalDateTime now) {
+        String path = input.hasNonNull("file_path")
+            ? input.get("file_path").asText()
+            : input.path("notebook_path").asText(null);
+        if (path == null) {
+            return;
+        }
+        fileChanges.add(ClaudeResponse.FileChange.builder()
+            .filePath(path)
+            .changeType(changeType)
+            .content(content)
+            .timestamp(now)
+            .build());
+    }
+    
+    private void onToolResult(StreamJsonEvent.ToolResult toolResult) {
+        String id = toolResult.getToolUseId();
+        if (id == null) {
+            return;
+        }
+        ClaudeResponse.ToolCall toolCall = pendingToolCalls.remove(id);
+        if (toolCall != null) {
+            toolCall.setResult(toolResult.getContent());
+        }
+        ClaudeResponse.CommandExecution execution = pendingCommands.remove(id);
+        if (execution != null) {
+            if (toolResult.isError()) {
+                execution.setError(toolResult.getContent());
+            } else {
+                execution.setOutput(toolResult.getContent());
+            }
+            execution.setApproved(true);
+        }
+    }
+    
+    private void onUsage(StreamJsonEvent.Usage usage) {
+        if (usage.isCumulative()) {
+            inputTokens = usage.getInputTokens();
+            outputTokens = usage.getOutputTokens();
+        } else if (result == null) {
+            inputTokens += usage.getInputTokens();
+            outputTokens += usage.getOutputTokens();
+        }
+    }
+}
\ No newline at end of file
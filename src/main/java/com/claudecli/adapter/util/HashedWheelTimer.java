@@ -0,0 +1,199 @@
+package com.claudecli.adapter.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Approximate timer for large numbers of timeouts that are mostly cancelled or rescheduled,
+ * such as session expiry. Timeouts are hashed into a ring of buckets by deadline and one thread
+ * advances through the ring a tick at a time, so scheduling and cancelling are O(1) and nothing
+ * is allocated per tick. Deadlines are honoured to within one tick.
+ */
+@Slf4j
+public class HashedWheelTimer {
+    
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime;
+    
+    private volatile boolean stopped;
+    
+    public HashedWheelTimer(String threadName, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+    
+    /**
+     * Runs {@code task} on the timer thread after {@code delay}. Tasks should be short and hand
+     * anything slow off to an executor.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+        pending.add(timeout);
+        return timeout;
+    }
+    
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+    
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long deadline = waitForNextTick(tick);
+            if (deadline < 0) {
+                break;
+            }
+            transferPending(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+    
+    private long waitForNextTick(long tick) {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos <= 0) {
+                return deadline;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return -1;
+                }
+            }
+        }
+    }
+    
+    private void transferPending(long tick) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            long expiresAtTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiresAtTick - tick) / wheel.length;
+            // Deadlines already in the past go into the current bucket
+            long bucketTick = Math.max(expiresAtTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+    
+    public static final class Timeout {
+        
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        
+        // Owned by the timer thread
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+        
+        /**
+         * Returns false if the task has already run or been cancelled. A cancelled timeout is
+         * unlinked the next time the timer passes its bucket.
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+        
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+        
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+    
+    /**
+     * Doubly linked list of timeouts, only touched by the timer thread.
+     */
+    private static final class Bucket {
+        
+        private Timeout head;
+        private Timeout tail;
+        
+        void add(Timeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+        
+        void expire(long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                        try {
+                            timeout.task.run();
+                        } catch (Throwable t) {
+                            log.warn("Timer task failed", t);
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+        
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+        }
+    }
+}
\ No newline at end of file
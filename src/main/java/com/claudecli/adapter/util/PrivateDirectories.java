@@ -0,0 +1,66 @@
+package com.claudecli.adapter.util;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+
+/**
+ * Directories that hold prompts and answers on disk. They are created owner-only (0700) where
+ * the file system supports POSIX permissions, and anything inside them that another user owns
+ * is not trusted.
+ */
+public final class PrivateDirectories {
+    
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+    
+    private PrivateDirectories() {
+    }
+    
+    /**
+     * Creates {@code directory} owner-only, or tightens an existing one to owner-only. Fails if the
+     * directory exists but belongs to another user or is a symbolic link.
+     */
+    public static Path ensure(Path directory) throws IOException {
+        boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+        if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            if (posix) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException(directory + " is not a directory");
+        }
+        if (!isOwnedByCurrentUser(directory)) {
+            throw new IOException(directory + " is owned by another user");
+        }
+        if (posix) {
+            Files.setPosixFilePermissions(directory, OWNER_ONLY);
+        }
+        return directory;
+    }
+    
+    /**
+     * Whether {@code file} is owned by the user this process runs as. Symbolic links are judged by
+     * the link itself, not its target.
+     */
+    public static boolean isOwnedByCurrentUser(Path file) {
+        try {
+            return Files.getOwner(file, LinkOption.NOFOLLOW_LINKS).equals(currentUser());
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+    
+    private static UserPrincipal currentUser() throws IOException {
+        return FileSystems.getDefault().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+    }
+}
\ No newline at end of file
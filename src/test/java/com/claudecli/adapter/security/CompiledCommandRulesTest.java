@@ -0,0 +1,312 @@
+package com.claudecli.adapter.security;
+
+import com.claudecli.adapter.model.ClaudeResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the compiled rules against the straightforward matcher they replaced, which tried
+ * every prefix and then every pattern in turn.
+ */
+class CompiledCommandRulesTest {
+    
+    private static final List<String> DEFAULT_WHITELIST = List.of(
+        "ls", "pwd", "echo", "cat", "grep", "find", "which", "date", "whoami");
+    private static final List<String> DEFAULT_BLACKLIST = List.of(
+        "rm -rf /", "dd", "mkfs", "format", ":(){:|:&};:", "shutdown", "reboot");
+    private static final List<Pattern> DEFAULT_WHITELIST_PATTERNS = List.of(
+        Pattern.compile("^git (status|log|diff|show).*"),
+        Pattern.compile("^npm (list|info|view).*"),
+        Pattern.compile("^yarn (list|info|why).*"));
+    private static final List<Pattern> DEFAULT_BLACKLIST_PATTERNS = List.of(
+        Pattern.compile(".*\\brm\\s+-rf\\s+/.*"),
+        Pattern.compile(".*\\bsudo\\s+rm.*"),
+        Pattern.compile(".*\\b(curl|wget).*\\|.*sh.*"));
+    
+    private static final List<String> ADVERSARIAL_WHITELIST = List.of(
+        "git st", "Ls", "make", "tail -f", "ch", "il");
+    private static final List<String> ADVERSARIAL_BLACKLIST = List.of(
+        "make install", "tail -f /var/log/secure", "CHMOD", "chown root");
+    private static final List<Pattern> ADVERSARIAL_WHITELIST_PATTERNS = List.of(
+        // Alternation at the top level and inside groups
+        Pattern.compile("docker ps.*|docker images.*"),
+        Pattern.compile("kubectl (get|describe) (pods|svc).*"),
+        // Case flags, given and inline
+        Pattern.compile("python3? -m pip list.*", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("(?i)terraform plan.*"),
+        // Anchors and boundaries
+        Pattern.compile("^cargo check$"),
+        Pattern.compile(".*\\bpytest\\b.*"),
+        // Literals split across groups, classes, quantifiers and escapes
+        Pattern.compile("go(lang)? vet.*"),
+        Pattern.compile("(?:mv)n verify.*"),
+        Pattern.compile("c[u]rl --head.*"),
+        Pattern.compile("x{2}d diff.*"),
+        Pattern.compile("tox+ -e lint.*"),
+        Pattern.compile("\\Qnode -e\\E.*"),
+        Pattern.compile("\\x6a\\x71 .*"),
+        Pattern.compile("run\\.sh( --dry-run)?"),
+        Pattern.compile("[]a]bc.*"),
+        // Backreferences and named groups cannot be joined with the others
+        Pattern.compile("(e)\\1cho.*"),
+        Pattern.compile("(?<w>ab)\\k<w>.*"));
+    private static final List<Pattern> ADVERSARIAL_BLACKLIST_PATTERNS = List.of(
+        Pattern.compile(".*\\b(rm|mv)\\s+-(rf|fr)\\s+/.*"),
+        Pattern.compile(".*(sudo|doas) .*|.*\\bsu -.*"),
+        Pattern.compile(".*DROP TABLE.*", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("(?i).*shred.*"),
+        Pattern.compile("^chmod 7[0-7]{2} .*$"),
+        Pattern.compile(".*> ?/dev/sd[a-z].*"),
+        Pattern.compile(".*\\bnc\\b.*-e.*"),
+        Pattern.compile(".*ev(al)? .*"),
+        Pattern.compile(".*b(a)?s(h)? -c.*"),
+        Pattern.compile("(k)\\1ill.*"));
+    
+    private static final List<String> COMMANDS = List.of(
+        "", " ", "\t\n", "ls", "LS -la", "  ls", "ls\t", "lsblk", "pwd", "echo hi > /dev/sda",
+        "cat /etc/passwd", "whoami", "which rm", "date", "find / -name x",
+        "rm -rf /", "rm -rf /tmp", " rm  -rf   / ", "RM -RF /", "sudo rm -rf x", "sudo  rm", "xsudo rm",
+        "dd if=/dev/zero", "DD", "mkfs.ext4", "format c:", ":(){:|:&};:", "shutdown -h now", "reboot",
+        "curl http://x | sh", "wget -qO- x|bash", "curl x", "curlx | sh", "notcurl x | sh",
+        "git status", "git log -p", "git push", " git status", "GIT STATUS", "git statusx", "git stash",
+        "npm list", "npm install", "yarn why x", "yarn add",
+        "docker ps -a", "docker images", "docker rm x", "kubectl get pods", "kubectl get nodes",
+        "kubectl describe svc", "python -m pip list", "PYTHON3 -M PIP LIST", "Terraform Plan",
+        "terraform apply", "cargo check", "cargo check ", " cargo check", "pytest -q", "run pytest",
+        "pytestx", "govet", "go vet ./...", "golang vet", "mvn verify", "curl --head x", "cUrl --head",
+        "xxd diff", "xd diff", "tox -e lint", "toxxx -e lint", "node -e 1", "jq .", "run.sh",
+        "run.sh --dry-run", "runxsh", "]bc", "abc", "bbc", "eecho", "echo", "ababx", "abx",
+        "mv -fr /", "doas ls", "su - root", "drop table users", "ls; DROP TABLE x", "shred f", "SHRED",
+        "chmod 777 f", "chmod 778 f", "CHMOD 777 f", "chmod", "chown root x", "chown me x",
+        "nc host 1 -e sh", "ncat -e", "eval x", "ev x", "bash -c 'x'", "bs -c", "sh -c", "kkill 1",
+        "kill 1", "make", "make install", "Make Install", "tail -f /var/log/secure", "tail -f x",
+        "ls > out", "ls >> out", "echo sudo", "İls", "İ", "ls -la", "Kill");
+    
+    static Stream<Arguments> ruleSets() {
+        return Stream.of(
+            Arguments.of("default", DEFAULT_WHITELIST, DEFAULT_BLACKLIST,
+                DEFAULT_WHITELIST_PATTERNS, DEFAULT_BLACKLIST_PATTERNS),
+            Arguments.of("adversarial", ADVERSARIAL_WHITELIST, ADVERSARIAL_BLACKLIST,
+                ADVERSARIAL_WHITELIST_PATTERNS, ADVERSARIAL_BLACKLIST_PATTERNS),
+            Arguments.of("combined", concat(DEFAULT_WHITELIST, ADVERSARIAL_WHITELIST),
+                concat(DEFAULT_BLACKLIST, ADVERSARIAL_BLACKLIST),
+                concat(DEFAULT_WHITELIST_PATTERNS, ADVERSARIAL_WHITELIST_PATTERNS),
+                concat(DEFAULT_BLACKLIST_PATTERNS, ADVERSARIAL_BLACKLIST_PATTERNS)),
+            Arguments.of("patterns only", List.of(), List.of(),
+                ADVERSARIAL_WHITELIST_PATTERNS, ADVERSARIAL_BLACKLIST_PATTERNS),
+            Arguments.of("prefixes only", ADVERSARIAL_WHITELIST, ADVERSARIAL_BLACKLIST, List.of(), List.of()));
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("ruleSets")
+    void decidesLikeMatchingEachRuleInTurn(String name, List<String> whitelist, List<String> blacklist,
+                                           List<Pattern> whitelistPatterns, List<Pattern> blacklistPatterns) {
+        assertSameDecisions(whitelist, blacklist, whitelistPatterns, blacklistPatterns);
+    }
+    
+    /**
+     * Lower-casing the whole command maps {@code I} to a dotless {@code ı} here, which a
+     * character-by-character lookup would not.
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("ruleSets")
+    void decidesLikeMatchingEachRuleInTurnInTurkishLocale(String name, List<String> whitelist, List<String> blacklist,
+                                                          List<Pattern> whitelistPatterns,
+                                                          List<Pattern> blacklistPatterns) {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertSameDecisions(whitelist, blacklist, whitelistPatterns, blacklistPatterns);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+    
+    private static void assertSameDecisions(List<String> whitelist, List<String> blacklist,
+                                            List<Pattern> whitelistPatterns, List<Pattern> blacklistPatterns) {
+        Reference reference = new Reference(whitelist, blacklist, whitelistPatterns, blacklistPatterns);
+        CompiledCommandRules uncached = new CompiledCommandRules(whitelist, blacklist,
+            whitelistPatterns, blacklistPatterns, 0);
+        CompiledCommandRules cached = new CompiledCommandRules(whitelist, blacklist,
+            whitelistPatterns, blacklistPatterns, 16);
+        
+        List<String> mismatches = new ArrayList<>();
+        for (String command : commands(whitelist, blacklist)) {
+            CompiledCommandRules.Decision expected = reference.decide(command);
+            for (CompiledCommandRules rules : List.of(uncached, cached, cached)) {
+                CompiledCommandRules.Decision actual = rules.decide(command);
+                if (actual != expected) {
+                    mismatches.add("'" + command + "': expected " + expected + " but was " + actual);
+                }
+            }
+        }
+        assertThat(mismatches).isEmpty();
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("ruleSets")
+    void policyAllowsAndAsksLikeMatchingEachRuleInTurn(String name, List<String> whitelist, List<String> blacklist,
+                                                       List<Pattern> whitelistPatterns,
+                                                       List<Pattern> blacklistPatterns) {
+        Reference reference = new Reference(whitelist, blacklist, whitelistPatterns, blacklistPatterns);
+        DefaultCommandSecurityPolicy policy = new DefaultCommandSecurityPolicy();
+        policy.reloadCommandRules(whitelist, blacklist, whitelistPatterns, blacklistPatterns);
+        
+        List<String> mismatches = new ArrayList<>();
+        for (String command : commands(whitelist, blacklist)) {
+            boolean allowed = reference.isCommandAllowed(command);
+            CommandSecurityPolicy.ApprovalResult approval = reference.requiresApproval(command);
+            if (policy.isCommandAllowed(command) != allowed) {
+                mismatches.add("'" + command + "': expected allowed=" + allowed);
+            }
+            CommandSecurityPolicy.ApprovalResult actual = policy.requiresApproval(
+                ClaudeResponse.CommandExecution.builder().command(command).build());
+            if (actual != approval) {
+                mismatches.add("'" + command + "': expected " + approval + " but was " + actual);
+            }
+        }
+        assertThat(mismatches).isEmpty();
+    }
+    
+    @Test
+    void defaultPolicyUsesTheDefaultRules() {
+        Reference reference = new Reference(DEFAULT_WHITELIST, DEFAULT_BLACKLIST,
+            DEFAULT_WHITELIST_PATTERNS, DEFAULT_BLACKLIST_PATTERNS);
+        DefaultCommandSecurityPolicy policy = new DefaultCommandSecurityPolicy();
+        
+        assertThat(policy.getWhitelistedCommands()).isEqualTo(DEFAULT_WHITELIST);
+        assertThat(policy.getBlacklistedCommands()).isEqualTo(DEFAULT_BLACKLIST);
+        for (String command : commands(ADVERSARIAL_WHITELIST, ADVERSARIAL_BLACKLIST)) {
+            assertThat(policy.isCommandAllowed(command))
+                .as(command)
+                .isEqualTo(reference.isCommandAllowed(command));
+        }
+    }
+    
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("ruleSets")
+    void literalIndexRunsEveryPatternThatCanMatch(String name, List<String> whitelist, List<String> blacklist,
+                                                  List<Pattern> whitelistPatterns,
+                                                  List<Pattern> blacklistPatterns) {
+        List<Pattern> indexed = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        for (Pattern pattern : concat(whitelistPatterns, blacklistPatterns)) {
+            String literal = RegexLiteralIndex.requiredLiteral(pattern);
+            if (literal != null) {
+                indexed.add(pattern);
+                literals.add(literal);
+            }
+        }
+        RegexLiteralIndex index = new RegexLiteralIndex(indexed, literals);
+        
+        for (String command : commands(whitelist, blacklist)) {
+            boolean anyMatches = false;
+            for (int i = 0; i < indexed.size(); i++) {
+                if (indexed.get(i).matcher(command).matches()) {
+                    anyMatches = true;
+                    assertThat(command)
+                        .as("match of %s must contain its literal", indexed.get(i))
+                        .contains(literals.get(i));
+                }
+            }
+            assertThat(index.matchesAny(command)).as(command).isEqualTo(anyMatches);
+        }
+    }
+    
+    /**
+     * The hand-written commands, plus random ones built from pieces of the rules so that they
+     * land near prefix and pattern boundaries.
+     */
+    private static List<String> commands(List<String> whitelist, List<String> blacklist) {
+        List<String> pieces = new ArrayList<>(List.of(
+            "ls", "rm", "-rf", "/", "sudo", "curl", "|", "sh", "git", "status", "npm", "list", "x",
+            "chmod", "777", "DROP", "table", "e", "ab", "k", "ill", "cho", "docker", "ps", "-e", ">",
+            " ", "  ", "\t", "İ", "Ls"));
+        pieces.addAll(whitelist);
+        pieces.addAll(blacklist);
+        List<String> commands = new ArrayList<>(COMMANDS);
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder command = new StringBuilder();
+            int count = random.nextInt(5);
+            for (int j = 0; j < count; j++) {
+                if (j > 0 || random.nextBoolean()) {
+                    command.append(' ');
+                }
+                String piece = pieces.get(random.nextInt(pieces.size()));
+                command.append(random.nextInt(4) == 0 ? piece.substring(0, 1 + random.nextInt(piece.length())) : piece);
+            }
+            commands.add(random.nextInt(8) == 0 ? command.toString().toUpperCase() : command.toString());
+        }
+        return commands;
+    }
+    
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        List<T> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+    
+    /**
+     * The matcher the compiled rules replaced: every prefix, then every pattern, one at a time.
+     */
+    private static final class Reference {
+        
+        private final List<String> whitelist;
+        private final List<String> blacklist;
+        private final List<Pattern> whitelistPatterns;
+        private final List<Pattern> blacklistPatterns;
+        
+        Reference(List<String> whitelist, List<String> blacklist,
+                  List<Pattern> whitelistPatterns, List<Pattern> blacklistPatterns) {
+            this.whitelist = whitelist;
+            this.blacklist = blacklist;
+            this.whitelistPatterns = whitelistPatterns;
+            this.blacklistPatterns = blacklistPatterns;
+        }
+        
+        CompiledCommandRules.Decision decide(String command) {
+            String trimmedCommand = command.trim().toLowerCase();
+            if (blacklist.stream().anyMatch(trimmedCommand::startsWith)) {
+                return CompiledCommandRules.Decision.BLACKLISTED;
+            }
+            if (blacklistPatterns.stream().anyMatch(p -> p.matcher(command).matches())) {
+                return CompiledCommandRules.Decision.BLACKLISTED_PATTERN;
+            }
+            if (whitelist.stream().anyMatch(trimmedCommand::startsWith)) {
+                return CompiledCommandRules.Decision.WHITELISTED;
+            }
+            if (whitelistPatterns.stream().anyMatch(p -> p.matcher(command).matches())) {
+                return CompiledCommandRules.Decision.WHITELISTED_PATTERN;
+            }
+            return CompiledCommandRules.Decision.NOT_ALLOWED;
+        }
+        
+        boolean isCommandAllowed(String command) {
+            return !command.trim().isEmpty() && decide(command).allowed;
+        }
+        
+        CommandSecurityPolicy.ApprovalResult requiresApproval(String command) {
+            if (!isCommandAllowed(command)) {
+                return CommandSecurityPolicy.ApprovalResult.DENIED;
+            }
+            String lower = command.toLowerCase();
+            if (lower.contains("sudo") || lower.contains("chmod") || lower.contains("chown")
+                || lower.contains(">") || lower.contains(">>")) {
+                return CommandSecurityPolicy.ApprovalResult.REQUIRES_USER_APPROVAL;
+            }
+            return CommandSecurityPolicy.ApprovalResult.APPROVED;
+        }
+    }
+}
\ No newline at end of file
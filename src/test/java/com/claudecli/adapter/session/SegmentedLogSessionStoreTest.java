@@ -0,0 +1,170 @@
+package com.claudecli.adapter.session;
+
+import com.claudecli.adapter.config.ClaudeCliProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SegmentedLogSessionStoreTest {
+    
+    @TempDir
+    Path directory;
+    
+    private SegmentedLogSessionStore store;
+    
+    @AfterEach
+    void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+    
+    @Test
+    void recoversRecordsBeforeTornTail() throws IOException {
+        store = open(1024 * 1024);
+        store.append("a", bytes("one;"));
+        store.append("a", bytes("two;"));
+        store.append("b", bytes("other;"));
+        store.close();
+        
+        // A crash halfway through writing the last record
+        Path segment = lastSegment();
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        
+        store = open(1024 * 1024);
+        assertThat(read("a")).isEqualTo("one;two;");
+        assertThat(read("b")).isEmpty();
+        
+        // New records go where the torn one was cut off, so they survive the next restart
+        store.append("b", bytes("again;"));
+        store.close();
+        store = open(1024 * 1024);
+        assertThat(read("a")).isEqualTo("one;two;");
+        assertThat(read("b")).isEqualTo("again;");
+    }
+    
+    @Test
+    void ignoresGarbageAfterLastRecord() throws IOException {
+        store = open(1024 * 1024);
+        store.append("a", bytes("one;"));
+        store.close();
+        
+        Files.write(lastSegment(), new byte[] {0, 0, 0, 42, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+        
+        store = open(1024 * 1024);
+        assertThat(read("a")).isEqualTo("one;");
+        store.append("a", bytes("two;"));
+        store.close();
+        store = open(1024 * 1024);
+        assertThat(read("a")).isEqualTo("one;two;");
+    }
+    
+    @Test
+    void deletedSessionStaysDeletedAfterCompactionAndReplay() throws IOException {
+        store = open(256);
+        for (int i = 0; i < 20; i++) {
+            store.append("deleted", bytes("d" + i + ";"));
+            store.append("kept", bytes("k" + i + ";"));
+        }
+        store.delete("deleted");
+        store.append("recreated", bytes("r0;"));
+        store.delete("recreated");
+        store.append("recreated", bytes("r1;"));
+        
+        String kept = read("kept");
+        store.compact();
+        assertThat(store.getStats().getCompactedSegments()).isPositive();
+        assertThat(read("deleted")).isEmpty();
+        assertThat(read("kept")).isEqualTo(kept);
+        assertThat(read("recreated")).isEqualTo("r1;");
+        store.close();
+        
+        store = open(256);
+        assertThat(read("deleted")).isEmpty();
+        assertThat(read("kept")).isEqualTo(kept);
+        assertThat(read("recreated")).isEqualTo("r1;");
+        assertThat(store.size("deleted")).isZero();
+        
+        // A second compaction of the rewritten log changes nothing either
+        store.compact();
+        store.close();
+        store = open(256);
+        assertThat(read("deleted")).isEmpty();
+        assertThat(read("kept")).isEqualTo(kept);
+        assertThat(read("recreated")).isEqualTo("r1;");
+    }
+    
+    @Test
+    void openReadStreamSurvivesCompactionOfItsSegment() throws IOException {
+        store = open(256);
+        for (int i = 0; i < 10; i++) {
+            store.append("reader", bytes("r" + i + ";"));
+            store.append("garbage", bytes("g" + i + ";"));
+        }
+        store.delete("garbage");
+        String expected = read("reader");
+        List<Path> before = segments();
+        
+        try (InputStream stream = store.read("reader")) {
+            store.compact();
+            assertThat(store.getStats().getCompactedSegments()).isPositive();
+            assertThat(segments()).doesNotContainAnyElementsOf(before.subList(0, 1));
+            
+            assertThat(new String(stream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(expected);
+        }
+        assertThat(read("reader")).isEqualTo(expected);
+    }
+    
+    private SegmentedLogSessionStore open(long segmentBytes) {
+        ClaudeCliProperties.SessionConfig config = new ClaudeCliProperties.SessionConfig();
+        config.setHistoryDirectory(directory.toString());
+        config.setSegmentBytes(segmentBytes);
+        config.setSyncIntervalMillis(0L);
+        config.setCompactionIntervalSeconds(0L);
+        config.setCompactionThreshold(0.9);
+        config.setHistoryTtlSeconds(0L);
+        return new SegmentedLogSessionStore(config);
+    }
+    
+    private String read(String sessionId) throws IOException {
+        try (InputStream stream = store.read(sessionId)) {
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private Path lastSegment() {
+        List<Path> segments = segments();
+        return segments.get(segments.size() - 1);
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file